@@ -67,6 +67,21 @@ public interface Command {
      */
     Set<Subsystem> getRequirements();
 
+    /**
+     * Returns the subsystems used by this command as a bitmask, with the bit of each subsystem's id
+     * in the {@link CommandScheduler} set.  Two commands share a requirement when their masks have
+     * a bit in common.
+     *
+     * <p>This finds the mask from {@link #getRequirements()} every time it is called.
+     * {@link CommandBase} keeps it instead, so it is only found again when requirements are added
+     * or the scheduler frees subsystem ids.
+     *
+     * @return the mask of the subsystems that are required
+     */
+    default long getRequirementMask() {
+        return CommandScheduler.getInstance().requirementMask(getRequirements());
+    }
+
     /**
      * Decorates this command with a timeout.  If the specified timeout is exceeded before the command
      * finishes normally, the command will be interrupted and un-scheduled.  Note that the
@@ -23,6 +23,14 @@ public abstract class CommandBase implements Command {
     protected String m_subsystem = "Ungrouped";
     protected Set<Subsystem> m_requirements = new HashSet<>();
 
+    // The requirement mask, the scheduler and id generation whose subsystem ids it uses, and how
+    // many requirements there were when it was found.  Requirements are only ever added, so a
+    // different count means the mask is out of date.
+    private long m_requirementMask;
+    private CommandScheduler m_maskScheduler;
+    private int m_maskGeneration;
+    private int m_maskedRequirements = -1;
+
     /**
      * Adds the specified requirements to the command.
      *
@@ -37,6 +45,19 @@ public abstract class CommandBase implements Command {
         return m_requirements;
     }
 
+    @Override
+    public long getRequirementMask() {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        if (scheduler != m_maskScheduler || scheduler.getIdGeneration() != m_maskGeneration
+                || m_requirements.size() != m_maskedRequirements) {
+            m_requirementMask = scheduler.requirementMask(m_requirements);
+            m_maskScheduler = scheduler;
+            m_maskGeneration = scheduler.getIdGeneration();
+            m_maskedRequirements = m_requirements.size();
+        }
+        return m_requirementMask;
+    }
+
     public String getName() {
         return this.getClass().getSimpleName();
     }
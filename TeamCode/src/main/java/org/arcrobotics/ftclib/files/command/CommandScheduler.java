@@ -9,11 +9,7 @@ package org.arcrobotics.ftclib.files.command;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,11 +22,27 @@ import java.util.function.Consumer;
  * {@link CommandScheduler#registerSubsystem(Subsystem...)} in order for their {@link
  * Subsystem#periodic()} methods to be called and for their default commands to be scheduled.
  *
+ * <p>Every subsystem the scheduler sees is given a small integer id, the first time it is
+ * registered or required, and each command keeps its requirements as a bitmask of those ids,
+ * {@link Command#getRequirementMask()}.  Checking for conflicts, interrupting and freeing
+ * requirements are then a few bitwise operations, and the scheduled commands and subsystems are
+ * kept in arrays indexed by slot or id, so a call of {@link #run()} in which no command is
+ * scheduled or ends does not allocate anything.
+ *
+ * <p>The scheduler can track at most {@link #MAX_SUBSYSTEMS} subsystems at once.  The id of a
+ * subsystem is freed, and the scheduler lets go of it, once it is neither registered nor required
+ * by a scheduled command, so subsystems made by each OpMode don't use up the ids.
+ *
  * @author Jackson
  */
 @SuppressWarnings({"PMD.GodClass", "PMD.TooManyMethods", "PMD.TooManyFields"})
 public final class CommandScheduler {
 
+    /**
+     * The most subsystems the scheduler can track, one for each bit of a requirement mask
+     */
+    public static final int MAX_SUBSYSTEMS = Long.SIZE;
+
     /**
      * The singleton instance
      */
@@ -48,19 +60,35 @@ public final class CommandScheduler {
         return instance;
     }
 
-    // A map from commands to their scheduling state.  Also used as a set of the currently-running
-    // commands.
-    private final Map<Command, CommandState> m_scheduledCommands = new LinkedHashMap<>();
-
-    // A map from required subsystems to their requiring commands.  Also used as a set of the
-    //currently-required subsystems.
-    private final Map<Subsystem, Command> m_requirements = new LinkedHashMap<>();
-
-    // A map from subsystems registered with the scheduler to their default commands.  Also used
-    // as a list of currently-registered subsystems.
-    private final Map<Subsystem, Command> m_subsystems = new LinkedHashMap<>();
-
-    private final Collection<Runnable> m_buttons = new LinkedHashSet<>();
+    // The currently-running commands in the order they were scheduled, with whether each can be
+    // interrupted and the mask of the subsystems it requires.  A slot is set to null when its
+    // command ends during the run loop, and the arrays are compacted once the loop is done.
+    private Command[] m_scheduledCommands = new Command[8];
+    private boolean[] m_interruptible = new boolean[8];
+    private long[] m_requirementMasks = new long[8];
+    private int m_scheduledCount;
+    private boolean m_inRunLoop;
+    private boolean m_hasRemovedCommands;
+
+    // The ids of the subsystems seen by the scheduler, the subsystem with each id and the mask of
+    // the ids in use.  The generation changes whenever an id is freed, as requirement masks found
+    // before then may use it for a different subsystem.
+    private final Map<Subsystem, Integer> m_subsystemIds = new IdentityHashMap<>();
+    private final Subsystem[] m_subsystems = new Subsystem[MAX_SUBSYSTEMS];
+    private long m_usedIds;
+    private int m_idGeneration;
+
+    // The command requiring each subsystem, by id.  The masks are the subsystems which are
+    // required, and those required by commands that can't be interrupted.
+    private final Command[] m_requiring = new Command[MAX_SUBSYSTEMS];
+    private long m_requiredMask;
+    private long m_uninterruptibleMask;
+
+    // The default command of each subsystem, by id, and the mask of the registered subsystems.
+    private final Command[] m_defaultCommands = new Command[MAX_SUBSYSTEMS];
+    private long m_registeredMask;
+
+    private final List<Runnable> m_buttons = new ArrayList<>();
 
     private boolean m_disabled;
 
@@ -80,7 +108,9 @@ public final class CommandScheduler {
      * @param button The button to add
      */
     public void addButton(Runnable button) {
-        m_buttons.add(button);
+        if (!m_buttons.contains(button)) {
+            m_buttons.add(button);
+        }
     }
 
     /**
@@ -90,23 +120,181 @@ public final class CommandScheduler {
         m_buttons.clear();
     }
 
+    /**
+     * Returns the id of a subsystem, giving it the next free id if it doesn't have one.  If the ids
+     * have run out, the ids of subsystems which are no longer used are freed first, such as those
+     * only required by commands which were never scheduled.
+     *
+     * @param subsystem the subsystem
+     * @param keep      the ids which must not be freed
+     * @return the id of the subsystem
+     */
+    private int idOf(Subsystem subsystem, long keep) {
+        Integer id = m_subsystemIds.get(subsystem);
+        if (id != null) {
+            return id;
+        }
+
+        if (m_usedIds == -1L) {
+            freeUnusedIds(~keep);
+        }
+        if (m_usedIds == -1L) {
+            throw new IllegalStateException(
+                    "The scheduler can't track more than " + MAX_SUBSYSTEMS + " subsystems");
+        }
+        int next = Long.numberOfTrailingZeros(~m_usedIds);
+        m_subsystemIds.put(subsystem, next);
+        m_subsystems[next] = subsystem;
+        m_usedIds |= 1L << next;
+        return next;
+    }
+
+    /**
+     * Frees the ids of subsystems which are neither registered nor required, so the scheduler no
+     * longer holds on to them and the ids can be given to other subsystems.
+     *
+     * @param mask the subsystems which may no longer be used
+     */
+    private void freeUnusedIds(long mask) {
+        long unused = mask & m_usedIds & ~m_registeredMask & ~m_requiredMask;
+        if (unused == 0) {
+            return;
+        }
+        for (long bits = unused; bits != 0; bits &= bits - 1) {
+            int id = Long.numberOfTrailingZeros(bits);
+            m_subsystemIds.remove(m_subsystems[id]);
+            m_subsystems[id] = null;
+            m_defaultCommands[id] = null;
+        }
+        m_usedIds &= ~unused;
+        m_idGeneration++;
+    }
+
+    /**
+     * Returns a number which changes whenever a subsystem id is freed.  A requirement mask found
+     * with {@link #requirementMask(Set)} is only valid while this stays the same.
+     *
+     * @return the id generation
+     */
+    int getIdGeneration() {
+        return m_idGeneration;
+    }
+
+    /**
+     * Returns the bitmask of a set of subsystems, giving ids to the subsystems which don't have one.
+     * Commands find their {@link Command#getRequirementMask()} with this.
+     *
+     * @param requirements the subsystems
+     * @return the mask, with the bit of each subsystem's id set
+     */
+    long requirementMask(Set<Subsystem> requirements) {
+        long mask = 0;
+        for (Subsystem requirement : requirements) {
+            mask |= 1L << idOf(requirement, mask);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the slot of a scheduled command, or -1 if it isn't scheduled.  Only a few commands
+     * run at once, so this looks through them.
+     *
+     * @param command the command to find
+     * @return the slot of the command
+     */
+    private int indexOf(Command command) {
+        for (int i = 0; i < m_scheduledCount; i++) {
+            if (m_scheduledCommands[i] == command) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calls each action in a list with a command.
+     *
+     * @param actions the actions to perform
+     * @param command the command
+     */
+    private static void accept(List<Consumer<Command>> actions, Command command) {
+        for (int i = 0; i < actions.size(); i++) {
+            actions.get(i).accept(command);
+        }
+    }
+
     /**
      * Initializes a given command, adds its requirements to the list, and performs the init actions.
      *
-     * @param command       The command to initialize
-     * @param interruptible Whether the command is interruptible
-     * @param requirements  The command requirements
+     * @param command         The command to initialize
+     * @param interruptible   Whether the command is interruptible
+     * @param requirementMask The mask of the command requirements
      */
-    private void initCommand(Command command, boolean interruptible, Set<Subsystem> requirements) {
+    private void initCommand(Command command, boolean interruptible, long requirementMask) {
+        if (m_scheduledCount == m_scheduledCommands.length) {
+            int capacity = m_scheduledCount * 2;
+            m_scheduledCommands = Arrays.copyOf(m_scheduledCommands, capacity);
+            m_interruptible = Arrays.copyOf(m_interruptible, capacity);
+            m_requirementMasks = Arrays.copyOf(m_requirementMasks, capacity);
+        }
+        m_scheduledCommands[m_scheduledCount] = command;
+        m_interruptible[m_scheduledCount] = interruptible;
+        m_requirementMasks[m_scheduledCount] = requirementMask;
+        m_scheduledCount++;
+
+        for (long bits = requirementMask; bits != 0; bits &= bits - 1) {
+            m_requiring[Long.numberOfTrailingZeros(bits)] = command;
+        }
+        m_requiredMask |= requirementMask;
+        if (!interruptible) {
+            m_uninterruptibleMask |= requirementMask;
+        }
+
+        // The requirements are taken first, so their ids can't be freed while initializing.
         command.initialize();
-        CommandState scheduledCommand = new CommandState(interruptible);
-        m_scheduledCommands.put(command, scheduledCommand);
-        for (Consumer<Command> action : m_initActions) {
-            action.accept(command);
+        accept(m_initActions, command);
+    }
+
+    /**
+     * Removes the command in a slot and frees its requirements.  During the run loop the slot is
+     * only cleared, so the loop can carry on over the rest of the slots.
+     *
+     * @param index the slot of the command
+     */
+    private void removeAt(int index) {
+        long requirementMask = m_requirementMasks[index];
+        for (long bits = requirementMask; bits != 0; bits &= bits - 1) {
+            m_requiring[Long.numberOfTrailingZeros(bits)] = null;
         }
-        for (Subsystem requirement : requirements) {
-            m_requirements.put(requirement, command);
+        m_requiredMask &= ~requirementMask;
+        m_uninterruptibleMask &= ~requirementMask;
+
+        m_scheduledCommands[index] = null;
+        m_requirementMasks[index] = 0;
+        freeUnusedIds(requirementMask);
+        if (m_inRunLoop) {
+            m_hasRemovedCommands = true;
+        } else {
+            compact();
+        }
+    }
+
+    /**
+     * Closes up the cleared slots, keeping the commands in the order they were scheduled.
+     */
+    private void compact() {
+        int count = 0;
+        for (int i = 0; i < m_scheduledCount; i++) {
+            if (m_scheduledCommands[i] != null) {
+                m_scheduledCommands[count] = m_scheduledCommands[i];
+                m_interruptible[count] = m_interruptible[i];
+                m_requirementMasks[count] = m_requirementMasks[i];
+                count++;
+            }
         }
+        Arrays.fill(m_scheduledCommands, count, m_scheduledCount, null);
+        m_scheduledCount = count;
+        m_hasRemovedCommands = false;
     }
 
     /**
@@ -118,7 +306,6 @@ public final class CommandScheduler {
      * @param interruptible whether this command can be interrupted
      * @param command       the command to schedule
      */
-    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
     private void schedule(boolean interruptible, Command command) {
         if (CommandGroupBase.getGroupedCommands().contains(command)) {
             throw new IllegalArgumentException(
@@ -128,31 +315,29 @@ public final class CommandScheduler {
         // Do nothing if the scheduler is disabled, the robot is disabled and the command doesn't
         // run when disabled, or the command is already scheduled.
         if (m_disabled || (!command.runsWhenDisabled() && Robot.isDisabled)
-                || m_scheduledCommands.containsKey(command)) {
+                || indexOf(command) >= 0) {
             return;
         }
 
-        Set<Subsystem> requirements = command.getRequirements();
+        long requirementMask = command.getRequirementMask();
 
-        // Schedule the command if the requirements are not currently in-use.
-        if (Collections.disjoint(m_requirements.keySet(), requirements)) {
-            initCommand(command, interruptible, requirements);
-        } else {
-            // Else check if the requirements that are in use have all have interruptible commands,
-            // and if so, interrupt those commands and schedule the new command.
-            for (Subsystem requirement : requirements) {
-                if (m_requirements.containsKey(requirement)
-                        && !m_scheduledCommands.get(m_requirements.get(requirement)).isInterruptible()) {
-                    return;
-                }
-            }
-            for (Subsystem requirement : requirements) {
-                if (m_requirements.containsKey(requirement)) {
-                    cancel(m_requirements.get(requirement));
-                }
+        // Schedule the command if the requirements are not currently in-use.  Else, if all of
+        // the commands using them are interruptible, interrupt those commands and schedule the
+        // new command.
+        long conflicts = m_requiredMask & requirementMask;
+        if ((m_uninterruptibleMask & requirementMask) != 0) {
+            return;
+        }
+        while (conflicts != 0) {
+            cancel(m_requiring[Long.numberOfTrailingZeros(conflicts)]);
+            // Canceling can free ids, so the mask is found again.
+            requirementMask = command.getRequirementMask();
+            conflicts = m_requiredMask & requirementMask;
+            if ((m_uninterruptibleMask & requirementMask) != 0) {
+                return;
             }
-            initCommand(command, interruptible, requirements);
         }
+        initCommand(command, interruptible, requirementMask);
     }
 
     /**
@@ -193,6 +378,8 @@ public final class CommandScheduler {
      * have their end methods called and are removed.
      *
      * <p>Any subsystems not being used as requirements have their default methods started.
+     *
+     * <p>Commands scheduled while the commands are being run are first executed on the next call.
      */
     @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
     public void run() {
@@ -201,50 +388,50 @@ public final class CommandScheduler {
         }
 
         // Run the periodic method of all registered subsystems.
-        for (Subsystem subsystem : m_subsystems.keySet()) {
-            subsystem.periodic();
+        for (long bits = m_registeredMask; bits != 0; bits &= bits - 1) {
+            m_subsystems[Long.numberOfTrailingZeros(bits)].periodic();
         }
 
         // Poll buttons for new commands to add.
-        for (Runnable button : m_buttons) {
-            button.run();
+        for (int i = 0; i < m_buttons.size(); i++) {
+            m_buttons.get(i).run();
         }
 
         // Run scheduled commands, remove finished commands.
-        for (Iterator<Command> iterator = m_scheduledCommands.keySet().iterator();
-             iterator.hasNext(); ) {
-            Command command = iterator.next();
+        m_inRunLoop = true;
+        int count = m_scheduledCount;
+        for (int i = 0; i < count; i++) {
+            Command command = m_scheduledCommands[i];
+            if (command == null) {
+                continue;
+            }
 
             if (!command.runsWhenDisabled() && Robot.isDisabled) {
+                removeAt(i);
                 command.end(true);
-                for (Consumer<Command> action : m_interruptActions) {
-                    action.accept(command);
-                }
-                m_requirements.keySet().removeAll(command.getRequirements());
-                iterator.remove();
+                accept(m_interruptActions, command);
                 continue;
             }
 
             command.execute();
-            for (Consumer<Command> action : m_executeActions) {
-                action.accept(command);
-            }
-            if (command.isFinished()) {
+            accept(m_executeActions, command);
+            // The command may have been canceled while it was executing.
+            if (m_scheduledCommands[i] == command && command.isFinished()) {
+                removeAt(i);
                 command.end(false);
-                for (Consumer<Command> action : m_finishActions) {
-                    action.accept(command);
-                }
-                iterator.remove();
-
-                m_requirements.keySet().removeAll(command.getRequirements());
+                accept(m_finishActions, command);
             }
         }
+        m_inRunLoop = false;
+        if (m_hasRemovedCommands) {
+            compact();
+        }
 
         // Add default commands for un-required registered subsystems.
-        for (Map.Entry<Subsystem, Command> subsystemCommand : m_subsystems.entrySet()) {
-            if (!m_requirements.containsKey(subsystemCommand.getKey())
-                    && subsystemCommand.getValue() != null) {
-                schedule(subsystemCommand.getValue());
+        for (long bits = m_registeredMask & ~m_requiredMask; bits != 0; bits &= bits - 1) {
+            Command defaultCommand = m_defaultCommands[Long.numberOfTrailingZeros(bits)];
+            if (defaultCommand != null) {
+                schedule(defaultCommand);
             }
         }
     }
@@ -259,7 +446,9 @@ public final class CommandScheduler {
      */
     public void registerSubsystem(Subsystem... subsystems) {
         for (Subsystem subsystem : subsystems) {
-            m_subsystems.put(subsystem, null);
+            int id = idOf(subsystem, 0);
+            m_registeredMask |= 1L << id;
+            m_defaultCommands[id] = null;
         }
     }
 
@@ -270,7 +459,14 @@ public final class CommandScheduler {
      * @param subsystems the subsystem to un-register
      */
     public void unregisterSubsystem(Subsystem... subsystems) {
-        m_subsystems.keySet().removeAll(Arrays.asList(subsystems));
+        for (Subsystem subsystem : subsystems) {
+            Integer id = m_subsystemIds.get(subsystem);
+            if (id != null) {
+                m_registeredMask &= ~(1L << id);
+                m_defaultCommands[id] = null;
+                freeUnusedIds(1L << id);
+            }
+        }
     }
 
     /**
@@ -299,7 +495,9 @@ public final class CommandScheduler {
             throw new IllegalArgumentException("Default commands should not end!");
         }
 
-        m_subsystems.put(subsystem, defaultCommand);
+        int id = idOf(subsystem, 0);
+        m_registeredMask |= 1L << id;
+        m_defaultCommands[id] = defaultCommand;
     }
 
     /**
@@ -310,7 +508,8 @@ public final class CommandScheduler {
      * @return the default command associated with the subsystem
      */
     public Command getDefaultCommand(Subsystem subsystem) {
-        return m_subsystems.get(subsystem);
+        Integer id = m_subsystemIds.get(subsystem);
+        return id != null ? m_defaultCommands[id] : null;
     }
 
     /**
@@ -322,16 +521,14 @@ public final class CommandScheduler {
      */
     public void cancel(Command... commands) {
         for (Command command : commands) {
-            if (!m_scheduledCommands.containsKey(command)) {
+            int index = indexOf(command);
+            if (index < 0) {
                 continue;
             }
 
+            removeAt(index);
             command.end(true);
-            for (Consumer<Command> action : m_interruptActions) {
-                action.accept(command);
-            }
-            m_scheduledCommands.remove(command);
-            m_requirements.keySet().removeAll(command.getRequirements());
+            accept(m_interruptActions, command);
         }
     }
 
@@ -339,8 +536,10 @@ public final class CommandScheduler {
      * Cancels all commands that are currently scheduled.
      */
     public void cancelAll() {
-        for (Command command : m_scheduledCommands.keySet()) {
-            cancel(command);
+        for (int i = m_scheduledCount - 1; i >= 0; i--) {
+            if (i < m_scheduledCount && m_scheduledCommands[i] != null) {
+                cancel(m_scheduledCommands[i]);
+            }
         }
     }
 
@@ -353,7 +552,12 @@ public final class CommandScheduler {
      * @return whether the command is currently scheduled
      */
     public boolean isScheduled(Command... commands) {
-        return m_scheduledCommands.keySet().containsAll(Arrays.asList(commands));
+        for (Command command : commands) {
+            if (indexOf(command) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -364,7 +568,8 @@ public final class CommandScheduler {
      * @return the command currently requiring the subsystem
      */
     public Command requiring(Subsystem subsystem) {
-        return m_requirements.get(subsystem);
+        Integer id = m_subsystemIds.get(subsystem);
+        return id != null ? m_requiring[id] : null;
     }
 
     /**
@@ -13,13 +13,19 @@ import org.arcrobotics.ftclib.files.trajectory.TrapezoidProfile;
 /**
  * Implements a PID control loop whose setpoint is constrained by a trapezoid
  * profile.
+ *
+ * <p>The goal, setpoint and profile are owned by the controller and updated in
+ * place, so {@link #calculate(double)} does not allocate. The profile is
+ * re-planned from the current setpoint on every call, so the goal may change
+ * mid-motion.
  */
 @SuppressWarnings("PMD.TooManyMethods")
 public class ProfiledPIDController {
   private PIDController m_controller;
-  private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
-  private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+  private final TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
+  private final TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
   private TrapezoidProfile.Constraints m_constraints;
+  private final TrapezoidProfile m_profile;
 
   /**
    * Allocates a ProfiledPIDController with the given constants for Kp, Ki, and
@@ -35,6 +41,7 @@ public class ProfiledPIDController {
                         TrapezoidProfile.Constraints constraints) {
     m_controller = new PIDController(Kp, Ki, Kd);
     m_constraints = constraints;
+    m_profile = new TrapezoidProfile(m_constraints, m_goal, m_setpoint);
   }
 
   /**
@@ -118,12 +125,13 @@ public class ProfiledPIDController {
   }
 
   /**
-   * Sets the goal for the ProfiledPIDController.
+   * Sets the goal for the ProfiledPIDController. The state is copied.
    *
    * @param goal The desired goal state.
    */
   public void setGoal(TrapezoidProfile.State goal) {
-    m_goal = goal;
+    m_goal.position = goal.position;
+    m_goal.velocity = goal.velocity;
   }
 
   /**
@@ -132,11 +140,13 @@ public class ProfiledPIDController {
    * @param goal The desired goal position.
    */
   public void setGoal(double goal) {
-    m_goal = new TrapezoidProfile.State(goal, 0);
+    m_goal.position = goal;
+    m_goal.velocity = 0;
   }
 
   /**
-   * Gets the goal for the ProfiledPIDController.
+   * Gets the goal for the ProfiledPIDController. The returned state is owned by
+   * the controller; use {@link #setGoal(TrapezoidProfile.State)} to change it.
    */
   public TrapezoidProfile.State getGoal() {
     return m_goal;
@@ -161,7 +171,9 @@ public class ProfiledPIDController {
   }
 
   /**
-   * Returns the current setpoint of the ProfiledPIDController.
+   * Returns the current setpoint of the ProfiledPIDController. The returned state
+   * is owned by the controller and is updated in place by every call to
+   * calculate(), so copy it if an earlier value needs to be kept.
    *
    * @return The current setpoint.
    */
@@ -219,8 +231,7 @@ public class ProfiledPIDController {
    * @param measurement The current measurement of the process variable.
    */
   public double calculate(double measurement) {
-    TrapezoidProfile profile = new TrapezoidProfile(m_constraints, m_goal, m_setpoint);
-    m_setpoint = profile.calculate(getPeriod());
+    m_profile.update(m_constraints, m_goal, m_setpoint).calculate(getPeriod(), m_setpoint);
     return m_controller.calculate(measurement, m_setpoint.position);
   }
 
@@ -272,8 +283,7 @@ public class ProfiledPIDController {
    * @param measurement The current measured State of the system.
    */
   public void reset(TrapezoidProfile.State measurement) {
-    m_controller.reset();
-    m_setpoint = measurement;
+    reset(measurement.position, measurement.velocity);
   }
 
   /**
@@ -283,7 +293,9 @@ public class ProfiledPIDController {
    * @param measuredVelocity The current measured velocity of the system.
    */
   public void reset(double measuredPosition, double measuredVelocity) {
-    reset(new TrapezoidProfile.State(measuredPosition, measuredVelocity));
+    m_controller.reset();
+    m_setpoint.position = measuredPosition;
+    m_setpoint.velocity = measuredVelocity;
   }
 
   /**
@@ -0,0 +1,51 @@
+package org.arcrobotics.ftclib.files.purepursuit;
+
+/**
+ * A LookaheadPolicy that looks further ahead as the robot speeds up, so it stays stable on
+ * straight sections, and closer in at sharp corners, so it doesn't cut them. The follow distance is
+ * 
+ * (followDistance + speedGain * speed) / (1 + curvatureGain * curvature)
+ * 
+ * limited to the range [minDistance, maxDistance].
+ * 
+ * @see LookaheadPolicy
+ * @version 1.0
+ *
+ */
+public class AdaptiveLookahead implements LookaheadPolicy {
+	
+	// Bounds on the follow distance.
+	private final double minDistance;
+	private final double maxDistance;
+	
+	// How much the speed and curvature change the follow distance.
+	private final double speedGain;
+	private final double curvatureGain;
+	
+	/**
+	 * Constructs an AdaptiveLookahead with the given values.
+	 * 
+	 * @param minDistance The smallest follow distance.
+	 * @param maxDistance The largest follow distance.
+	 * @param speedGain Follow distance added per unit/second of speed (in seconds).
+	 * @param curvatureGain How strongly corners shrink the follow distance (in units/radian).
+	 * @throws IllegalArgumentException If the bounds are not positive and in order, or a gain is negative.
+	 */
+	public AdaptiveLookahead(double minDistance, double maxDistance, double speedGain, double curvatureGain) {
+		if (minDistance <= 0 || maxDistance < minDistance)
+			throw new IllegalArgumentException("The follow distance bounds must be positive and in order");
+		if (speedGain < 0 || curvatureGain < 0)
+			throw new IllegalArgumentException("The gains must not be negative");
+		this.minDistance = minDistance;
+		this.maxDistance = maxDistance;
+		this.speedGain = speedGain;
+		this.curvatureGain = curvatureGain;
+	}
+	
+	@Override
+	public double getFollowDistance(double followDistance, double speed, double curvature) {
+		double distance = (followDistance + speedGain * speed) / (1 + curvatureGain * Math.abs(curvature));
+		return Math.max(minDistance, Math.min(maxDistance, distance));
+	}
+	
+}
@@ -0,0 +1,26 @@
+package org.arcrobotics.ftclib.files.purepursuit;
+
+/**
+ * This interface decides how far ahead a Path looks for its next target point. By default a path
+ * uses each waypoint's follow distance as is; a policy can change it based on how fast the robot is
+ * moving and how sharp the upcoming corner is.
+ * 
+ * @see Path#setLookaheadPolicy(LookaheadPolicy)
+ * @see AdaptiveLookahead
+ * @version 1.0
+ *
+ */
+public interface LookaheadPolicy {
+	
+	/**
+	 * Returns the follow distance to use for a segment of the path. This is called for every segment
+	 * searched in every loop, so it should be quick and must not allocate.
+	 * 
+	 * @param followDistance The follow distance configured on the waypoint at the end of the segment.
+	 * @param speed The robot's measured speed, in units/second.
+	 * @param curvature The curvature of the corner at the end of the segment, in radians/unit. This is 0 for the last segment.
+	 * @return The follow distance to use.
+	 */
+	public double getFollowDistance(double followDistance, double speed, double curvature);
+	
+}
@@ -7,7 +7,6 @@ import java.util.Queue;
 
 import org.arcrobotics.ftclib.files.drivebase.MecanumDrive;
 import org.arcrobotics.ftclib.files.geometry.Pose2d;
-import org.arcrobotics.ftclib.files.geometry.Rotation2d;
 import org.arcrobotics.ftclib.files.geometry.Translation2d;
 import org.arcrobotics.ftclib.files.kinematics.Odometry;
 import org.arcrobotics.ftclib.files.purepursuit.actions.TriggeredAction;
@@ -70,7 +69,46 @@ public class Path extends ArrayList<Waypoint> {
 	private boolean retracing;
 	private double retraceMovementSpeed;
 	private double retraceTurnSpeed;
-	private Translation2d lastKnownIntersection;
+	private boolean hasLastKnownIntersection;
+	private double lastKnownIntersectionX;
+	private double lastKnownIntersectionY;
+	
+	// Waypoint positions and follow distances, copied by init() so the loop does not need to allocate.
+	private double[] waypointX;
+	private double[] waypointY;
+	private double[] followDistances;
+	
+	// Intersections found by the current loop. Each segment adds at most three of them.
+	private double[] intersectionX;
+	private double[] intersectionY;
+	private int[] intersectionIndex;
+	private int intersectionCount;
+	private final double[] circleIntersections = new double[4];
+	
+	// Bounding boxes of the segments, indexed by the waypoint at the end of each segment.
+	private double[] segmentMinX;
+	private double[] segmentMaxX;
+	private double[] segmentMinY;
+	private double[] segmentMaxY;
+	
+	// Curvature of the corner at each waypoint, used by the lookahead policy.
+	private double[] cornerCurvatures;
+	
+	// Lookahead policy, null if the waypoints' follow distances are used as is.
+	private LookaheadPolicy lookaheadPolicy;
+	
+	// Fields for measuring the robot's speed.
+	private double measuredSpeed;
+	private double lastX;
+	private double lastY;
+	private long lastLoopTime;
+	
+	// The segment the robot is following and how many segments past it are searched for intersections.
+	private int currentSegment;
+	private int searchWindow;
+	
+	// Motor powers used by followPath().
+	private final double[] followPowers = new double[3];
 	
 	// Action lists
 	private List<TriggeredAction> triggeredActions;
@@ -103,6 +141,7 @@ public class Path extends ArrayList<Waypoint> {
 		interruptActionQueue = new LinkedList<InterruptWaypoint>();
 		motionProfile = getDefaultMotionProfile();
 		lastWaypoint = null;
+		searchWindow = 3;
 	}
 	
 	/**
@@ -125,6 +164,40 @@ public class Path extends ArrayList<Waypoint> {
 		// Configure unconfigured waypoints.
 		for (int i = 1; i < size(); i++) 
 			((GeneralWaypoint) get(i)).inherit(get(i - 1));
+		// Copy the waypoints into arrays and make room for the intersections.
+		waypointX = new double[size()];
+		waypointY = new double[size()];
+		followDistances = new double[size()];
+		for (int i = 0; i < size(); i++) {
+			Translation2d translation = get(i).getPose().getTranslation();
+			waypointX[i] = translation.getX();
+			waypointY[i] = translation.getY();
+			followDistances[i] = get(i).getFollowDistance();
+		}
+		intersectionX = new double[3 * size()];
+		intersectionY = new double[3 * size()];
+		intersectionIndex = new int[3 * size()];
+		segmentMinX = new double[size()];
+		segmentMaxX = new double[size()];
+		segmentMinY = new double[size()];
+		segmentMaxY = new double[size()];
+		for (int i = 1; i < size(); i++) {
+			segmentMinX[i] = Math.min(waypointX[i - 1], waypointX[i]);
+			segmentMaxX[i] = Math.max(waypointX[i - 1], waypointX[i]);
+			segmentMinY[i] = Math.min(waypointY[i - 1], waypointY[i]);
+			segmentMaxY[i] = Math.max(waypointY[i - 1], waypointY[i]);
+		}
+		cornerCurvatures = new double[size()];
+		for (int i = 1; i < size() - 1; i++) {
+			// The heading change at the corner spread over the neighbouring segments.
+			double inX = waypointX[i] - waypointX[i - 1];
+			double inY = waypointY[i] - waypointY[i - 1];
+			double outX = waypointX[i + 1] - waypointX[i];
+			double outY = waypointY[i + 1] - waypointY[i];
+			double length = (Math.hypot(inX, inY) + Math.hypot(outX, outY)) / 2;
+			if (length > 0)
+				cornerCurvatures[i] = Math.abs(Math.atan2(inX * outY - inY * outX, inX * outX + inY * outY)) / length;
+		}
 		// Mark the init as complete.
 		initComplete = true;
 	}
@@ -150,7 +223,7 @@ public class Path extends ArrayList<Waypoint> {
 			// Get the robot's current position using the odometry.
 			Pose2d robotPosition = odometry.getPose();
 			// Call the loop function to get the motor powers.
-			double[] motorPowers = loop(robotPosition.getX(), robotPosition.getY(), robotPosition.getHeading());
+			double[] motorPowers = loop(robotPosition.getX(), robotPosition.getY(), robotPosition.getHeading(), followPowers);
 			// Update motor speeds.
 			mecanumDrive.driveRobotCentric(motorPowers[0], motorPowers[1], motorPowers[2]);
 			if (!isFinished()) {
@@ -182,12 +255,26 @@ public class Path extends ArrayList<Waypoint> {
 	 * @return A double array containing the motor powers. a[0] is the x power, a[1] is the y power, and a[2] is the turn power.
 	 */
 	public double[] loop(double vPosition, double hPosition, double rotation) {
+		return loop(vPosition, hPosition, rotation, new double[3]);
+	}
+	
+	/**
+	 * Same as loop(double, double, double), but writes the motor powers into the given array. This does not 
+	 * allocate any memory, so it can be called every cycle without causing garbage collection pauses.
+	 *
+	 * @param vPosition Robot's current vertical position.
+	 * @param hPosition Robot's current horizontal position.
+	 * @param rotation Robot's current rotation.
+	 * @param motorPowers Array of at least length 3 that the motor powers are written to.
+	 * @return The given array. a[0] is the x power, a[1] is the y power, and a[2] is the turn power.
+	 */
+	public double[] loop(double vPosition, double hPosition, double rotation, double[] motorPowers) {
 		// First, make sure the init has been called. While this does not guarantee the program will run without errors, it is better than nothing.
 		if (!initComplete)
 			throw new IllegalStateException("You must call the init() function before calling loop()");
 		if (timedOut)
 			// If this path has timed out, return no motor speeds.
-			return new double[] {0, 0, 0};
+			return stop(motorPowers);
 		if (timeoutMiliseconds != -1)
 			// If this path has a timeout.
 			if (timeSinceStart == -1)
@@ -196,112 +283,205 @@ public class Path extends ArrayList<Waypoint> {
 				if (timeSinceStart + timeoutMiliseconds < System.currentTimeMillis()) {
 					timedOut = true;
 					// If the path has timed out, return no speeds.
-					return new double[] {0, 0, 0};
+					return stop(motorPowers);
 				}
 		// Next, loop triggered and perform interrupted actions.
 		loopTriggeredActions();
 		runQueuedInterruptActions();
 		// Get all the intersections on the path.
-		ArrayList<TaggedIntersection> intersections = new ArrayList<TaggedIntersection>();
-		for (int i = 1; i < size(); i++) {
-			// Get the path line segment and circle.
-			Translation2d linePoint1 = get(i - 1).getPose().getTranslation();
-			Translation2d linePoint2 = get(i).getPose().getTranslation();
-			double radius = get(i).getFollowDistance();
-			Translation2d robotPosition = new Translation2d(vPosition, hPosition);
-			List<Translation2d> points = PurePursuitUtil.lineCircleIntersection(robotPosition, radius, linePoint1, linePoint2);
-			for (Translation2d point : points)
-				// Add results to list.
-				intersections.add(new TaggedIntersection(point, get(i), i));
-			if (get(i) instanceof PointTurnWaypoint) {
-				// If the second waypoint is a point turn waypoint, decrease the follow radius so the next point is always found.
-				double dx = linePoint2.getX() - vPosition;
-				double dy = linePoint2.getY() - hPosition;
-				double adjustedRadius = Math.hypot(dx, dy) - 1e-9;
-				if (adjustedRadius < radius) {
-					// Add the point to the list.
-					intersections.add(new TaggedIntersection(((PointTurnWaypoint) get(i)).getTranslation(), get(i), i));
-				}
-			}
-			// Now all intersections are recorded.
-		}
+		updateMeasuredSpeed(vPosition, hPosition);
+		findIntersections(vPosition, hPosition);
 		// If there are no intersections found, the path is lost.
-		if (intersections.size() == 0) {
+		if (intersectionCount == 0) {
 			if (retracing)
-				return retrace(vPosition, hPosition, rotation);
+				return retrace(vPosition, hPosition, rotation, motorPowers);
 			// If retrace is enabled, we can try to re-find the path.
 			if (retraceEnabled) { 
-				if (lastKnownIntersection == null)
-					lastKnownIntersection = get(0).getPose().getTranslation();
+				if (!hasLastKnownIntersection) {
+					lastKnownIntersectionX = waypointX[0];
+					lastKnownIntersectionY = waypointY[0];
+					hasLastKnownIntersection = true;
+				}
 				retracing = true;
-				return retrace(vPosition, hPosition, rotation);
+				return retrace(vPosition, hPosition, rotation, motorPowers);
 			} else 
-				return new double[] {0, 0, 0};
+				return stop(motorPowers);
 		} else
 			retracing = false;
 		// The intersections are handled differently depending on the path type.
-		TaggedIntersection bestIntersection = intersections.get(0);
+		int best = 0;
 		switch(pathType) {
 		case HEADING_CONTROLLED:
-			bestIntersection = selectHeadingControlledIntersection(intersections, new Pose2d(vPosition, hPosition, new Rotation2d(rotation)));
+			best = selectHeadingControlledIntersection(rotation);
 			break;
 		case WAYPOINT_ORDERING_CONTROLLED:
-			bestIntersection = selectWaypointOrderingControlledIntersection(intersections);
+			best = selectWaypointOrderingControlledIntersection();
 			break;
 		}
-		if (retraceEnabled)
+		Waypoint taggedPoint = get(intersectionIndex[best]);
+		currentSegment = intersectionIndex[best];
+		if (retraceEnabled) {
 			// If retrace is enabled, store the intersection.
-			lastKnownIntersection = bestIntersection.intersection;
-		if (bestIntersection.taggedPoint != lastWaypoint) {
+			lastKnownIntersectionX = intersectionX[best];
+			lastKnownIntersectionY = intersectionY[best];
+			hasLastKnownIntersection = true;
+		}
+		if (taggedPoint != lastWaypoint) {
 			// If this is the first intersection of a new waypoint, update timeout values.
-			lastWaypoint = bestIntersection.taggedPoint;
+			lastWaypoint = taggedPoint;
 			lastWaypointTimeStamp = System.currentTimeMillis();
 		}
-		if (bestIntersection.taggedPoint.getTimeout() != -1)
+		if (taggedPoint.getTimeout() != -1)
 			// If this waypoint has a timeout, make sure it hasn't timed out.
-			if (System.currentTimeMillis() > lastWaypointTimeStamp + bestIntersection.taggedPoint.getTimeout()) {
+			if (System.currentTimeMillis() > lastWaypointTimeStamp + taggedPoint.getTimeout()) {
 				timedOut = true;
 				// If it has, return no motor speeds.
-				return new double[] {0, 0, 0};
+				return stop(motorPowers);
 			}
 		// After the best intersection is found, the robot behaves differently depending on the type of waypoint.
-		double[] motorPowers = new double[] {0, 0, 0};
-		Pose2d robotPos =  new Pose2d(vPosition, hPosition, new Rotation2d(rotation));
-		switch(bestIntersection.taggedPoint.getType()) {
+		stop(motorPowers);
+		switch(taggedPoint.getType()) {
 		case GENERAL:
-			motorPowers = handleGeneralIntersection(bestIntersection, robotPos);
+			handleGeneralIntersection(best, vPosition, hPosition, rotation, motorPowers);
 			break;
 		case POINT_TURN:
-			motorPowers = handlePointTurnIntersection(bestIntersection, robotPos);
+			handlePointTurnIntersection(best, vPosition, hPosition, rotation, motorPowers);
 			break;
 		case INTERRUPT:
-			motorPowers = handleInterruptIntersection(bestIntersection, robotPos);
+			handleInterruptIntersection(best, vPosition, hPosition, rotation, motorPowers);
 			break;
 		case END:
-			motorPowers = handleEndIntersection(bestIntersection, robotPos);
+			handleEndIntersection(best, vPosition, hPosition, rotation, motorPowers);
 			break;
 		case START:
 			// This should never happen.
 			throw new IllegalStateException("Path has lost integrity.");
 		}
 		// Adjust speeds.
-		adjustSpeedsWithProfile(motorPowers, bestIntersection, robotPos.getTranslation());
+		adjustSpeedsWithProfile(motorPowers, best, vPosition, hPosition);
 		normalizeMotorSpeeds(motorPowers);
 		// Return the motor powers.
 		return motorPowers;
 	}
 	
+	/**
+	 * Finds the intersections between the robot's follow circles and the path, and stores them in the intersection buffers.
+	 * Only the segments near the one being followed are searched. If none of them intersect, the whole path is searched
+	 * in case the robot has lost its place.
+	 * 
+	 * @param xPosition Robot's x position.
+	 * @param yPosition Robot's y position.
+	 */
+	private void findIntersections(double xPosition, double yPosition) {
+		intersectionCount = 0;
+		// The previous segment is included since the robot may not have fully left it.
+		int first = Math.max(1, currentSegment - 1);
+		int last = Math.min(size() - 1, currentSegment + searchWindow);
+		findIntersections(xPosition, yPosition, first, last);
+		if (intersectionCount == 0 && (first > 1 || last < size() - 1))
+			// Fall back to a search of the whole path.
+			findIntersections(xPosition, yPosition, 1, size() - 1);
+	}
+	
+	/**
+	 * Finds the intersections between the robot's follow circles and a range of segments.
+	 * 
+	 * @param xPosition Robot's x position.
+	 * @param yPosition Robot's y position.
+	 * @param first Index of the waypoint at the end of the first segment to search.
+	 * @param last Index of the waypoint at the end of the last segment to search.
+	 */
+	private void findIntersections(double xPosition, double yPosition, int first, int last) {
+		for (int i = first; i <= last; i++) {
+			// Get the path line segment and circle.
+			double radius = getFollowDistance(i);
+			// Skip segments whose bounding box is farther away than the radius, they cannot intersect.
+			if (xPosition < segmentMinX[i] - radius || xPosition > segmentMaxX[i] + radius
+					|| yPosition < segmentMinY[i] - radius || yPosition > segmentMaxY[i] + radius)
+				continue;
+			int points = PurePursuitUtil.lineCircleIntersection(xPosition, yPosition, radius, waypointX[i - 1], waypointY[i - 1], waypointX[i], waypointY[i], circleIntersections);
+			for (int j = 0; j < points; j++)
+				// Add results to list.
+				addIntersection(circleIntersections[2 * j], circleIntersections[2 * j + 1], i);
+			if (get(i) instanceof PointTurnWaypoint) {
+				// If the second waypoint is a point turn waypoint, decrease the follow radius so the next point is always found.
+				double dx = waypointX[i] - xPosition;
+				double dy = waypointY[i] - yPosition;
+				double adjustedRadius = Math.hypot(dx, dy) - 1e-9;
+				if (adjustedRadius < radius) {
+					// Add the point to the list.
+					addIntersection(waypointX[i], waypointY[i], i);
+				}
+			}
+			// Now all intersections are recorded.
+		}
+	}
+	
+	/**
+	 * Returns the follow distance for a segment, using the lookahead policy if there is one.
+	 * 
+	 * @param waypointIndex Index of the waypoint at the end of the segment.
+	 * @return The follow distance.
+	 */
+	private double getFollowDistance(int waypointIndex) {
+		if (lookaheadPolicy == null)
+			return followDistances[waypointIndex];
+		return lookaheadPolicy.getFollowDistance(followDistances[waypointIndex], measuredSpeed, cornerCurvatures[waypointIndex]);
+	}
+	
+	/**
+	 * Updates the robot's measured speed from the change in position since the last loop.
+	 * 
+	 * @param xPosition Robot's x position.
+	 * @param yPosition Robot's y position.
+	 */
+	private void updateMeasuredSpeed(double xPosition, double yPosition) {
+		long now = System.nanoTime();
+		if (lastLoopTime != -1 && now > lastLoopTime)
+			measuredSpeed = Math.hypot(xPosition - lastX, yPosition - lastY) / ((now - lastLoopTime) / 1e9);
+		lastX = xPosition;
+		lastY = yPosition;
+		lastLoopTime = now;
+	}
+	
+	/**
+	 * Adds an intersection to the intersection buffers.
+	 * 
+	 * @param x Intersection's x position.
+	 * @param y Intersection's y position.
+	 * @param waypointIndex The index of the waypoint at the end of the intersected segment.
+	 */
+	private void addIntersection(double x, double y, int waypointIndex) {
+		intersectionX[intersectionCount] = x;
+		intersectionY[intersectionCount] = y;
+		intersectionIndex[intersectionCount] = waypointIndex;
+		intersectionCount++;
+	}
+	
+	/**
+	 * Sets all the motor powers to zero.
+	 * @param motorPowers Motor powers to clear.
+	 * @return The given array.
+	 */
+	private double[] stop(double[] motorPowers) {
+		motorPowers[0] = 0;
+		motorPowers[1] = 0;
+		motorPowers[2] = 0;
+		return motorPowers;
+	}
+	
 	/**
 	 * Retraces the robot's moves back to the path's last known location. 
 	 * 
 	 * @param xPosition Robot's x position.
 	 * @param yPosition Robot's y position.
 	 * @param rotation Robot's rotation.
+	 * @param motorPowers Array the motor powers are written to.
 	 * @return A double array containing the motor powers. a[0] is the x power, a[1] is the y power, and a[2] is the turn power.
 	 */
-	private double[] retrace(double xPosition, double yPosition, double rotation) {
+	private double[] retrace(double xPosition, double yPosition, double rotation, double[] motorPowers) {
 		// Move towards the last known intersection.
-		double[] motorPowers = PurePursuitUtil.moveToPosition(xPosition, yPosition, rotation, lastKnownIntersection.getX(), lastKnownIntersection.getY(), rotation, false);
+		PurePursuitUtil.moveToPosition(xPosition, yPosition, rotation, lastKnownIntersectionX, lastKnownIntersectionY, rotation, false, motorPowers);
 		motorPowers[0] *= retraceMovementSpeed;
 		motorPowers[1] *= retraceMovementSpeed;
 		motorPowers[2] *= retraceTurnSpeed;
@@ -309,39 +489,39 @@ public class Path extends ArrayList<Waypoint> {
 	}
 	
 	/**
-	 * Selects and returns the "best" intersection from the given list using heading 
+	 * Selects and returns the "best" intersection from the intersection buffers using heading 
 	 * control. The intersection is chosen based on the following rules:
 	 * 1. If the list contains any untraversed waypoints, they are given priority and the best intersection is the point closest to the point turn waypoint.
 	 * 2. If the list contains no point turn points, then it chooses the intersection the robot is oriented most closely towards. 
 	 * 
-	 * @param intersections Intersection list.
-	 * @param robotPos Robot's current position/rotation.
-	 * @return The best intersection in the form of a TaggedIntersection.
+	 * @param rotation Robot's current rotation.
+	 * @return The index of the best intersection.
 	 */
-	private TaggedIntersection selectHeadingControlledIntersection(List<TaggedIntersection> intersections, Pose2d robotPos) {
-		TaggedIntersection bestIntersection = intersections.get(0);
+	private int selectHeadingControlledIntersection(double rotation) {
+		int best = 0;
 		boolean pointTurnPriority = false;
 		/**
 		 * In a heading controlled path, the intersection the robot is most closely oriented toward is considered the "best point".
 		 */
-		for (TaggedIntersection intersection : intersections) {
+		for (int i = 0; i < intersectionCount; i++) {
+			Waypoint taggedPoint = get(intersectionIndex[i]);
 			// Check to see if a point turn waypoint is found.
-			if (intersection.taggedPoint instanceof PointTurnWaypoint) {
-				PointTurnWaypoint ptwaypoint = (PointTurnWaypoint) intersection.taggedPoint;
+			if (taggedPoint instanceof PointTurnWaypoint) {
+				PointTurnWaypoint ptwaypoint = (PointTurnWaypoint) taggedPoint;
 				if (!ptwaypoint.hasTraversed()) {
 					// If point turn waypoint is found, and it has not already been traversed, then it takes priority.
 					pointTurnPriority = true;
-					if (!(bestIntersection.taggedPoint instanceof PointTurnWaypoint)) 
-						bestIntersection = intersection;
+					if (!(get(intersectionIndex[best]) instanceof PointTurnWaypoint)) 
+						best = i;
 					else {
 						// If two intersections associated with a point turn waypoint are found, choose the one closer to the waypoint.
-						if (bestIntersection.waypointIndex < intersection.waypointIndex)
+						if (intersectionIndex[best] < intersectionIndex[i])
 							// If the intersection is obviously behind.
-							bestIntersection = intersection;
-						else if (bestIntersection.waypointIndex == intersection.waypointIndex)
+							best = i;
+						else if (intersectionIndex[best] == intersectionIndex[i])
 							// Check to see if it is in front.
-							if (PurePursuitUtil.isInFront(get(intersection.waypointIndex - 1).getPose().getTranslation(), intersection.taggedPoint.getPose().getTranslation(), intersection.intersection, bestIntersection.intersection))
-								bestIntersection = intersection;
+							if (isInFront(i, best))
+								best = i;
 					}
 				}
 			} else if (pointTurnPriority)
@@ -350,55 +530,56 @@ public class Path extends ArrayList<Waypoint> {
 			else {
 				// Normal case.
 				// Relative angle to intersection.
-				double absoluteAngleToIntersection = Math.atan2(intersection.intersection.getY(), intersection.intersection.getX());
-				double relativeAngleToIntersection = absoluteAngleToIntersection - robotPos.getHeading();
+				double absoluteAngleToIntersection = Math.atan2(intersectionY[i], intersectionX[i]);
+				double relativeAngleToIntersection = absoluteAngleToIntersection - rotation;
 				// Relative angle to best intersection.
-				double absoluteAngleToBestIntersection = Math.atan2(bestIntersection.intersection.getY(), bestIntersection.intersection.getX());
-				double relativeAngleToBestIntersection = absoluteAngleToBestIntersection - robotPos.getHeading();
+				double absoluteAngleToBestIntersection = Math.atan2(intersectionY[best], intersectionX[best]);
+				double relativeAngleToBestIntersection = absoluteAngleToBestIntersection - rotation;
 				if (relativeAngleToIntersection < relativeAngleToBestIntersection)
 					// Update bestIntersection.
-					bestIntersection = intersection;
+					best = i;
 			}
 		}
 		// Return the best intersection.
-		return bestIntersection;
+		return best;
 	}
 	
 	/**
-	 * Selects and returns the "best" intersection from the given list by choosing the intersection that is farthest along the path.
+	 * Selects and returns the "best" intersection from the intersection buffers by choosing the intersection that is farthest along the path.
 	 * The intersection is chosen based on the following rules:
 	 * 1. If the list contains any untraversed waypoints, they are given priority and the best intersection is the point closest to the point turn waypoint.
 	 * 2. If the list contains no point turn points, then it chooses the intersection that is farthest along the path. 
 	 * 
-	 * @param intersections Intersection list.
-	 * @return The best intersection in the form of a TaggedIntersection.
+	 * @return The index of the best intersection.
 	 */
-	private TaggedIntersection selectWaypointOrderingControlledIntersection(List<TaggedIntersection> intersections) {
-		TaggedIntersection bestIntersection = intersections.get(0);
+	private int selectWaypointOrderingControlledIntersection() {
+		int best = 0;
 		boolean pointTurnPriority = false;
 		/**
 		 * In a waypoint ordering controlled path, the intersection that is farthest along the path is considered the "best point".
 		 */
-		for (TaggedIntersection intersection : intersections) {
+		for (int i = 0; i < intersectionCount; i++) {
+			Waypoint taggedPoint = get(intersectionIndex[i]);
 			// Check to see if a point turn waypoint is found.
-			if (intersection.taggedPoint instanceof PointTurnWaypoint) {
-				PointTurnWaypoint ptwaypoint = (PointTurnWaypoint) intersection.taggedPoint;
+			if (taggedPoint instanceof PointTurnWaypoint) {
+				PointTurnWaypoint ptwaypoint = (PointTurnWaypoint) taggedPoint;
 				if (!ptwaypoint.hasTraversed()) {
 					// If point turn waypoint is found, and it has not already been traversed, then it takes priority.
 					pointTurnPriority = true;
-					if (!(bestIntersection.taggedPoint instanceof PointTurnWaypoint)) 
-						bestIntersection = intersection;
-					else if (((PointTurnWaypoint) bestIntersection.taggedPoint).hasTraversed())
-						bestIntersection = intersection;
+					Waypoint bestPoint = get(intersectionIndex[best]);
+					if (!(bestPoint instanceof PointTurnWaypoint)) 
+						best = i;
+					else if (((PointTurnWaypoint) bestPoint).hasTraversed())
+						best = i;
 					else {
 						// If two intersections associated with a point turn waypoint are found, choose the one closer to the waypoint.
-						if (bestIntersection.waypointIndex > intersection.waypointIndex || ptwaypoint.hasTraversed())
+						if (intersectionIndex[best] > intersectionIndex[i] || ptwaypoint.hasTraversed())
 							// If the intersection is obviously behind.
-							bestIntersection = intersection;
-						else if (bestIntersection.waypointIndex == intersection.waypointIndex)
+							best = i;
+						else if (intersectionIndex[best] == intersectionIndex[i])
 							// Check to see if it is in front.
-							if (PurePursuitUtil.isInFront(get(intersection.waypointIndex - 1).getPose().getTranslation(), intersection.taggedPoint.getPose().getTranslation(), intersection.intersection, bestIntersection.intersection))
-								bestIntersection = intersection;
+							if (isInFront(i, best))
+								best = i;
 					}
 				}
 			} else if (pointTurnPriority)
@@ -406,37 +587,48 @@ public class Path extends ArrayList<Waypoint> {
 				continue;
 			else {
 				// Normal case.
-				if (bestIntersection.waypointIndex < intersection.waypointIndex)
+				if (intersectionIndex[best] < intersectionIndex[i])
 					// If the intersection is obviously ahead.
-					bestIntersection = intersection;
-				else if (bestIntersection.waypointIndex == intersection.waypointIndex)
+					best = i;
+				else if (intersectionIndex[best] == intersectionIndex[i])
 					// Check to see if it is in front.
-					if (PurePursuitUtil.isInFront(get(intersection.waypointIndex - 1).getPose().getTranslation(), intersection.taggedPoint.getPose().getTranslation(), intersection.intersection, bestIntersection.intersection))
-						bestIntersection = intersection;
+					if (isInFront(i, best))
+						best = i;
 			}
 		}
 		// Return the best intersection.
-		return bestIntersection;
+		return best;
 	}
 	
 	/**
-	 * Returns the motor speeds required to approach the given intersection.
+	 * Returns true if an intersection is further along its segment than another intersection on the same segment.
 	 * 
-	 * @param intersection Intersection to approach. 
-	 * @param robotPos Robot's current position/rotation.
-	 * @return Final motor speeds.
+	 * @param intersection Index of the intersection to be compared.
+	 * @param other Index of the intersection it is compared to.
+	 * @return True if the intersection is ahead of the other one.
 	 */
-	private double[] handleGeneralIntersection(TaggedIntersection intersection, Pose2d robotPos) {
+	private boolean isInFront(int intersection, int other) {
+		int waypointIndex = intersectionIndex[intersection];
+		return PurePursuitUtil.isInFront(waypointX[waypointIndex - 1], waypointY[waypointIndex - 1], waypointX[waypointIndex], waypointY[waypointIndex], intersectionX[intersection], intersectionY[intersection], intersectionX[other], intersectionY[other]);
+	}
+	
+	/**
+	 * Calculates the motor speeds required to approach the given intersection.
+	 * 
+	 * @param intersection Index of the intersection to approach. 
+	 * @param cx Robot's current x position.
+	 * @param cy Robot's current y position.
+	 * @param ca Robot's current rotation.
+	 * @param motorPowers Array the motor speeds are written to.
+	 */
+	private void handleGeneralIntersection(int intersection, double cx, double cy, double ca, double[] motorPowers) {
 		/**
 		 * General intersections are handled like normal pure pursuit intersections. The robot simply moves towards them.
 		 */
-		GeneralWaypoint waypoint = (GeneralWaypoint) intersection.taggedPoint;
+		GeneralWaypoint waypoint = (GeneralWaypoint) get(intersectionIndex[intersection]);
 		// Get necessary values.
-		double cx = robotPos.getTranslation().getX();
-		double cy = robotPos.getTranslation().getY();
-		double ca = robotPos.getHeading();
-		double tx = intersection.intersection.getX();
-		double ty = intersection.intersection.getY();
+		double tx = intersectionX[intersection];
+		double ty = intersectionY[intersection];
 		double ta;
 		if (waypoint.usingPreferredAngle())
 			// If this waypoint has a preferred angle, use it instead of the calculated angle.
@@ -445,54 +637,50 @@ public class Path extends ArrayList<Waypoint> {
 			// Calculate the target angle.
 			ta = Math.atan2(ty - cy, tx - cx);
 		// Get raw motor powers.
-		double[] motorPowers = PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, false);
-		// Return motor speeds.
-		return motorPowers;
+		PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, false, motorPowers);
 	}
 	
 	/**
-	 * Returns the motor speeds required to approach the given point turn intersection. 
+	 * Calculates the motor speeds required to approach the given point turn intersection. 
 	 * This will cause the robot to behave as follows:
 	 * 1. Approach and decelerate to the waypoint.
 	 * 2. Perform a point turn.
 	 * 3. Continue to the next waypoint as normal.
 	 * 
-	 * @param intersection Intersection to approach. 
-	 * @param robotPos Robot's current position/rotation.
-	 * @return Final motor speeds.
+	 * @param intersection Index of the intersection to approach. 
+	 * @param cx Robot's current x position.
+	 * @param cy Robot's current y position.
+	 * @param ca Robot's current rotation.
+	 * @param motorPowers Array the motor speeds are written to.
 	 */
-	private double[] handlePointTurnIntersection(TaggedIntersection intersection, Pose2d robotPos) {
+	private void handlePointTurnIntersection(int intersection, double cx, double cy, double ca, double[] motorPowers) {
 		/**
 		 * Point turn intersections are handled very differently than general intersections. Instead of "curving" around
 		 * the point, the robot will decelerate and perform a point turn.
 		 */
-		PointTurnWaypoint waypoint = (PointTurnWaypoint) intersection.taggedPoint;
+		int waypointIndex = intersectionIndex[intersection];
+		PointTurnWaypoint waypoint = (PointTurnWaypoint) get(waypointIndex);
 		// Get necessary values.
-		double cx = robotPos.getTranslation().getX();
-		double cy = robotPos.getTranslation().getY();
-		double ca = robotPos.getHeading();
-		double tx = intersection.intersection.getX();
-		double ty = intersection.intersection.getY();
+		double tx = intersectionX[intersection];
+		double ty = intersectionY[intersection];
 		double ta;
-		double[] motorPowers;
-		if (!waypoint.hasTraversed() && PurePursuitUtil.positionEqualsWithBuffer(robotPos.getTranslation(), waypoint.getTranslation(), waypoint.getPositionBuffer())) {
+		if (!waypoint.hasTraversed() && PurePursuitUtil.positionEqualsWithBuffer(cx, cy, waypointX[waypointIndex], waypointY[waypointIndex], waypoint.getPositionBuffer())) {
 			// If the robot has not reached the point.
-			if (((GeneralWaypoint) get(intersection.waypointIndex + 1)).usingPreferredAngle()) {
-				if (PurePursuitUtil.rotationEqualsWithBuffer(robotPos.getHeading(), ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPreferredAngle(), waypoint.getRotationBuffer()))
+			GeneralWaypoint next = (GeneralWaypoint) get(waypointIndex + 1);
+			if (next.usingPreferredAngle()) {
+				if (PurePursuitUtil.rotationEqualsWithBuffer(ca, next.getPreferredAngle(), waypoint.getRotationBuffer()))
 					// If the robot has reached the point and is at the preferredAngle, then the point is traversed.
 					waypoint.setTraversed();
 				// Set the target angle.
-				ta = ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPreferredAngle();
+				ta = next.getPreferredAngle();
 			} else {
-				double tempTy = ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPose().getTranslation().getY();
-				double tempTx = ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPose().getTranslation().getX();
 				// Calculate the target angle.
-				ta = Math.atan2(tempTy - cy, tempTx - cx);
-				if (PurePursuitUtil.rotationEqualsWithBuffer(robotPos.getHeading(), ta, waypoint.getRotationBuffer()))
+				ta = Math.atan2(waypointY[waypointIndex + 1] - cy, waypointX[waypointIndex + 1] - cx);
+				if (PurePursuitUtil.rotationEqualsWithBuffer(ca, ta, waypoint.getRotationBuffer()))
 					// If the robot has reached the point and is at the target angle, then the point is traversed.
 					waypoint.setTraversed();
 			}
-			motorPowers = PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, true);
+			PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, true, motorPowers);
 		} else {
 			if (waypoint.usingPreferredAngle())
 				// If this waypoint has a preferred angle, use it instead of the calculated angle.
@@ -500,73 +688,71 @@ public class Path extends ArrayList<Waypoint> {
 			else
 				// Calculate the target angle.
 				ta = Math.atan2(ty - cy, tx - cx);
-			motorPowers = PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, false);
+			PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, false, motorPowers);
 		}
-		// Return motor speeds.
-		return motorPowers;
 	}
 	
 	/**
-	 * Returns the motor speeds required to approach the given interrupt intersection. 
+	 * Calculates the motor speeds required to approach the given interrupt intersection. 
 	 * This will cause the robot to behave as follows:
 	 * 1. Approach and decelerate to the waypoint.
 	 * 2. Perform a point turn / align with the preferred angle.
 	 * 4. Perform the interrupt action.
 	 * 3. Continue to the next waypoint as normal.
 	 * 
-	 * @param intersection Intersection to approach. 
-	 * @param robotPos Robot's current position/rotation.
-	 * @return Final motor speeds.
+	 * @param intersection Index of the intersection to approach. 
+	 * @param cx Robot's current x position.
+	 * @param cy Robot's current y position.
+	 * @param ca Robot's current rotation.
+	 * @param motorPowers Array the motor speeds are written to.
 	 */
-	private double[] handleInterruptIntersection(TaggedIntersection intersection, Pose2d robotPos) {
+	private void handleInterruptIntersection(int intersection, double cx, double cy, double ca, double[] motorPowers) {
 		/**
 		 * Interrupt intersections are handled similarly to point turn intersections. Instead of continuing directly
 		 * after it has turned, the robot will stop and perform the interrupt actions.
 		 */
-		InterruptWaypoint waypoint = (InterruptWaypoint) intersection.taggedPoint;
+		int waypointIndex = intersectionIndex[intersection];
+		InterruptWaypoint waypoint = (InterruptWaypoint) get(waypointIndex);
 		// Get necessary values.
-		double cx = robotPos.getTranslation().getX();
-		double cy = robotPos.getTranslation().getY();
-		double ca = robotPos.getHeading();
-		double tx = intersection.intersection.getX();
-		double ty = intersection.intersection.getY();
+		double tx = intersectionX[intersection];
+		double ty = intersectionY[intersection];
 		double ta;
-		double[] motorPowers;
-		if (!waypoint.hasTraversed() && PurePursuitUtil.positionEqualsWithBuffer(robotPos.getTranslation(), waypoint.getTranslation(), waypoint.getPositionBuffer())) {
+		if (!waypoint.hasTraversed() && PurePursuitUtil.positionEqualsWithBuffer(cx, cy, waypointX[waypointIndex], waypointY[waypointIndex], waypoint.getPositionBuffer())) {
 			// If the robot has not reached the point.
 			if (waypoint.getType() == WaypointType.END) {
-				if (waypoint.usingPreferredAngle() && !PurePursuitUtil.rotationEqualsWithBuffer(robotPos.getHeading(), waypoint.getPreferredAngle(), waypoint.getRotationBuffer()))
+				if (waypoint.usingPreferredAngle() && !PurePursuitUtil.rotationEqualsWithBuffer(ca, waypoint.getPreferredAngle(), waypoint.getRotationBuffer()))
 					ta = waypoint.getPreferredAngle();
 				else {
 					((EndWaypoint) waypoint).setTraversed();
-					return new double[] {0, 0, 0};
+					stop(motorPowers);
+					return;
 				}
-			} else if (((GeneralWaypoint) get(intersection.waypointIndex + 1)).usingPreferredAngle()) {
-				if (PurePursuitUtil.rotationEqualsWithBuffer(robotPos.getHeading(), ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPreferredAngle(), waypoint.getRotationBuffer())) {
+			} else if (((GeneralWaypoint) get(waypointIndex + 1)).usingPreferredAngle()) {
+				if (PurePursuitUtil.rotationEqualsWithBuffer(ca, ((GeneralWaypoint) get(waypointIndex + 1)).getPreferredAngle(), waypoint.getRotationBuffer())) {
 					// If the robot has reached the point and is at the preferredAngle, then the point is traversed.
 					waypoint.setTraversed();
 					// Queue the action.
 					interruptActionQueue.add(waypoint);
 					// Stop the robot while it does the action.
-					return new double[] {0, 0, 0};
-					}
+					stop(motorPowers);
+					return;
+				}
 				// Set the target angle.
-				ta = ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPreferredAngle();
+				ta = ((GeneralWaypoint) get(waypointIndex + 1)).getPreferredAngle();
 			} else {
-				double tempTy = ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPose().getTranslation().getY();
-				double tempTx = ((GeneralWaypoint) get(intersection.waypointIndex + 1)).getPose().getTranslation().getX();
 				// Calculate the target angle.
-				ta = Math.atan2(tempTy - cy, tempTx - cx);
-				if (PurePursuitUtil.rotationEqualsWithBuffer(robotPos.getHeading(), ta, waypoint.getRotationBuffer())) {
+				ta = Math.atan2(waypointY[waypointIndex + 1] - cy, waypointX[waypointIndex + 1] - cx);
+				if (PurePursuitUtil.rotationEqualsWithBuffer(ca, ta, waypoint.getRotationBuffer())) {
 					// If the robot has reached the point and is at the target angle, then the point is traversed.
 					waypoint.setTraversed();
 					// Queue the action.
 					interruptActionQueue.add(waypoint);
 					// Stop the robot while it does the action.
-					return new double[] {0, 0, 0};
+					stop(motorPowers);
+					return;
 				}
 			}
-			motorPowers = PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, true);
+			PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, true, motorPowers);
 		} else {
 			if (waypoint.usingPreferredAngle())
 				// If this waypoint has a preferred angle, use it instead of the calculated angle.
@@ -574,28 +760,28 @@ public class Path extends ArrayList<Waypoint> {
 			else
 				// Calculate the target angle.
 				ta = Math.atan2(ty - cy, tx - cx);
-			motorPowers = PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, false);
+			PurePursuitUtil.moveToPosition(cx, cy, ca, tx, ty, ta, false, motorPowers);
 		}
-		// Return motor speeds.
-		return motorPowers;
 	}
 	
 	/**
-	 * Returns the motor speeds required to approach the given end intersection. 
+	 * Calculates the motor speeds required to approach the given end intersection. 
 	 * This will cause the robot to behave as follows:
 	 * 1. Approach and decelerate to the end point.
 	 * 2. Turn to face the preferred angle (if provided).
 	 * 3. Mark the path as complete.
 	 * 
-	 * @param intersection Intersection to approach. 
-	 * @param robotPos Robot's current position/rotation.
-	 * @return Final motor speeds.
+	 * @param intersection Index of the intersection to approach. 
+	 * @param cx Robot's current x position.
+	 * @param cy Robot's current y position.
+	 * @param ca Robot's current rotation.
+	 * @param motorPowers Array the motor speeds are written to.
 	 */
-	private double[] handleEndIntersection(TaggedIntersection intersection, Pose2d robotPos) {
+	private void handleEndIntersection(int intersection, double cx, double cy, double ca, double[] motorPowers) {
 		/**
 		 * End intersections are handled the same way as interrupt intersections.
 		 */
-		return handleInterruptIntersection(intersection, robotPos);
+		handleInterruptIntersection(intersection, cx, cy, ca, motorPowers);
 	}
 	
 	/**
@@ -701,6 +887,39 @@ public class Path extends ArrayList<Waypoint> {
 		return this;
 	}
 	
+	/**
+	 * Sets the policy used to choose the follow distance from the robot's speed and the path's curvature. By default
+	 * there is no policy and each waypoint's follow distance is used as is.
+	 * @param policy LookaheadPolicy to be set, or null to use the waypoints' follow distances.
+	 * @return This path, used for chaining methods.
+	 */
+	public Path setLookaheadPolicy(LookaheadPolicy policy) {
+		lookaheadPolicy = policy;
+		return this;
+	}
+	
+	/**
+	 * Returns the robot's speed measured from the positions given to loop(), in units/second.
+	 * @return the robot's measured speed.
+	 */
+	public double getMeasuredSpeed() {
+		return measuredSpeed;
+	}
+	
+	/**
+	 * Sets how many segments past the one being followed are searched for intersections. The rest of the path
+	 * is only searched if none of these segments intersect. The default value is 3.
+	 * @param segments Number of segments to search ahead.
+	 * @throws IllegalArgumentException If the number of segments is less than 1.
+	 * @return This path, used for chaining methods.
+	 */
+	public Path setSearchWindow(int segments) {
+		if (segments < 1)
+			throw new IllegalArgumentException("The search window must be at least one segment");
+		searchWindow = segments;
+		return this;
+	}
+	
 	/**
 	 * Adds the provided TriggeredActions to the path. These are handled automatically.
 	 * @param actions TriggeredActions to be added.
@@ -775,6 +994,9 @@ public class Path extends ArrayList<Waypoint> {
 	 */
 	public void reset() {
 		resetTimeouts();
+		currentSegment = 1;
+		measuredSpeed = 0;
+		lastLoopTime = -1;
 		for (Waypoint waypoint : this)
 			if (waypoint instanceof GeneralWaypoint)
 				((GeneralWaypoint) waypoint).reset();
@@ -822,8 +1044,9 @@ public class Path extends ArrayList<Waypoint> {
 	 * Calls the loop() method on all TriggeredActions in this path.
 	 */
 	private void loopTriggeredActions() {
-		for (TriggeredAction action : triggeredActions)
-			action.loop();
+		// Indexed so that no iterator is allocated each loop.
+		for (int i = 0; i < triggeredActions.size(); i++)
+			triggeredActions.get(i).loop();
 	}
 	
 	/**
@@ -837,33 +1060,36 @@ public class Path extends ArrayList<Waypoint> {
 	/**
 	 * Adjusts the motor speeds based on this path's motion profile.
 	 * @param speeds Speeds to be adjusted.
-	 * @param intersection The tagged intersection.
+	 * @param intersection Index of the intersection.
+	 * @param robotX Robot's x position.
+	 * @param robotY Robot's y position.
 	 */
-	private void adjustSpeedsWithProfile(double[] speeds, TaggedIntersection intersection, Translation2d robotPos) {
+	private void adjustSpeedsWithProfile(double[] speeds, int intersection, double robotX, double robotY) {
+		int waypointIndex = intersectionIndex[intersection];
 		// Get closest away and to points.
-		Translation2d awayPoint = null;
-		for (int i = intersection.waypointIndex - 1; i >= 0; i--)
+		int awayIndex = -1;
+		for (int i = waypointIndex - 1; i >= 0; i--)
 			if (get(i).getType() == WaypointType.START || get(i) instanceof PointTurnWaypoint) {
-				awayPoint = get(i).getPose().getTranslation();
+				awayIndex = i;
 				break;
 			} 
-		if (awayPoint == null) 
+		if (awayIndex == -1) 
 			// This should never happen.
 			throw new IllegalStateException("Path has lost integrity.");
-		Translation2d toPoint = intersection.taggedPoint.getPose().getTranslation();
+		GeneralWaypoint toPoint = (GeneralWaypoint) get(waypointIndex);
 		// Get delta values.
-		double adx = robotPos.getX() - awayPoint.getX();
-		double ady = robotPos.getY() - awayPoint.getY();
-		double tdx = toPoint.getX() - robotPos.getX();
-		double tdy = toPoint.getY() - robotPos.getY();
+		double adx = robotX - waypointX[awayIndex];
+		double ady = robotY - waypointY[awayIndex];
+		double tdx = waypointX[waypointIndex] - robotX;
+		double tdy = waypointY[waypointIndex] - robotY;
 		double ad = Math.hypot(adx, ady);
 		double td = Math.hypot(tdx, tdy);
 		if (ad < td)
 			// If the intersection is closer to the away point.
-			motionProfile.processAccelerate(speeds, ad, ((GeneralWaypoint) intersection.taggedPoint).getMovementSpeed(), ((GeneralWaypoint) intersection.taggedPoint).getTurnSpeed());
+			motionProfile.processAccelerate(speeds, ad, toPoint.getMovementSpeed(), toPoint.getTurnSpeed());
 		else
 			// If the intersection is closer to the to point.
-			motionProfile.processDecelerate(speeds, td, ((GeneralWaypoint) intersection.taggedPoint).getMovementSpeed(), ((GeneralWaypoint) intersection.taggedPoint).getTurnSpeed());
+			motionProfile.processDecelerate(speeds, td, toPoint.getMovementSpeed(), toPoint.getTurnSpeed());
 	}
 	
 	/**
@@ -920,35 +1146,4 @@ public class Path extends ArrayList<Waypoint> {
 			speeds[2] = -1;
 	}
 	
-	/**
-	 * This private class is used to store additional information associated with an intersection.
-	 * 
-	 * @version 1.0
-	 *
-	 */
-	private static class TaggedIntersection {
-		
-		// Location of the intersection.
-		public Translation2d intersection;
-		
-		// Waypoint associated with the intersection.
-		public Waypoint taggedPoint;
-		
-		// The associated waypoint's index in the path.
-		public int waypointIndex;
-		
-		/**
-		 * Constructs a TaggedIntersection object with the given values.
-		 * @param intersection Location of the intersection.
-		 * @param taggedPoint Waypoint associated with the intersection.
-		 * @param waypointIndex The associated waypoint's index in the path.
-		 */
-		public TaggedIntersection(Translation2d intersection, Waypoint taggedPoint, int waypointIndex) {
-			this.intersection = intersection;
-			this.taggedPoint = taggedPoint;
-			this.waypointIndex = waypointIndex;
-		}
-		
-	}
-	
 }
@@ -1,8 +1,6 @@
 package org.arcrobotics.ftclib.files.purepursuit;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import org.arcrobotics.ftclib.files.geometry.Translation2d;
@@ -42,9 +40,18 @@ public final class PurePursuitUtil {
 	 * @return True if point1 is ahead of point2 on the given line.
 	 */
 	public static boolean isInFront(Translation2d linePoint1, Translation2d linePoint2, Translation2d point1, Translation2d point2) {
-		if (linePoint1.getX() < linePoint2.getX() && point1.getX() < point2.getX())
+		return isInFront(linePoint1.getX(), linePoint1.getY(), linePoint2.getX(), linePoint2.getY(), point1.getX(), point1.getY(), point2.getX(), point2.getY());
+	}
+	
+	/**
+	 * Calculates if a point is further along a line then another point, using raw coordinates.
+	 * 
+	 * @see #isInFront(Translation2d, Translation2d, Translation2d, Translation2d)
+	 */
+	public static boolean isInFront(double lineX1, double lineY1, double lineX2, double lineY2, double x1, double y1, double x2, double y2) {
+		if (lineX1 < lineX2 && x1 < x2)
 			return false;
-		if (linePoint1.getY() < linePoint2.getY() && point1.getY() < point2.getY())
+		if (lineY1 < lineY2 && y1 < y2)
 			return false;
 		return true;
 	}
@@ -58,8 +65,17 @@ public final class PurePursuitUtil {
 	 * @return True if the point are equal within a margin or error, false otherwise. 
 	 */
 	public static boolean positionEqualsWithBuffer(Translation2d p1, Translation2d p2, double buffer) {
-		if (p1.getX() - buffer < p2.getX() && p1.getX() + buffer > p2.getX())
-			if (p1.getY() - buffer < p2.getY() && p1.getY() + buffer > p2.getY())
+		return positionEqualsWithBuffer(p1.getX(), p1.getY(), p2.getX(), p2.getY(), buffer);
+	}
+	
+	/**
+	 * Calculates whether or not two points are equal within a margin of error, using raw coordinates.
+	 * 
+	 * @see #positionEqualsWithBuffer(Translation2d, Translation2d, double)
+	 */
+	public static boolean positionEqualsWithBuffer(double x1, double y1, double x2, double y2, double buffer) {
+		if (x1 - buffer < x2 && x1 + buffer > x2)
+			if (y1 - buffer < y2 && y1 + buffer > y2)
 				return true;
 		return false;
 	}
@@ -91,13 +107,32 @@ public final class PurePursuitUtil {
 	 * @return A double array containing raw motor powers. a[0] is strafe power, a[1] is vertical power and a[2] is turn power.
 	 */
 	public static double[] moveToPosition(double cx, double cy, double ca, double tx, double ty, double ta, boolean turnOnly) {
+		return moveToPosition(cx, cy, ca, tx, ty, ta, turnOnly, new double[3]);
+	}
+	
+	/**
+	 * Takes the robot's current position and rotation and calculates the motor powers for the robot to move to the target position.
+	 * The powers are written into the given array instead of a new one.
+	 * 
+	 * @param cx Robot's current X position.
+	 * @param cy Robot's current Y position.
+	 * @param ca Robot's current rotation (angle).
+	 * @param tx Target X position.
+	 * @param ty Target Y position.
+	 * @param ta Target rotation (angle).
+	 * @param turnOnly True if the robot should only turn.
+	 * @param rawMotorPowers Array of at least length 3 that the powers are written to.
+	 * @return The given array. a[0] is strafe power, a[1] is vertical power and a[2] is turn power.
+	 */
+	public static double[] moveToPosition(double cx, double cy, double ca, double tx, double ty, double ta, boolean turnOnly, double[] rawMotorPowers) {
 		
-		double[] rawMotorPowers;
-		
-		if (turnOnly)
+		if (turnOnly) {
 			// If turnOnly is true, only return a turn power.
-			return new double[] {0, 0, angleWrap(ca + ta) / Math.PI};
-			
+			rawMotorPowers[0] = 0;
+			rawMotorPowers[1] = 0;
+			rawMotorPowers[2] = angleWrap(ca + ta) / Math.PI;
+			return rawMotorPowers;
+		}
 		
 		double absoluteXToPosition = tx - cx;
 		double absoluteYToPosition = ty - cy;
@@ -114,8 +149,6 @@ public final class PurePursuitUtil {
         double powerY = relativeYToPosition / (Math.abs(relativeXToPosition) + Math.abs(relativeYToPosition));
         double powerTurn = angleWrap(ca + ta) / Math.PI;
         
-        rawMotorPowers = new double[3];
-        
         // The x and y powers need to be swapped and have their signs flipped.
         rawMotorPowers[0] = powerX;
         rawMotorPowers[1] = powerY;
@@ -134,12 +167,35 @@ public final class PurePursuitUtil {
 	 * @return A list containing all point where the line and circle intersect. 
 	 */
     public static List<Translation2d> lineCircleIntersection(Translation2d circleCenter, double radius, Translation2d linePoint1, Translation2d linePoint2) {
+        double[] points = new double[4];
+        int count = lineCircleIntersection(circleCenter.getX(), circleCenter.getY(), radius, linePoint1.getX(), linePoint1.getY(), linePoint2.getX(), linePoint2.getY(), points);
+        List<Translation2d> boundedPoints = new ArrayList<Translation2d>();
+        for (int i = 0; i < count; i++)
+            boundedPoints.add(new Translation2d(points[2 * i], points[2 * i + 1]));
+        return boundedPoints;
+    }
+    
+	/**
+	 * This method finds points where a line intersects with a circle without allocating. The points are
+	 * written into the given array as x1, y1, x2, y2.
+	 * 
+	 * @param centerX X coordinate of the center of the circle.
+	 * @param centerY Y coordinate of the center of the circle.
+	 * @param radius Radius of the circle.
+	 * @param x1 X coordinate of one of the line's end points.
+	 * @param y1 Y coordinate of one of the line's end points.
+	 * @param x2 X coordinate of the other end point of the line.
+	 * @param y2 Y coordinate of the other end point of the line.
+	 * @param result Array of at least length 4 that the points are written to.
+	 * @return The number of intersections found (0, 1 or 2).
+	 */
+    public static int lineCircleIntersection(double centerX, double centerY, double radius, double x1, double y1, double x2, double y2, double[] result) {
     	// This method was lifted from Team 11115 Gluten Free's code.
     	
-        double baX = linePoint2.getX() - linePoint1.getX();
-        double baY = linePoint2.getY() - linePoint1.getY();
-        double caX = circleCenter.getX() - linePoint1.getX();
-        double caY = circleCenter.getY() - linePoint1.getY();
+        double baX = x2 - x1;
+        double baY = y2 - y1;
+        double caX = centerX - x1;
+        double caY = centerY - y1;
 
         double a = baX * baX + baY * baY;
         double bBy2 = baX * caX + baY * caY;
@@ -150,41 +206,33 @@ public final class PurePursuitUtil {
 
         double disc = pBy2 * pBy2 - q;
         if (disc < 0) {
-            return Collections.emptyList();
+            return 0;
         }
 
         double tmpSqrt = Math.sqrt(disc);
         double abScalingFactor1 = -pBy2 + tmpSqrt;
         double abScalingFactor2 = -pBy2 - tmpSqrt;
 
-        List<Translation2d> allPoints = null;
-
-        Translation2d p1 = new Translation2d(linePoint1.getX() - baX * abScalingFactor1, linePoint1.getY() - baY * abScalingFactor1);
-        if (disc == 0) {
-            allPoints = Collections.singletonList(p1);
+        double maxX = Math.max(x1, x2);
+        double maxY = Math.max(y1, y2);
+        double minX = Math.min(x1, x2);
+        double minY = Math.min(y1, y2);
+
+        int count = 0;
+        for (int i = 0; i < (disc == 0 ? 1 : 2); i++) {
+            double factor = i == 0 ? abScalingFactor1 : abScalingFactor2;
+            double pointX = x1 - baX * factor;
+            double pointY = y1 - baY * factor;
+
+            if (pointX <= maxX && pointX >= minX)
+                if (pointY <= maxY && pointY >= minY) {
+                    result[2 * count] = pointX;
+                    result[2 * count + 1] = pointY;
+                    count++;
+                }
         }
 
-        if (allPoints == null) {
-        	Translation2d p2 = new Translation2d(linePoint1.getX() - baX * abScalingFactor2, linePoint1.getY() - baY * abScalingFactor2);
-            allPoints = Arrays.asList(p1, p2);
-        }
-
-        double maxX = Math.max(linePoint1.getX(), linePoint2.getX());
-        double maxY = Math.max(linePoint1.getY(), linePoint2.getY());
-        double minX = Math.min(linePoint1.getX(), linePoint2.getX());
-        double minY = Math.min(linePoint1.getY(), linePoint2.getY());
-
-        List<Translation2d> boundedPoints = new ArrayList<Translation2d>();
-
-        for (Translation2d point : allPoints) {
-
-            if (point.getX() <= maxX && point.getX() >= minX)
-                if (point.getY() <= maxY && point.getY() >= minY)
-                    boundedPoints.add(point);
-
-        }
-
-        return boundedPoints;
+        return count;
     }
 	
 }
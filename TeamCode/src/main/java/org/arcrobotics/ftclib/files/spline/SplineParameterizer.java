@@ -33,8 +33,8 @@ package org.arcrobotics.ftclib.files.spline;
 
 import org.arcrobotics.ftclib.files.geometry.Twist2d;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -53,16 +53,11 @@ public final class SplineParameterizer {
    */
   private static final int kMaxIterations = 5000;
 
-  @SuppressWarnings("MemberName")
-  private static class StackContents {
-    final double t1;
-    final double t0;
-
-    StackContents(double t0, double t1) {
-      this.t0 = t0;
-      this.t1 = t1;
-    }
-  }
+  /**
+   * The starting size of the subdivision stack. The stack rarely gets deeper than this, and grows
+   * when it does.
+   */
+  private static final int kInitialStackSize = 32;
 
   public static class MalformedSplineException extends RuntimeException {
     /**
@@ -105,27 +100,32 @@ public final class SplineParameterizer {
    * @throws MalformedSplineException When the spline is malformed (e.g. has close adjacent points
    *                                  with approximately opposing headings)
    */
-  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
   public static List<PoseWithCurvature> parameterize(Spline spline, double t0, double t1) {
     ArrayList<PoseWithCurvature> splinePoints = new ArrayList<PoseWithCurvature>();
 
     // The parameterization does not add the initial point. Let's add that.
-    splinePoints.add(spline.getPoint(t0));
+    PoseWithCurvature start = spline.getPoint(t0);
+    splinePoints.add(start);
+    double currentT0 = t0;
 
     // We use an "explicit stack" to simulate recursion, instead of a recursive function call
-    // This give us greater control, instead of a stack overflow
-    ArrayDeque<StackContents> stack = new ArrayDeque<StackContents>();
-    stack.push(new StackContents(t0, t1));
+    // This give us greater control, instead of a stack overflow.
+    //
+    // The intervals are split depth first with the left half on top, so every interval starts
+    // at the last point added. The stack only holds the end of each interval, with the point
+    // already found there, which means getPoint is called once for every new midpoint instead of
+    // at both ends of every interval.
+    double[] stackT1 = new double[kInitialStackSize];
+    PoseWithCurvature[] stackEnd = new PoseWithCurvature[kInitialStackSize];
+    int stackSize = 0;
+    stackT1[stackSize] = t1;
+    stackEnd[stackSize++] = spline.getPoint(t1);
 
-    StackContents current;
-    PoseWithCurvature start;
-    PoseWithCurvature end;
     int iterations = 0;
 
-    while (!stack.isEmpty()) {
-      current = stack.removeFirst();
-      start = spline.getPoint(current.t0);
-      end = spline.getPoint(current.t1);
+    while (stackSize > 0) {
+      final double currentT1 = stackT1[stackSize - 1];
+      final PoseWithCurvature end = stackEnd[stackSize - 1];
 
       final Twist2d twist = start.poseMeters.log(end.poseMeters);
       if (
@@ -133,10 +133,19 @@ public final class SplineParameterizer {
           || Math.abs(twist.dx) > kMaxDx
           || Math.abs(twist.dtheta) > kMaxDtheta
       ) {
-        stack.addFirst(new StackContents((current.t0 + current.t1) / 2, current.t1));
-        stack.addFirst(new StackContents(current.t0, (current.t0 + current.t1) / 2));
+        if (stackSize == stackT1.length) {
+          stackT1 = Arrays.copyOf(stackT1, stackSize * 2);
+          stackEnd = Arrays.copyOf(stackEnd, stackSize * 2);
+        }
+        // The right half stays on the stack, and the left half goes on top of it
+        final double middle = (currentT0 + currentT1) / 2;
+        stackT1[stackSize] = middle;
+        stackEnd[stackSize++] = spline.getPoint(middle);
       } else {
-        splinePoints.add(spline.getPoint(current.t1));
+        stackEnd[--stackSize] = null;
+        splinePoints.add(end);
+        start = end;
+        currentT0 = currentT1;
       }
 
       iterations++;
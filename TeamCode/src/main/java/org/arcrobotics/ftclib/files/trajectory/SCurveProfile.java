@@ -0,0 +1,348 @@
+package org.arcrobotics.ftclib.files.trajectory;
+
+import java.util.Objects;
+
+/**
+ * A jerk-limited ("S-curve") velocity profile.
+ *
+ * <p>This is a drop-in alternative to {@link TrapezoidProfile} that also limits
+ * how fast the acceleration may change. Instead of stepping the acceleration
+ * between zero and the maximum, it is ramped at the maximum jerk, which avoids
+ * the wheel slip a trapezoid profile causes at its corners.
+ *
+ * <p>The profile is made of up to seven segments: jerk up, constant
+ * acceleration, jerk down, cruise, jerk down, constant deceleration and jerk
+ * up. Segments that are not needed for a short move have a length of zero.
+ * The segment boundaries are found when the profile is constructed (or
+ * {@link #update(Constraints, State, State)} is called), so {@link #calculate(double)}
+ * only evaluates a cubic for one segment.
+ *
+ * <p>Usage matches the trapezoid profile:
+ * <pre><code>
+ * SCurveProfile profile = new SCurveProfile(
+ *   new SCurveProfile.Constraints(kMaxV, kMaxA, kMaxJ),
+ *   new SCurveProfile.State(goalPosition, 0));
+ * SCurveProfile.State setpoint = profile.calculate(timer.seconds());
+ * </code></pre>
+ *
+ * <p>The profile starts and ends with zero acceleration. The goal velocity is
+ * limited to [0, maxVelocity] in the direction of travel. When the move is too
+ * short to reach the goal velocity from the initial velocity, the goal
+ * velocity is changed to the closest reachable one so that the goal position
+ * is still met.
+ */
+public class SCurveProfile {
+  // The number of iterations used when solving for the peak velocity
+  private static final int kSolverIterations = 60;
+
+  // The direction of the profile, either 1 for forwards or -1 for inverted
+  private int m_direction;
+
+  private Constraints m_constraints;
+  private final State m_initial = new State();
+  private final State m_goal = new State();
+
+  // The time at which each segment ends, starting from t = 0
+  private final double[] m_endTimes = new double[7];
+
+  // The jerk during each segment and the state at the start of each segment
+  private final double[] m_jerk = new double[7];
+  private final double[] m_startAcceleration = new double[7];
+  private final double[] m_startVelocity = new double[7];
+  private final double[] m_startPosition = new double[7];
+
+  public static class Constraints {
+    @SuppressWarnings("MemberName")
+    public double maxVelocity;
+    @SuppressWarnings("MemberName")
+    public double maxAcceleration;
+    @SuppressWarnings("MemberName")
+    public double maxJerk;
+
+    public Constraints() {
+    }
+
+    /**
+     * Construct constraints for an SCurveProfile.
+     *
+     * @param maxVelocity maximum velocity
+     * @param maxAcceleration maximum acceleration
+     * @param maxJerk maximum jerk
+     */
+    public Constraints(double maxVelocity, double maxAcceleration, double maxJerk) {
+      this.maxVelocity = maxVelocity;
+      this.maxAcceleration = maxAcceleration;
+      this.maxJerk = maxJerk;
+    }
+  }
+
+  public static class State {
+    @SuppressWarnings("MemberName")
+    public double position;
+    @SuppressWarnings("MemberName")
+    public double velocity;
+    @SuppressWarnings("MemberName")
+    public double acceleration;
+
+    public State() {
+    }
+
+    public State(double position, double velocity) {
+      this.position = position;
+      this.velocity = velocity;
+    }
+
+    public State(double position, double velocity, double acceleration) {
+      this.position = position;
+      this.velocity = velocity;
+      this.acceleration = acceleration;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other instanceof State) {
+        State rhs = (State) other;
+        return this.position == rhs.position && this.velocity == rhs.velocity
+            && this.acceleration == rhs.acceleration;
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(position, velocity, acceleration);
+    }
+  }
+
+  /**
+   * Construct an SCurveProfile.
+   *
+   * @param constraints The constraints on the profile, like maximum velocity.
+   * @param goal        The desired state when the profile is complete.
+   * @param initial     The initial state (usually the current state).
+   */
+  public SCurveProfile(Constraints constraints, State goal, State initial) {
+    update(constraints, goal, initial);
+  }
+
+  /**
+   * Construct an SCurveProfile.
+   *
+   * @param constraints The constraints on the profile, like maximum velocity.
+   * @param goal        The desired state when the profile is complete.
+   */
+  public SCurveProfile(Constraints constraints, State goal) {
+    this(constraints, goal, new State(0, 0));
+  }
+
+  /**
+   * Re-plans this profile in place for a new goal and initial state. The states are copied.
+   * The acceleration of both states is ignored; the profile starts and ends with zero
+   * acceleration.
+   *
+   * @param constraints The constraints on the profile, like maximum velocity.
+   * @param goal        The desired state when the profile is complete.
+   * @param initial     The initial state (usually the current state).
+   * @return This profile, for chaining a call to calculate().
+   */
+  public SCurveProfile update(Constraints constraints, State goal, State initial) {
+    m_direction = initial.position > goal.position ? -1 : 1;
+    m_constraints = constraints;
+    m_initial.position = initial.position * m_direction;
+    m_initial.velocity = Math.min(initial.velocity * m_direction, m_constraints.maxVelocity);
+    m_initial.acceleration = 0;
+    m_goal.position = goal.position * m_direction;
+    m_goal.velocity = Math.max(0, Math.min(goal.velocity * m_direction,
+        m_constraints.maxVelocity));
+    m_goal.acceleration = 0;
+
+    double distance = m_goal.position - m_initial.position;
+    double startVelocity = m_initial.velocity;
+    double endVelocity = m_goal.velocity;
+
+    // If the goal velocity can't be reached within the distance, use the closest velocity
+    // that can be. The distance of a single velocity change is monotonic in the end velocity,
+    // so this can be found with a bisection.
+    if (changeDistance(startVelocity, endVelocity) > distance) {
+      double low = Math.min(startVelocity, endVelocity);
+      double high = Math.max(startVelocity, endVelocity);
+      boolean speedingUp = startVelocity < endVelocity;
+      for (int i = 0; i < kSolverIterations; i++) {
+        double mid = (low + high) / 2.0;
+        if ((changeDistance(startVelocity, mid) > distance) == speedingUp) {
+          high = mid;
+        } else {
+          low = mid;
+        }
+      }
+      endVelocity = speedingUp ? low : high;
+      m_goal.velocity = endVelocity;
+    }
+
+    // Find the highest peak velocity that still leaves room to change to the end velocity
+    double peakVelocity = m_constraints.maxVelocity;
+    if (changeDistance(startVelocity, peakVelocity) + changeDistance(peakVelocity, endVelocity)
+        > distance) {
+      double low = Math.max(startVelocity, endVelocity);
+      double high = m_constraints.maxVelocity;
+      for (int i = 0; i < kSolverIterations; i++) {
+        double mid = (low + high) / 2.0;
+        if (changeDistance(startVelocity, mid) + changeDistance(mid, endVelocity) > distance) {
+          high = mid;
+        } else {
+          low = mid;
+        }
+      }
+      peakVelocity = low;
+    }
+
+    double cruiseDistance = distance - changeDistance(startVelocity, peakVelocity)
+        - changeDistance(peakVelocity, endVelocity);
+    double cruiseTime = peakVelocity > 1e-9 ? Math.max(cruiseDistance, 0) / peakVelocity : 0;
+
+    setVelocityChange(0, startVelocity, peakVelocity);
+    m_jerk[3] = 0;
+    m_endTimes[3] = cruiseTime;
+    setVelocityChange(4, peakVelocity, endVelocity);
+
+    // Turn the segment lengths into end times and integrate the state at the start of each
+    // segment so calculate() only has to evaluate one segment
+    double time = 0;
+    double position = m_initial.position;
+    double velocity = startVelocity;
+    double acceleration = 0;
+    for (int i = 0; i < 7; i++) {
+      double dt = m_endTimes[i];
+      m_startPosition[i] = position;
+      m_startVelocity[i] = velocity;
+      m_startAcceleration[i] = acceleration;
+
+      position += (velocity + (acceleration / 2.0 + m_jerk[i] * dt / 6.0) * dt) * dt;
+      velocity += (acceleration + m_jerk[i] * dt / 2.0) * dt;
+      acceleration += m_jerk[i] * dt;
+
+      time += dt;
+      m_endTimes[i] = time;
+    }
+    return this;
+  }
+
+  /**
+   * Calculate the correct position, velocity and acceleration for the profile at
+   * a time t where the beginning of the profile was at time t = 0.
+   *
+   * @param t The time since the beginning of the profile.
+   */
+  @SuppressWarnings("ParameterName")
+  public State calculate(double t) {
+    State result = new State();
+    calculate(t, result);
+    return result;
+  }
+
+  /**
+   * Calculate the correct position, velocity and acceleration for the profile at
+   * a time t where the beginning of the profile was at time t = 0, writing the
+   * result into an existing state instead of allocating a new one.
+   *
+   * @param t      The time since the beginning of the profile.
+   * @param result The state to store the result in.
+   */
+  @SuppressWarnings("ParameterName")
+  public void calculate(double t, State result) {
+    if (t <= 0) {
+      result.position = m_initial.position;
+      result.velocity = m_initial.velocity;
+      result.acceleration = 0;
+    } else if (t >= m_endTimes[6]) {
+      result.position = m_goal.position;
+      result.velocity = m_goal.velocity;
+      result.acceleration = 0;
+    } else {
+      int segment = 0;
+      while (t >= m_endTimes[segment]) {
+        segment++;
+      }
+      double dt = t - (segment == 0 ? 0 : m_endTimes[segment - 1]);
+      double jerk = m_jerk[segment];
+      double acceleration = m_startAcceleration[segment];
+      double velocity = m_startVelocity[segment];
+
+      result.position = m_startPosition[segment]
+          + (velocity + (acceleration / 2.0 + jerk * dt / 6.0) * dt) * dt;
+      result.velocity = velocity + (acceleration + jerk * dt / 2.0) * dt;
+      result.acceleration = acceleration + jerk * dt;
+    }
+
+    // Flip the sign of the state if the profile is inverted
+    result.position *= m_direction;
+    result.velocity *= m_direction;
+    result.acceleration *= m_direction;
+  }
+
+  /**
+   * Returns the total time the profile takes to reach the goal.
+   */
+  public double totalTime() {
+    return m_endTimes[6];
+  }
+
+  /**
+   * Returns true if the profile has reached the goal.
+   *
+   * <p>The profile has reached the goal if the time since the profile started
+   * has exceeded the profile's total time.
+   *
+   * @param t The time since the beginning of the profile.
+   */
+  @SuppressWarnings("ParameterName")
+  public boolean isFinished(double t) {
+    return t >= totalTime();
+  }
+
+  /**
+   * Fills in the three segments starting at the given index which change the velocity
+   * from one value to another. The segment lengths are stored in m_endTimes.
+   */
+  private void setVelocityChange(int first, double fromVelocity, double toVelocity) {
+    double sign = toVelocity < fromVelocity ? -1 : 1;
+    double jerkTime = jerkTime(fromVelocity, toVelocity);
+    double constantTime = Math.abs(toVelocity - fromVelocity) / m_constraints.maxAcceleration
+        - jerkTime;
+    if (constantTime < 0) {
+      constantTime = 0;
+    }
+
+    m_jerk[first] = sign * m_constraints.maxJerk;
+    m_jerk[first + 1] = 0;
+    m_jerk[first + 2] = -sign * m_constraints.maxJerk;
+    m_endTimes[first] = jerkTime;
+    m_endTimes[first + 1] = constantTime;
+    m_endTimes[first + 2] = jerkTime;
+  }
+
+  /**
+   * Returns the length of the jerk segments needed to change between two velocities. If the
+   * change is too small to reach the maximum acceleration, the acceleration peaks early.
+   */
+  private double jerkTime(double fromVelocity, double toVelocity) {
+    double change = Math.abs(toVelocity - fromVelocity);
+    double fullJerkTime = m_constraints.maxAcceleration / m_constraints.maxJerk;
+    if (change >= fullJerkTime * m_constraints.maxAcceleration) {
+      return fullJerkTime;
+    }
+    return Math.sqrt(change / m_constraints.maxJerk);
+  }
+
+  /**
+   * Returns the distance covered while changing between two velocities. The acceleration is
+   * symmetric in time, so the average velocity is the mean of the two velocities.
+   */
+  private double changeDistance(double fromVelocity, double toVelocity) {
+    double change = Math.abs(toVelocity - fromVelocity);
+    double jerkTime = jerkTime(fromVelocity, toVelocity);
+    double time = Math.max(change / m_constraints.maxAcceleration, jerkTime) + jerkTime;
+    return (fromVelocity + toVelocity) / 2.0 * time;
+  }
+}
@@ -23,9 +23,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiConsumer;
 
 public final class TrajectoryGenerator {
+  /**
+   * The version of the generated trajectories. Increase this whenever a change to the generator,
+   * the spline parameterizer or the time parameterizer changes the states it gives, so that
+   * trajectories saved by an older version are made again.
+   */
+  public static final int kVersion = 1;
+
   private static final Trajectory kDoNothingTrajectory =
       new Trajectory(Arrays.asList(new Trajectory.State()));
   private static BiConsumer<String, StackTraceElement[]> errorFunc;
@@ -215,24 +225,49 @@ public final class TrajectoryGenerator {
    * Generate spline points from a vector of splines by parameterizing the
    * splines.
    *
+   * <p>The splines don't depend on each other, so when there is more than one
+   * they are parameterized in parallel on the common fork-join pool, and the
+   * points are joined back together in order.
+   *
    * @param splines The splines to parameterize.
    * @return The spline points for use in time parameterization of a trajectory.
    * @throws SplineParameterizer.MalformedSplineException When the spline is malformed (e.g. has close adjacent points
    *                                  with approximately opposing headings)
    */
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
   public static List<PoseWithCurvature> splinePointsFromSplines(
       Spline[] splines) {
+    List<List<PoseWithCurvature>> parameterized = new ArrayList<List<PoseWithCurvature>>(splines.length);
+    if (splines.length == 1) {
+      parameterized.add(SplineParameterizer.parameterize(splines[0]));
+    } else {
+      List<ForkJoinTask<List<PoseWithCurvature>>> tasks =
+          new ArrayList<ForkJoinTask<List<PoseWithCurvature>>>(splines.length);
+      for (final Spline spline : splines) {
+        tasks.add(ForkJoinPool.commonPool().submit(new Callable<List<PoseWithCurvature>>() {
+          @Override
+          public List<PoseWithCurvature> call() {
+            return SplineParameterizer.parameterize(spline);
+          }
+        }));
+      }
+      for (ForkJoinTask<List<PoseWithCurvature>> task : tasks) {
+        // join() rethrows a MalformedSplineException from the task as it is
+        parameterized.add(task.join());
+      }
+    }
+
     // Create the vector of spline points.
-    ArrayList<PoseWithCurvature> splinePoints = new ArrayList<PoseWithCurvature>();
+    int count = 1;
+    for (List<PoseWithCurvature> points : parameterized) {
+      count += points.size() - 1;
+    }
+    ArrayList<PoseWithCurvature> splinePoints = new ArrayList<PoseWithCurvature>(count);
 
     // Add the first point to the vector.
-    splinePoints.add(splines[0].getPoint(0.0));
-
-    // Iterate through the vector and parameterize each spline, adding the
-    // parameterized points to the final vector.
-    for (final Spline spline : splines) {
-      List<PoseWithCurvature> points = SplineParameterizer.parameterize(spline);
+    splinePoints.add(parameterized.get(0).get(0));
 
+    for (List<PoseWithCurvature> points : parameterized) {
       // Append the array of poses to the vector. We are removing the first
       // point because it's a duplicate of the last point from the previous
       // spline.
@@ -31,10 +31,13 @@
 
 package org.arcrobotics.ftclib.files.trajectory;
 
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
 import org.arcrobotics.ftclib.files.spline.PoseWithCurvature;
+import org.arcrobotics.ftclib.files.trajectory.constraint.BatchTrajectoryConstraint;
 import org.arcrobotics.ftclib.files.trajectory.constraint.TrajectoryConstraint;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -81,15 +84,39 @@ public final class TrajectoryParameterizer {
       double maxAccelerationMetersPerSecondSq,
       boolean reversed
   ) {
-    ArrayList<ConstrainedState> constrainedStates = new ArrayList<ConstrainedState>(points.size());
+    // Batch constraints don't depend on the velocity, so their bounds are found for every point
+    // at once here instead of every time a point is revisited.
+    final List<TrajectoryConstraint> pointConstraints =
+        new ArrayList<TrajectoryConstraint>(constraints.size());
+    final List<BatchTrajectoryConstraint> batchConstraints =
+        new ArrayList<BatchTrajectoryConstraint>();
+    for (int i = 0; i < constraints.size(); i++) {
+      final TrajectoryConstraint constraint = constraints.get(i);
+      if (constraint instanceof BatchTrajectoryConstraint) {
+        batchConstraints.add((BatchTrajectoryConstraint) constraint);
+      } else {
+        pointConstraints.add(constraint);
+      }
+    }
+    final int constraintCount = pointConstraints.size();
+    final BatchBounds bounds = batchConstraints.isEmpty()
+        ? null : new BatchBounds(points, batchConstraints);
+
+    // The constrained states are kept in an array and point at the spline points instead of
+    // copies of them, as there is one for every point
+    final ConstrainedState[] constrainedStates = new ConstrainedState[points.size()];
     ConstrainedState predecessor = new ConstrainedState(points.get(0), 0, startVelocityMetersPerSecond,
         -maxAccelerationMetersPerSecondSq, maxAccelerationMetersPerSecondSq);
 
     // Forward pass
     for (int i = 0; i < points.size(); i++) {
-      constrainedStates.add(new ConstrainedState());
-      ConstrainedState constrainedState = constrainedStates.get(i);
-      constrainedState.pose = points.get(i);
+      ConstrainedState constrainedState = new ConstrainedState(points.get(i));
+      constrainedStates[i] = constrainedState;
+      if (bounds != null) {
+        constrainedState.velocityLimit = bounds.maxVelocities[i];
+        constrainedState.minAccelerationLimit = bounds.minAccelerations[i];
+        constrainedState.maxAccelerationLimit = bounds.maxAccelerations[i];
+      }
 
       // Begin constraining based on predecessor.
       double ds = constrainedState.pose.poseMeters.getTranslation().getDistance(
@@ -113,7 +140,10 @@ public final class TrajectoryParameterizer {
 
         // At this point, the constrained state is fully constructed apart from
         // all the custom-defined user constraints.
-        for (final TrajectoryConstraint constraint : constraints) {
+        constrainedState.maxVelocityMetersPerSecond = Math.min(
+            constrainedState.maxVelocityMetersPerSecond, constrainedState.velocityLimit);
+        for (int j = 0; j < constraintCount; j++) {
+          final TrajectoryConstraint constraint = pointConstraints.get(j);
           constrainedState.maxVelocityMetersPerSecond = Math.min(
               constrainedState.maxVelocityMetersPerSecond,
               constraint.getMaxVelocityMetersPerSecond(
@@ -123,7 +153,7 @@ public final class TrajectoryParameterizer {
         }
 
         // Now enforce all acceleration limits.
-        enforceAccelerationLimits(reversed, constraints, constrainedState);
+        enforceAccelerationLimits(reversed, pointConstraints, constraintCount, constrainedState);
 
         if (ds < 1E-6) {
           break;
@@ -157,13 +187,13 @@ public final class TrajectoryParameterizer {
     }
 
     ConstrainedState successor = new ConstrainedState(points.get(points.size() - 1),
-        constrainedStates.get(constrainedStates.size() - 1).distanceMeters,
+        constrainedStates[constrainedStates.length - 1].distanceMeters,
         endVelocityMetersPerSecond,
         -maxAccelerationMetersPerSecondSq, maxAccelerationMetersPerSecondSq);
 
     // Backward pass
     for (int i = points.size() - 1; i >= 0; i--) {
-      ConstrainedState constrainedState = constrainedStates.get(i);
+      ConstrainedState constrainedState = constrainedStates[i];
       double ds = constrainedState.distanceMeters - successor.distanceMeters; // negative
 
       while (true) {
@@ -182,7 +212,7 @@ public final class TrajectoryParameterizer {
         constrainedState.maxVelocityMetersPerSecond = newMaxVelocity;
 
         // Check all acceleration constraints with the new max velocity.
-        enforceAccelerationLimits(reversed, constraints, constrainedState);
+        enforceAccelerationLimits(reversed, pointConstraints, constraintCount, constrainedState);
 
         if (ds > -1E-6) {
           break;
@@ -214,8 +244,8 @@ public final class TrajectoryParameterizer {
     double distanceMeters = 0.0;
     double velocityMetersPerSecond = 0.0;
 
-    for (int i = 0; i < constrainedStates.size(); i++) {
-      final ConstrainedState state = constrainedStates.get(i);
+    for (int i = 0; i < constrainedStates.length; i++) {
+      final ConstrainedState state = constrainedStates[i];
 
       // Calculate the change in position between the current state and the previous
       // state.
@@ -259,9 +289,11 @@ public final class TrajectoryParameterizer {
 
   private static void enforceAccelerationLimits(boolean reverse,
                                                 List<TrajectoryConstraint> constraints,
+                                                int constraintCount,
                                                 ConstrainedState state) {
 
-    for (final TrajectoryConstraint constraint : constraints) {
+    for (int i = 0; i < constraintCount; i++) {
+      final TrajectoryConstraint constraint = constraints.get(i);
       double factor = reverse ? -1.0 : 1.0;
       final TrajectoryConstraint.MinMax minMaxAccel = constraint.getMinMaxAccelerationMetersPerSecondSq(
           state.pose.poseMeters, state.pose.curvatureRadPerMeter,
@@ -276,6 +308,11 @@ public final class TrajectoryParameterizer {
               : minMaxAccel.maxAccelerationMetersPerSecondSq);
     }
 
+    state.minAccelerationMetersPerSecondSq = Math.max(state.minAccelerationMetersPerSecondSq,
+        reverse ? -state.maxAccelerationLimit : state.minAccelerationLimit);
+    state.maxAccelerationMetersPerSecondSq = Math.min(state.maxAccelerationMetersPerSecondSq,
+        reverse ? -state.minAccelerationLimit : state.maxAccelerationLimit);
+
   }
 
   @SuppressWarnings("MemberName")
@@ -286,6 +323,11 @@ public final class TrajectoryParameterizer {
     double minAccelerationMetersPerSecondSq;
     double maxAccelerationMetersPerSecondSq;
 
+    // The bounds from the batch constraints
+    double velocityLimit = Double.MAX_VALUE;
+    double minAccelerationLimit = -Double.MAX_VALUE;
+    double maxAccelerationLimit = Double.MAX_VALUE;
+
     ConstrainedState(PoseWithCurvature pose, double distanceMeters,
                      double maxVelocityMetersPerSecond,
                      double minAccelerationMetersPerSecondSq,
@@ -297,8 +339,47 @@ public final class TrajectoryParameterizer {
       this.maxAccelerationMetersPerSecondSq = maxAccelerationMetersPerSecondSq;
     }
 
-    ConstrainedState() {
-      pose = new PoseWithCurvature();
+    ConstrainedState(PoseWithCurvature pose) {
+      this.pose = pose;
+    }
+  }
+
+  /**
+   * The bounds of every point from the batch constraints.
+   */
+  private static class BatchBounds {
+    final double[] maxVelocities;
+    final double[] minAccelerations;
+    final double[] maxAccelerations;
+
+    BatchBounds(List<PoseWithCurvature> points, List<BatchTrajectoryConstraint> constraints) {
+      final int count = points.size();
+      final double[] x = new double[count];
+      final double[] y = new double[count];
+      final double[] headings = new double[count];
+      final double[] curvatures = new double[count];
+      for (int i = 0; i < count; i++) {
+        final PoseWithCurvature point = points.get(i);
+        final Pose2d pose = point.poseMeters;
+        x[i] = pose.getX();
+        y[i] = pose.getY();
+        headings[i] = pose.getRotation().getRadians();
+        curvatures[i] = point.curvatureRadPerMeter;
+      }
+
+      maxVelocities = new double[count];
+      minAccelerations = new double[count];
+      maxAccelerations = new double[count];
+      Arrays.fill(maxVelocities, Double.MAX_VALUE);
+      Arrays.fill(minAccelerations, -Double.MAX_VALUE);
+      Arrays.fill(maxAccelerations, Double.MAX_VALUE);
+
+      for (int i = 0; i < constraints.size(); i++) {
+        final BatchTrajectoryConstraint constraint = constraints.get(i);
+        constraint.constrainVelocities(x, y, headings, curvatures, count, maxVelocities);
+        constraint.constrainAccelerations(x, y, headings, curvatures, count,
+            minAccelerations, maxAccelerations);
+      }
     }
   }
 }
@@ -33,6 +33,13 @@ import java.util.Objects;
  * previousProfiledReference = profile.calculate(timeSincePreviousUpdate);
  * </code></pre>
  *
+ * <p>or, to avoid allocating a new profile and state on every update, keep one
+ * of each and re-plan in place:
+ * <pre><code>
+ * profile.update(constraints, unprofiledReference, previousProfiledReference)
+ *     .calculate(timeSincePreviousUpdate, previousProfiledReference);
+ * </code></pre>
+ *
  * <p>where `unprofiledReference` is free to change between calls. Note that when
  * the unprofiled reference is within the constraints, `calculate()` returns the
  * unprofiled reference unchanged.
@@ -46,8 +53,8 @@ public class TrapezoidProfile {
   private int m_direction;
 
   private Constraints m_constraints;
-  private State m_initial;
-  private State m_goal;
+  private final State m_initial = new State();
+  private final State m_goal = new State();
 
   private double m_endAccel;
   private double m_endFullSpeed;
@@ -112,10 +119,39 @@ public class TrapezoidProfile {
    * @param initial     The initial state (usually the current state).
    */
   public TrapezoidProfile(Constraints constraints, State goal, State initial) {
+    update(constraints, goal, initial);
+  }
+
+  /**
+   * Construct a TrapezoidProfile.
+   *
+   * @param constraints The constraints on the profile, like maximum velocity.
+   * @param goal        The desired state when the profile is complete.
+   */
+  public TrapezoidProfile(Constraints constraints, State goal) {
+    this(constraints, goal, new State(0, 0));
+  }
+
+  /**
+   * Re-plans this profile in place for a new goal and initial state. The states are copied, so
+   * the caller may keep mutating them (or pass the state last written by
+   * {@link #calculate(double, State)}) without affecting the profile.
+   *
+   * <p>This computes the same profile as the constructor without allocating, which allows one
+   * profile to be reused every loop iteration, including when the goal changes mid-motion.
+   *
+   * @param constraints The constraints on the profile, like maximum velocity.
+   * @param goal        The desired state when the profile is complete.
+   * @param initial     The initial state (usually the current state).
+   * @return This profile, for chaining a call to calculate().
+   */
+  public TrapezoidProfile update(Constraints constraints, State goal, State initial) {
     m_direction = shouldFlipAcceleration(initial, goal) ? -1 : 1;
     m_constraints = constraints;
-    m_initial = direct(initial);
-    m_goal = direct(goal);
+    m_initial.position = initial.position * m_direction;
+    m_initial.velocity = initial.velocity * m_direction;
+    m_goal.position = goal.position * m_direction;
+    m_goal.velocity = goal.velocity * m_direction;
 
     if (m_initial.velocity > m_constraints.maxVelocity) {
       m_initial.velocity = m_constraints.maxVelocity;
@@ -149,45 +185,54 @@ public class TrapezoidProfile {
     m_endAccel = accelerationTime - cutoffBegin;
     m_endFullSpeed = m_endAccel + fullSpeedDist / m_constraints.maxVelocity;
     m_endDeccel = m_endFullSpeed + accelerationTime - cutoffEnd;
+    return this;
   }
 
   /**
-   * Construct a TrapezoidProfile.
+   * Calculate the correct position and velocity for the profile at a time t
+   * where the beginning of the profile was at time t = 0.
    *
-   * @param constraints The constraints on the profile, like maximum velocity.
-   * @param goal        The desired state when the profile is complete.
+   * @param t The time since the beginning of the profile.
    */
-  public TrapezoidProfile(Constraints constraints, State goal) {
-    this(constraints, goal, new State(0, 0));
+  @SuppressWarnings("ParameterName")
+  public State calculate(double t) {
+    State result = new State();
+    calculate(t, result);
+    return result;
   }
 
   /**
    * Calculate the correct position and velocity for the profile at a time t
-   * where the beginning of the profile was at time t = 0.
+   * where the beginning of the profile was at time t = 0, writing the result
+   * into an existing state instead of allocating a new one.
    *
-   * @param t The time since the beginning of the profile.
+   * @param t      The time since the beginning of the profile.
+   * @param result The state to store the result in.
    */
   @SuppressWarnings("ParameterName")
-  public State calculate(double t) {
-    State result = new State(m_initial.position, m_initial.velocity);
-
+  public void calculate(double t, State result) {
     if (t < m_endAccel) {
-      result.velocity += t * m_constraints.maxAcceleration;
-      result.position += (m_initial.velocity + t * m_constraints.maxAcceleration / 2.0) * t;
+      result.velocity = m_initial.velocity + t * m_constraints.maxAcceleration;
+      result.position = m_initial.position
+          + (m_initial.velocity + t * m_constraints.maxAcceleration / 2.0) * t;
     } else if (t < m_endFullSpeed) {
       result.velocity = m_constraints.maxVelocity;
-      result.position += (m_initial.velocity + m_endAccel * m_constraints.maxAcceleration
-          / 2.0) * m_endAccel + m_constraints.maxVelocity * (t - m_endAccel);
+      result.position = m_initial.position + (m_initial.velocity + m_endAccel
+          * m_constraints.maxAcceleration / 2.0) * m_endAccel + m_constraints.maxVelocity
+          * (t - m_endAccel);
     } else if (t <= m_endDeccel) {
       result.velocity = m_goal.velocity + (m_endDeccel - t) * m_constraints.maxAcceleration;
       double timeLeft = m_endDeccel - t;
       result.position = m_goal.position - (m_goal.velocity + timeLeft
           * m_constraints.maxAcceleration / 2.0) * timeLeft;
     } else {
-      result = m_goal;
+      result.position = m_goal.position;
+      result.velocity = m_goal.velocity;
     }
 
-    return direct(result);
+    // Flip the sign of the velocity and position if the profile is inverted
+    result.position *= m_direction;
+    result.velocity *= m_direction;
   }
 
   /**
@@ -289,12 +334,4 @@ public class TrapezoidProfile {
   private static boolean shouldFlipAcceleration(State initial, State goal) {
     return initial.position > goal.position;
   }
-
-  // Flip the sign of the velocity and position if the profile is inverted
-  private State direct(State in) {
-    State result = new State(in.position, in.velocity);
-    result.position = result.position * m_direction;
-    result.velocity = result.velocity * m_direction;
-    return result;
-  }
 }
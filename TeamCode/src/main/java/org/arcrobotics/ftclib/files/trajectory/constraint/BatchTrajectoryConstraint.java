@@ -0,0 +1,45 @@
+package org.arcrobotics.ftclib.files.trajectory.constraint;
+
+/**
+ * A constraint whose bounds only depend on where the robot is on the trajectory, and not on how
+ * fast it is going, so they can be found for every point at once before the trajectory is
+ * parameterized.
+ *
+ * <p>The {@link org.arcrobotics.ftclib.files.trajectory.TrajectoryParameterizer} calls these once
+ * per trajectory with the points in primitive arrays, instead of calling the per-point methods,
+ * which allocate, every time it revisits a point. The per-point methods should still give the same
+ * bounds, for anything else that uses the constraint.
+ */
+public interface BatchTrajectoryConstraint extends TrajectoryConstraint {
+  /**
+   * Lowers the max velocity of each point to this constraint's limit.
+   *
+   * @param xMeters                  The x position of each point.
+   * @param yMeters                  The y position of each point.
+   * @param headingsRadians          The heading of each point.
+   * @param curvaturesRadPerMeter    The curvature at each point.
+   * @param count                    The number of points.
+   * @param maxVelocitiesMetersPerSecond The max speed of each point, which is lowered in place.
+   */
+  void constrainVelocities(double[] xMeters, double[] yMeters, double[] headingsRadians,
+                           double[] curvaturesRadPerMeter, int count,
+                           double[] maxVelocitiesMetersPerSecond);
+
+  /**
+   * Narrows the acceleration bounds of each point to this constraint's limits.
+   *
+   * @param xMeters                  The x position of each point.
+   * @param yMeters                  The y position of each point.
+   * @param headingsRadians          The heading of each point.
+   * @param curvaturesRadPerMeter    The curvature at each point.
+   * @param count                    The number of points.
+   * @param minAccelerationsMetersPerSecondSq The min acceleration of each point, which is raised in
+   *                                 place.
+   * @param maxAccelerationsMetersPerSecondSq The max acceleration of each point, which is lowered
+   *                                 in place.
+   */
+  void constrainAccelerations(double[] xMeters, double[] yMeters, double[] headingsRadians,
+                              double[] curvaturesRadPerMeter, int count,
+                              double[] minAccelerationsMetersPerSecondSq,
+                              double[] maxAccelerationsMetersPerSecondSq);
+}
@@ -19,7 +19,8 @@ import org.arcrobotics.ftclib.files.geometry.Pose2d;
  * robot to slow down around tight turns, making it easier to track trajectories
  * with sharp turns.
  */
-public class CentripetalAccelerationConstraint implements TrajectoryConstraint {
+public class CentripetalAccelerationConstraint
+    implements BatchTrajectoryConstraint, HashableTrajectoryConstraint {
   private final double m_maxCentripetalAccelerationMetersPerSecondSq;
 
   /**
@@ -72,5 +73,28 @@ public class CentripetalAccelerationConstraint implements TrajectoryConstraint {
     return new MinMax();
   }
 
+  @Override
+  public void constrainVelocities(double[] xMeters, double[] yMeters, double[] headingsRadians,
+                                  double[] curvaturesRadPerMeter, int count,
+                                  double[] maxVelocitiesMetersPerSecond) {
+    for (int i = 0; i < count; i++) {
+      maxVelocitiesMetersPerSecond[i] = Math.min(maxVelocitiesMetersPerSecond[i],
+          Math.sqrt(m_maxCentripetalAccelerationMetersPerSecondSq
+              / Math.abs(curvaturesRadPerMeter[i])));
+    }
+  }
 
+  @Override
+  public void constrainAccelerations(double[] xMeters, double[] yMeters, double[] headingsRadians,
+                                     double[] curvaturesRadPerMeter, int count,
+                                     double[] minAccelerationsMetersPerSecondSq,
+                                     double[] maxAccelerationsMetersPerSecondSq) {
+    // The acceleration of the robot has no impact on the centripetal acceleration
+    // of the robot.
+  }
+
+  @Override
+  public double[] getSettings() {
+    return new double[] {m_maxCentripetalAccelerationMetersPerSecondSq};
+  }
 }
@@ -19,7 +19,7 @@ import org.arcrobotics.ftclib.files.kinematics.wpilibkinematics.DifferentialDriv
  * commanded velocities for both sides of the drivetrain stay below a certain
  * limit.
  */
-public class DifferentialDriveKinematicsConstraint implements TrajectoryConstraint {
+public class DifferentialDriveKinematicsConstraint implements HashableTrajectoryConstraint {
   private final double m_maxSpeedMetersPerSecond;
   private final DifferentialDriveKinematics m_kinematics;
 
@@ -76,4 +76,8 @@ public class DifferentialDriveKinematicsConstraint implements TrajectoryConstrai
     return new MinMax();
   }
 
+  @Override
+  public double[] getSettings() {
+    return new double[] {m_maxSpeedMetersPerSecond, m_kinematics.trackWidthMeters};
+  }
 }
@@ -20,7 +20,7 @@ import org.arcrobotics.ftclib.files.kinematics.wpilibkinematics.DifferentialDriv
  * while following the trajectory is never higher than what can be achieved with the given
  * maximum voltage.
  */
-public class DifferentialDriveVoltageConstraint implements TrajectoryConstraint {
+public class DifferentialDriveVoltageConstraint implements HashableTrajectoryConstraint {
   private final SimpleMotorFeedforward m_feedforward;
   private final DifferentialDriveKinematics m_kinematics;
   private final double m_maxVoltage;
@@ -101,5 +101,9 @@ public class DifferentialDriveVoltageConstraint implements TrajectoryConstraint
     return new MinMax(minChassisAcceleration, maxChassisAcceleration);
   }
 
-
+  @Override
+  public double[] getSettings() {
+    return new double[] {m_feedforward.ks, m_feedforward.kv, m_feedforward.ka,
+        m_kinematics.trackWidthMeters, m_maxVoltage};
+  }
 }
@@ -0,0 +1,16 @@
+package org.arcrobotics.ftclib.files.trajectory.constraint;
+
+/**
+ * A constraint which can list the settings its bounds are found from, so that something which
+ * saves generated trajectories can tell when the constraint has changed.
+ *
+ * <p>Two constraints of the same class with the same settings must give the same bounds.
+ */
+public interface HashableTrajectoryConstraint extends TrajectoryConstraint {
+  /**
+   * Returns every setting which changes the bounds of this constraint, in a fixed order.
+   *
+   * @return The settings.
+   */
+  double[] getSettings();
+}
@@ -0,0 +1,146 @@
+package org.arcrobotics.ftclib.files.trajectory.constraint;
+
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.geometry.Rotation2d;
+
+/**
+ * A constraint on a mecanum drive's wheel speeds and accelerations which accounts for the drive
+ * being slower sideways than forwards.
+ *
+ * <p>The rollers of mecanum wheels slip when strafing, so the same wheel speed moves the robot
+ * less far sideways than forwards. With a strafe efficiency η, moving at v in a direction φ from
+ * the robot's front needs wheel speeds of v (|cos φ| + |sin φ| / η), plus ω r when the robot turns
+ * at ω with the wheels r from its centre (half the track width plus half the wheelbase). Both the
+ * max velocity and the acceleration limits along the trajectory are lowered so that no wheel
+ * needs more than its limits.
+ *
+ * <p>The robot can either keep a fixed heading, which a holonomic follower does, or face along the
+ * trajectory, in which case it turns at v κ.
+ */
+public class MecanumStrafeConstraint
+    implements BatchTrajectoryConstraint, HashableTrajectoryConstraint {
+  private final double m_maxWheelVelocityMetersPerSecond;
+  private final double m_maxWheelAccelerationMetersPerSecondSq;
+  private final double m_strafeEfficiency;
+  private final double m_turnRadiusMeters;
+  private final Rotation2d m_robotHeading;
+
+  /**
+   * Constructs a mecanum constraint for a robot which keeps a fixed heading.
+   *
+   * @param maxWheelVelocityMetersPerSecond       The max speed of any wheel.
+   * @param maxWheelAccelerationMetersPerSecondSq The max acceleration of any wheel.
+   * @param strafeEfficiency                      How far the robot strafes for the same wheel
+   *                                              travel as driving forwards, between 0 and 1.
+   * @param robotHeading                          The direction the front of the robot faces, in
+   *                                              the trajectory's frame.
+   */
+  public MecanumStrafeConstraint(double maxWheelVelocityMetersPerSecond,
+                                 double maxWheelAccelerationMetersPerSecondSq,
+                                 double strafeEfficiency, Rotation2d robotHeading) {
+    this(maxWheelVelocityMetersPerSecond, maxWheelAccelerationMetersPerSecondSq,
+        strafeEfficiency, 0, robotHeading);
+  }
+
+  /**
+   * Constructs a mecanum constraint for a robot which faces along the trajectory.
+   *
+   * @param maxWheelVelocityMetersPerSecond       The max speed of any wheel.
+   * @param maxWheelAccelerationMetersPerSecondSq The max acceleration of any wheel.
+   * @param strafeEfficiency                      How far the robot strafes for the same wheel
+   *                                              travel as driving forwards, between 0 and 1.
+   * @param turnRadiusMeters                      Half the track width plus half the wheelbase.
+   */
+  public MecanumStrafeConstraint(double maxWheelVelocityMetersPerSecond,
+                                 double maxWheelAccelerationMetersPerSecondSq,
+                                 double strafeEfficiency, double turnRadiusMeters) {
+    this(maxWheelVelocityMetersPerSecond, maxWheelAccelerationMetersPerSecondSq,
+        strafeEfficiency, turnRadiusMeters, null);
+  }
+
+  private MecanumStrafeConstraint(double maxWheelVelocityMetersPerSecond,
+                                  double maxWheelAccelerationMetersPerSecondSq,
+                                  double strafeEfficiency, double turnRadiusMeters,
+                                  Rotation2d robotHeading) {
+    if (!(strafeEfficiency > 0 && strafeEfficiency <= 1)) {
+      throw new IllegalArgumentException("The strafe efficiency must be between 0 and 1");
+    }
+    m_maxWheelVelocityMetersPerSecond = maxWheelVelocityMetersPerSecond;
+    m_maxWheelAccelerationMetersPerSecondSq = maxWheelAccelerationMetersPerSecondSq;
+    m_strafeEfficiency = strafeEfficiency;
+    m_turnRadiusMeters = turnRadiusMeters;
+    m_robotHeading = robotHeading;
+  }
+
+  /**
+   * Returns the wheel speed needed for each m/s of travel in a direction, not counting turning.
+   *
+   * @param headingRadians The direction of travel, in the trajectory's frame.
+   */
+  private double translationFactor(double headingRadians) {
+    if (m_robotHeading == null) {
+      return 1;
+    }
+    // The direction of travel relative to the front of the robot
+    double relative = headingRadians - m_robotHeading.getRadians();
+    return Math.abs(Math.cos(relative)) + Math.abs(Math.sin(relative)) / m_strafeEfficiency;
+  }
+
+  private double maxVelocity(double headingRadians, double curvatureRadPerMeter) {
+    double factor = translationFactor(headingRadians);
+    if (m_robotHeading == null) {
+      factor += Math.abs(curvatureRadPerMeter) * m_turnRadiusMeters;
+    }
+    return m_maxWheelVelocityMetersPerSecond / factor;
+  }
+
+  private double maxAcceleration(double headingRadians) {
+    return m_maxWheelAccelerationMetersPerSecondSq / translationFactor(headingRadians);
+  }
+
+  @Override
+  public double getMaxVelocityMetersPerSecond(Pose2d poseMeters, double curvatureRadPerMeter,
+                                              double velocityMetersPerSecond) {
+    return maxVelocity(poseMeters.getRotation().getRadians(), curvatureRadPerMeter);
+  }
+
+  @Override
+  public MinMax getMinMaxAccelerationMetersPerSecondSq(Pose2d poseMeters,
+                                                       double curvatureRadPerMeter,
+                                                       double velocityMetersPerSecond) {
+    double maxAcceleration = maxAcceleration(poseMeters.getRotation().getRadians());
+    return new MinMax(-maxAcceleration, maxAcceleration);
+  }
+
+  @Override
+  public void constrainVelocities(double[] xMeters, double[] yMeters, double[] headingsRadians,
+                                  double[] curvaturesRadPerMeter, int count,
+                                  double[] maxVelocitiesMetersPerSecond) {
+    for (int i = 0; i < count; i++) {
+      maxVelocitiesMetersPerSecond[i] = Math.min(maxVelocitiesMetersPerSecond[i],
+          maxVelocity(headingsRadians[i], curvaturesRadPerMeter[i]));
+    }
+  }
+
+  @Override
+  public void constrainAccelerations(double[] xMeters, double[] yMeters, double[] headingsRadians,
+                                     double[] curvaturesRadPerMeter, int count,
+                                     double[] minAccelerationsMetersPerSecondSq,
+                                     double[] maxAccelerationsMetersPerSecondSq) {
+    for (int i = 0; i < count; i++) {
+      double maxAcceleration = maxAcceleration(headingsRadians[i]);
+      minAccelerationsMetersPerSecondSq[i] = Math.max(minAccelerationsMetersPerSecondSq[i],
+          -maxAcceleration);
+      maxAccelerationsMetersPerSecondSq[i] = Math.min(maxAccelerationsMetersPerSecondSq[i],
+          maxAcceleration);
+    }
+  }
+
+  @Override
+  public double[] getSettings() {
+    // A robot which faces along the trajectory has no fixed heading
+    return new double[] {m_maxWheelVelocityMetersPerSecond,
+        m_maxWheelAccelerationMetersPerSecondSq, m_strafeEfficiency, m_turnRadiusMeters,
+        m_robotHeading == null ? Double.NaN : m_robotHeading.getRadians()};
+  }
+}
@@ -37,6 +37,15 @@ public class ActiveLocation implements Runnable {
     double fieldXPosition = 0;
     double fieldYPosition = 0;
 
+    // Velocity estimate, in mm/s and radians/s on the field
+    private volatile double velocityX = 0;
+    private volatile double velocityY = 0;
+    private volatile double angularVelocity = 0;
+    private long velocityWindowStart = 0;
+    private double velocityWindowX = 0;
+    private double velocityWindowY = 0;
+    private double velocityWindowAngle = 0;
+
     // For stopping the thread
     private volatile boolean isRunning = true;
 
@@ -44,6 +53,11 @@ public class ActiveLocation implements Runnable {
     final static double tickPerRotation = 8192;
     final static double wheelCircumference = 90 * Math.PI;
 
+    // The shortest time the velocity is measured over, as the encoders are read much faster than
+    // they change, and how much of each new measurement is mixed into the estimate
+    final static long velocityWindowNanos = 20_000_000;
+    final static double velocitySmoothing = 0.5;
+
     double startX;
 
     /**
@@ -151,6 +165,41 @@ public class ActiveLocation implements Runnable {
         double deltaX = internalCurrentX - internalPreviousX;
         fieldXPosition += deltaX * Math.cos(angle) - deltaY * Math.sin(angle);
         fieldYPosition += deltaX * Math.sin(angle) + deltaY * Math.cos(angle);
+        updateVelocity();
+    }
+
+    /**
+     * Updates the velocity estimate
+     *
+     * The change in position is measured over at least {@link #velocityWindowNanos}, and the
+     * estimate is smoothed, so the noise from reading the encoders very often is kept down.
+     */
+    private synchronized void updateVelocity() {
+        long now = System.nanoTime();
+        if (velocityWindowStart == 0) {
+            velocityWindowStart = now;
+            velocityWindowX = fieldXPosition;
+            velocityWindowY = fieldYPosition;
+            velocityWindowAngle = angle;
+            return;
+        }
+
+        long elapsed = now - velocityWindowStart;
+        if (elapsed < velocityWindowNanos) return;
+
+        double seconds = elapsed / 1e9;
+        double angleChange = (angle - velocityWindowAngle) % (2 * Math.PI);
+        if (angleChange > Math.PI) angleChange -= 2 * Math.PI;
+        if (angleChange < -Math.PI) angleChange += 2 * Math.PI;
+
+        velocityX += velocitySmoothing * ((fieldXPosition - velocityWindowX) / seconds - velocityX);
+        velocityY += velocitySmoothing * ((fieldYPosition - velocityWindowY) / seconds - velocityY);
+        angularVelocity += velocitySmoothing * (angleChange / seconds - angularVelocity);
+
+        velocityWindowStart = now;
+        velocityWindowX = fieldXPosition;
+        velocityWindowY = fieldYPosition;
+        velocityWindowAngle = angle;
     }
 
     /**
@@ -186,6 +235,33 @@ public class ActiveLocation implements Runnable {
         return angle;
     }
 
+    /**
+     * Gets the Robot's Velocity on the field on the X-Axis, which is kept up to date by the thread
+     *
+     * @return the estimated X velocity (mm/s)
+     */
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * Gets the Robot's Velocity on the field on the Y-Axis, which is kept up to date by the thread
+     *
+     * @return the estimated Y velocity (mm/s)
+     */
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    /**
+     * Gets how fast the Robot's Angle is changing, which is kept up to date by the thread
+     *
+     * @return the estimated angular velocity (radians/s, counterclockwise)
+     */
+    public double getAngularVelocity() {
+        return angularVelocity;
+    }
+
     public double getAngleInDegrees(){
         updateSensors();
         return ((Math.toDegrees(angle) + 360) % 360);
@@ -3,18 +3,40 @@ package org.firstinspires.ftc.teamcode.java.movement;
 import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.arcrobotics.ftclib.files.command.Command;
+import org.arcrobotics.ftclib.files.command.CommandBase;
+import org.arcrobotics.ftclib.files.command.CommandScheduler;
+import org.arcrobotics.ftclib.files.command.Subsystem;
 import org.firstinspires.ftc.teamcode.java.drivebase.MecanumDrive;
 import org.firstinspires.ftc.teamcode.java.util.Angle;
 import org.firstinspires.ftc.teamcode.java.util.MovementData;
 import org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfController;
 import org.firstinspires.ftc.teamcode.java.util.RobotHardware;
+import org.firstinspires.ftc.teamcode.java.util.Waypoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
 
 /**
  * The AutoDriving class allows the robot to move to specified locations after calculating with
  * PathFinder.
+ * <p>
+ * Each move can be made by blocking until the robot arrives, or as a {@link Move} which is run by
+ * the {@link CommandScheduler}, so other mechanisms can be worked during the move. The drive is the
+ * {@link Subsystem} the moves need, so only one move runs at a time. A blocking move needs the
+ * drive too while it runs, so it cancels a scheduled move, and stops if one is scheduled.
  */
-public class AutoDrivingNew {
+public class AutoDrivingNew implements Subsystem {
+	/**
+	 * The last one made, whose moves are stopped when the next OpMode makes a new one
+	 */
+	private static AutoDrivingNew latest;
+
 	/**
 	 * {@link PositionPidfController} for the 3 Axes of Movement: X, Y, and θ
 	 */
@@ -48,6 +70,46 @@ public class AutoDrivingNew {
 	 * The default Error Ranges for Rotational Movement as an {@link Angle} in case it is not passed through
 	 */
 	private Angle defaultErrorAngle = Angle.fromDegrees(5);
+	/**
+	 * The {@link SynchronizedProfile} which plans the moves made with {@link #profiledStopAt}, with
+	 * the wheel limits in mm/s and mm/s²
+	 */
+	private SynchronizedProfile profile = new SynchronizedProfile(1500, 1500);
+	/**
+	 * Times the profiled moves
+	 */
+	private final ElapsedTime profileTimer = new ElapsedTime();
+	/**
+	 * How far ahead along the path the robot aims when following waypoints, in mm. This is
+	 * roughly how much the corners at waypoints which aren't stopped at are rounded off.
+	 */
+	private double lookaheadRadius = 150;
+	/**
+	 * How long a move can take before it is given up on, in seconds, unless another
+	 * {@link MoveWatchdog} is set
+	 */
+	public static final double defaultMoveTimeout = 10;
+	/**
+	 * Watches every move for timing out and stalling, or null to let them run until they arrive.
+	 * By default a move is only given up on after the {@link #defaultMoveTimeout}, so a blocked
+	 * robot can't use up the rest of autonomous. A watched move can end without arriving, so the
+	 * callers should check {@link #getLastMoveStatus()}.
+	 */
+	private MoveWatchdog moveWatchdog = new MoveWatchdog(defaultMoveTimeout);
+	/**
+	 * Decides when the robot has arrived from where it will come to rest, or null to only check
+	 * the position. This is off until braking limits tuned on the robot are set with
+	 * {@link #setSettleDetector}.
+	 */
+	private SettleDetector settleDetector = null;
+	/**
+	 * How the last blocking move ended
+	 */
+	private volatile Move.Status lastMoveStatus = Move.Status.WAITING;
+	/**
+	 * Holds the drive on the {@link CommandScheduler} during a blocking move
+	 */
+	private final DriveClaim driveClaim = new DriveClaim();
 
 	/**
 	 * The Basic Constructor to Create a Basic Instance of AutoDriving
@@ -78,6 +140,8 @@ public class AutoDrivingNew {
 		pathFinder = new PathFinder(activeLocation);
 		pathThread = new Thread(pathFinder);
 		pathThread.start();
+
+		replaceLatest();
 	}
 
 	/**
@@ -117,6 +181,19 @@ public class AutoDrivingNew {
 		pathFinder = new PathFinder(activeLocation);
 		pathThread = new Thread(pathFinder);
 		pathThread.start();
+
+		replaceLatest();
+	}
+
+	/**
+	 * Stops the moves of the last AutoDriving made, in case its OpMode didn't call
+	 * {@link #stopMoves()}: they would drive the motors whenever the scheduler runs
+	 */
+	private void replaceLatest() {
+		synchronized (AutoDrivingNew.class) {
+			if (latest != null) latest.stopMoves();
+			latest = this;
+		}
 	}
 
 	/**
@@ -169,6 +246,51 @@ public class AutoDrivingNew {
 		this.defaultErrorAngle = defaultErrorAngle;
 	}
 
+	/**
+	 * Update how far ahead the robot aims when following waypoints
+	 * @param lookaheadRadius the new lookahead radius, in mm
+	 */
+	public void setLookaheadRadius(double lookaheadRadius) {
+		this.lookaheadRadius = lookaheadRadius;
+	}
+
+	/**
+	 * Update the watchdog for the moves
+	 * @param moveWatchdog the settings for watching every move, or null to let moves run until
+	 *                     they arrive, which can be forever if the robot is blocked
+	 */
+	public void setMoveWatchdog(MoveWatchdog moveWatchdog) {
+		this.moveWatchdog = moveWatchdog;
+	}
+
+	/**
+	 * Update how arrival is decided. A move can end while the robot is still moving, and
+	 * {@link #stopAt} leaves the motors at their last powers, so the next move or
+	 * {@link #turnOff()} should follow straight after.
+	 * @param settleDetector the detector which predicts where the robot comes to rest, or null to
+	 *                       only check the robot's position
+	 */
+	public void setSettleDetector(SettleDetector settleDetector) {
+		this.settleDetector = settleDetector;
+	}
+
+	/**
+	 * @return how the last blocking move ended, which is {@link Move.Status#ACCEPTED} or
+	 *         {@link Move.Status#SKIPPED} if the watchdog stopped it
+	 */
+	public Move.Status getLastMoveStatus() {
+		return lastMoveStatus;
+	}
+
+	/**
+	 * Update the wheel limits used to plan profiled moves
+	 * @param maxWheelVelocity the speed of a wheel at full power, in mm/s
+	 * @param maxWheelAcceleration the fastest a wheel should accelerate, in mm/s²
+	 */
+	public void setProfileLimits(double maxWheelVelocity, double maxWheelAcceleration) {
+		profile = new SynchronizedProfile(maxWheelVelocity, maxWheelAcceleration);
+	}
+
 	/**
 	 * Scales all wheel speeds to a scaling factor
 	 *
@@ -255,7 +377,44 @@ public class AutoDrivingNew {
 	}
 
 	/**
-	 * Checks if the Robot is within reasonable error to its goal position
+	 * Finds how far the robot is from its goal for the {@link MoveWatchdog}, adding the turn left as
+	 * the distance the corners of the robot move
+	 * @param goal the goal position for the robot to reach
+	 * @return the error in mm
+	 */
+	private double remainingError(MovementData goal) {
+		double distance = Math.hypot(
+				goal.getX() - activeLocation.getFieldX(), goal.getY() - activeLocation.getFieldY()
+		);
+		double turn = Math.abs(wrapAngle(goal.getAngleInRadians() - activeLocation.getAngle()));
+		return distance + turn * FieldMap.robotRadius;
+	}
+
+	/**
+	 * Starts a watchdog for a blocking move
+	 * @param goal the goal position for the robot to reach
+	 * @return the watchdog, or null if moves aren't watched
+	 */
+	private MoveWatchdog startWatchdog(MovementData goal) {
+		return startWatchdog(remainingError(goal));
+	}
+
+	/**
+	 * Starts a watchdog for a blocking move
+	 * @param error the error at the start, in mm
+	 * @return the watchdog, or null if moves aren't watched
+	 */
+	private MoveWatchdog startWatchdog(double error) {
+		if (moveWatchdog == null) return null;
+		MoveWatchdog watchdog = new MoveWatchdog(moveWatchdog);
+		watchdog.start(error);
+		return watchdog;
+	}
+
+	/**
+	 * Checks if the Robot is within reasonable error to its goal position. With a
+	 * {@link SettleDetector}, this checks where the robot will come to rest at its current speed
+	 * instead of where it is.
 	 * @param goal the goal position for the robot to reach
 	 * @param errorX the reasonable error range for the Δx position with respect to the field
 	 * @param errorY the reasonable error range for the Δy position with respect to the field
@@ -263,6 +422,10 @@ public class AutoDrivingNew {
 	 * @return whether or not the robot is within a reasonable error range
 	 */
 	private boolean arrivedAt(MovementData goal, double errorX, double errorY, Angle errorAngle) {
+		SettleDetector settleDetector = this.settleDetector;
+		if (settleDetector != null) {
+			return settleDetector.hasSettled(activeLocation, goal, errorX, errorY, errorAngle);
+		}
 		return  Math.abs(activeLocation.getFieldX() - goal.getX()) < errorX &&
 				Math.abs(activeLocation.getFieldY() - goal.getY()) < errorY &&
 				Math.abs(
@@ -366,24 +529,103 @@ public class AutoDrivingNew {
 	}
 
 	/**
-	 * Moves the robot to a given point using a PID Loop
+	 * Cancels the move running on the {@link CommandScheduler}, if there is one, and stops the
+	 * robot. The scheduler outlives the OpMode, so this should be called from the OpMode's thread
+	 * when it stops, or a move still running would carry on with these motors the next time an
+	 * OpMode runs the scheduler. Making a new AutoDriving does this too.
+	 */
+	public void stopMoves() {
+		CommandScheduler scheduler = CommandScheduler.getInstance();
+		Command move = scheduler.requiring(this);
+		if (move != null) scheduler.cancel(move);
+		turnOff();
+	}
+
+	/**
+	 * Moves the robot to a given point using a PID Loop. If the move times out or stalls, the
+	 * {@link MoveWatchdog} decides whether to stop or try again, and {@link #getLastMoveStatus()}
+	 * tells how it ended.
 	 * @param goal the position the robot should reach
 	 * @param maxVelocity the maximum rotational movement of the wheel to reach
 	 * @param errorRange the error range of movement
 	 * @return false if the robot is already at the goal position, true if the robot has just
-	 *         reached the new position
+	 *         reached the new position or was stopped by the watchdog
 	 */
 	public boolean stopAt(MovementData goal, double maxVelocity, MovementData errorRange) {
-		if (arrivedAt(goal, errorRange)) return false;
+		if (arrivedAt(goal, errorRange)) {
+			lastMoveStatus = Move.Status.ARRIVED;
+			return false;
+		}
+		startMove();
 		pathFinder.setDestination(goal);
+		MoveWatchdog watchdog = startWatchdog(goal);
 		while (!arrivedAt(goal, errorRange)) {
-			pathFinder.updateEncoderPath();
-			setMotorPowers(calculateDrivePowers(maxVelocity, pathFinder.getEncoderPath()));
+			if (driveClaim.isLost()) {
+				endMove(Move.Status.CANCELLED);
+				return true;
+			}
+			stopAtStep(maxVelocity);
+			if (watchdog == null) continue;
+
+			MoveWatchdog.Action action = watchdog.check(remainingError(goal));
+			if (action == MoveWatchdog.Action.RETRY) {
+				pathFinder.setDestination(goal);
+				resetPids();
+			} else if (action != MoveWatchdog.Action.CONTINUE) {
+				turnOff();
+				endMove(stoppedStatus(action));
+				return true;
+			}
 		}
 		//turnOff();
+		endMove(Move.Status.ARRIVED);
 		return true;
 	}
 
+	/**
+	 * @return the status of a move the watchdog stopped
+	 */
+	private static Move.Status stoppedStatus(MoveWatchdog.Action action) {
+		return action == MoveWatchdog.Action.ACCEPT ? Move.Status.ACCEPTED : Move.Status.SKIPPED;
+	}
+
+	/**
+	 * Clears what the PID Loops built up during a failed attempt, like the integral while the robot
+	 * was stuck, before the move is tried again
+	 */
+	private void resetPids() {
+		drivePid.reset();
+		strafePid.reset();
+		turnPid.reset();
+	}
+
+	/**
+	 * Starts a blocking move, which takes the drive from any move running on the
+	 * {@link CommandScheduler}
+	 */
+	private void startMove() {
+		lastMoveStatus = Move.Status.RUNNING;
+		driveClaim.claim();
+	}
+
+	/**
+	 * Ends a blocking move, giving the drive back to the {@link CommandScheduler}
+	 * @param status how the move ended
+	 */
+	private void endMove(Move.Status status) {
+		driveClaim.release();
+		lastMoveStatus = status;
+	}
+
+	/**
+	 * Runs one loop of the PID Loops towards the destination of the {@link PathFinder}
+	 * @param maxVelocity the maximum rotational movement of the wheel to reach
+	 */
+	private void stopAtStep(double maxVelocity) {
+		pathFinder.updateEncoderPath();
+		setMotorPowers(calculateDrivePowers(maxVelocity, pathFinder.getEncoderPath()));
+	}
+
 	/**
 	 * Moves the robot to a given point using a PID Loop
 	 * @param goal the position the robot should reach
@@ -436,6 +678,424 @@ public class AutoDrivingNew {
 		return stopAt(goal, defaultMaxVelocity);
 	}
 
+	/**
+	 * Moves the robot to a given point by following a {@link SynchronizedProfile}, so that the
+	 * x, y and θ axes all finish at the same time instead of waiting on the slowest one. The
+	 * planned velocities are fed forward, and the PID Loops correct the error from the planned
+	 * position. If the move times out or stalls, the {@link MoveWatchdog} decides whether to stop or
+	 * plan the move again from where the robot is.
+	 * @param goal the position the robot should reach
+	 * @param errorRange the error range of movement
+	 * @return false if the robot is already at the goal position, true if the robot has just
+	 *         reached the new position or was stopped by the watchdog
+	 */
+	public boolean profiledStopAt(MovementData goal, MovementData errorRange) {
+		if (arrivedAt(goal, errorRange)) {
+			lastMoveStatus = Move.Status.ARRIVED;
+			return false;
+		}
+		startMove();
+
+		planProfile(profile, goal);
+		MoveWatchdog watchdog = startWatchdog(goal);
+		double time = 0;
+		while (!profile.isFinished(time) || !arrivedAt(goal, errorRange)) {
+			if (driveClaim.isLost()) {
+				endMove(Move.Status.CANCELLED);
+				return true;
+			}
+			profiledStep(profile, time);
+			time = profileTimer.seconds();
+			if (watchdog == null) continue;
+
+			MoveWatchdog.Action action = watchdog.check(remainingError(goal));
+			if (action == MoveWatchdog.Action.RETRY) {
+				planProfile(profile, goal);
+				resetPids();
+				time = 0;
+			} else if (action != MoveWatchdog.Action.CONTINUE) {
+				turnOff();
+				endMove(stoppedStatus(action));
+				return true;
+			}
+		}
+		endMove(Move.Status.ARRIVED);
+		return true;
+	}
+
+	/**
+	 * Plans a {@link SynchronizedProfile} from where the robot is to a goal, and starts the
+	 * profile timer
+	 * @param profile the profile to plan
+	 * @param goal the position the robot should reach
+	 */
+	private void planProfile(SynchronizedProfile profile, MovementData goal) {
+		double startAngle = activeLocation.getAngle();
+		profile.plan(
+				activeLocation.getFieldX(), activeLocation.getFieldY(), startAngle,
+				goal.getX(), goal.getY(), wrapAngle(goal.getAngleInRadians() - startAngle)
+		);
+		profileTimer.reset();
+	}
+
+	/**
+	 * Runs one loop of following a planned {@link SynchronizedProfile}
+	 * @param profile the planned profile
+	 * @param time the time since the start of the profile, in seconds
+	 */
+	private void profiledStep(SynchronizedProfile profile, double time) {
+		double maxWheelVelocity = profile.getMaxWheelVelocity();
+		profile.calculate(time);
+
+		// Turns the setpoint error and velocity into the robot's frame, like PathFinder
+		double angle = activeLocation.getAngle();
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		double deltaX = profile.getX() - activeLocation.getFieldX();
+		double deltaY = profile.getY() - activeLocation.getFieldY();
+		double xError = deltaX * cos + deltaY * sin;
+		double yError = deltaY * cos - deltaX * sin;
+		double angleError = wrapAngle(profile.getAngle() - angle);
+		double xVelocity = profile.getVelocityX() * cos + profile.getVelocityY() * sin;
+		double yVelocity = profile.getVelocityY() * cos - profile.getVelocityX() * sin;
+
+		// The turn PID Loop takes the angle error the same way as in calculateDrivePowers
+		double strafePower = xVelocity / maxWheelVelocity + strafePid.calculate(xError);
+		double drivePower = yVelocity / maxWheelVelocity + drivePid.calculate(yError);
+		double turnPower = turnPid.calculate(angleError)
+				+ profile.getAngularVelocity() * profile.getRotationFactor() / maxWheelVelocity;
+
+		double[] wheelSpeeds = MecanumDrive.calculateDrivePowers(
+				drivePower, strafePower, turnPower
+		);
+		scaleSpeeds(wheelSpeeds, 1.0);
+		setMotorPowers(wheelSpeeds);
+	}
+
+	/**
+	 * Moves the robot to a given point by following a {@link SynchronizedProfile}
+	 * @param goal the position the robot should reach
+	 * @param xErrorRange the error range for the horizontal direction
+	 * @param yErrorRange the error range for the vertical direction
+	 * @param angleErrorRange the error range for the rotational axis
+	 * @return false if the robot is already at the goal position, true if the robot has just
+	 *         reached the new position
+	 */
+	public boolean profiledStopAt(MovementData goal, double xErrorRange, double yErrorRange,
+	                              Angle angleErrorRange) {
+		return profiledStopAt(goal, new MovementData(xErrorRange, yErrorRange, angleErrorRange));
+	}
+
+	/**
+	 * Moves the robot to a given point by following a {@link SynchronizedProfile} using the
+	 * default errors
+	 * @param goal the position the robot should reach
+	 * @return false if the robot is already at the goal position, true if the robot has just
+	 *         reached the new position
+	 */
+	public boolean profiledStopAt(MovementData goal) {
+		return profiledStopAt(goal, defaultErrorX, defaultErrorY, defaultErrorAngle);
+	}
+
+	/**
+	 * Starts moving the robot to a given point using a PID Loop, without waiting for it to arrive.
+	 * The move is run by the {@link CommandScheduler}, and interrupts any other move.
+	 * @param goal the position the robot should reach
+	 * @param maxVelocity the maximum rotational movement of the wheel to reach
+	 * @param errorRange the error range of movement
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move stopAtAsync(MovementData goal, double maxVelocity, MovementData errorRange) {
+		return schedule(new PidMove(goal, maxVelocity, errorRange));
+	}
+
+	/**
+	 * Starts moving the robot to a given point using a PID Loop using the default errors
+	 * @param goal the position the robot should reach
+	 * @param maxVelocity the maximum rotational movement of the wheel to reach
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move stopAtAsync(MovementData goal, double maxVelocity) {
+		return stopAtAsync(
+				goal, maxVelocity, new MovementData(defaultErrorX, defaultErrorY, defaultErrorAngle)
+		);
+	}
+
+	/**
+	 * Starts moving the robot to a given point using a PID Loop using the default errors and
+	 * velocity
+	 * @param goal the position the robot should reach
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move stopAtAsync(MovementData goal) {
+		return stopAtAsync(goal, defaultMaxVelocity);
+	}
+
+	/**
+	 * Starts moving the robot to a given point by following a {@link SynchronizedProfile}, without
+	 * waiting for it to arrive. The profile is planned when the move starts.
+	 * @param goal the position the robot should reach
+	 * @param errorRange the error range of movement
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move profiledStopAtAsync(MovementData goal, MovementData errorRange) {
+		return schedule(new ProfiledMove(goal, errorRange));
+	}
+
+	/**
+	 * Starts moving the robot to a given point by following a {@link SynchronizedProfile} using the
+	 * default errors
+	 * @param goal the position the robot should reach
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move profiledStopAtAsync(MovementData goal) {
+		return profiledStopAtAsync(goal, new MovementData(defaultErrorX, defaultErrorY, defaultErrorAngle));
+	}
+
+	/**
+	 * Schedules a move on the {@link CommandScheduler}, watched by a copy of the move watchdog
+	 * @param move the move
+	 * @return the move
+	 */
+	private Move schedule(Move move) {
+		if (moveWatchdog != null) move.watchedBy(new MoveWatchdog(moveWatchdog));
+		CommandScheduler.getInstance().schedule(move);
+		return move;
+	}
+
+	/**
+	 * Drives the robot through a list of waypoints. The robot only slows down for the waypoints
+	 * which are marked as stops (and the last one): the others are driven through, aiming at a
+	 * point {@link #lookaheadRadius} ahead along the path so that the corners are rounded off
+	 * instead of stopping at each one.
+	 * <p>
+	 * The speed comes from the drive PID Loop on the distance left to the next stop, so it only
+	 * drops near the stops, and the turn PID Loop turns towards the angle of the next waypoint.
+	 * <p>
+	 * The {@link MoveWatchdog} watches the distance left along the whole path. Trying again just
+	 * carries on from where the robot is, and {@link #getLastMoveStatus()} tells how it ended.
+	 * @param maxVelocity the maximum velocity
+	 * @param waypoints the waypoints to drive through, in order
+	 */
+	public void followWaypoints(double maxVelocity, List<Waypoint> waypoints) {
+		int count = waypoints.size();
+		if (count == 0) return;
+
+		// The path starts at the robot, and distances are measured along the path from there
+		double[] pathX = new double[count + 1];
+		double[] pathY = new double[count + 1];
+		double[] distances = new double[count + 1];
+		pathX[0] = activeLocation.getFieldX();
+		pathY[0] = activeLocation.getFieldY();
+		for (int i = 1; i <= count; i++) {
+			MovementData position = waypoints.get(i - 1).getPosition();
+			pathX[i] = position.getX();
+			pathY[i] = position.getY();
+			distances[i] = distances[i - 1] + Math.hypot(pathX[i] - pathX[i - 1], pathY[i] - pathY[i - 1]);
+		}
+
+		MovementData defaultTolerance = new MovementData(defaultErrorX, defaultErrorY, defaultErrorAngle);
+		startMove();
+		MoveWatchdog watchdog = startWatchdog(distances[count]);
+
+		// The end of the segment being followed
+		int segment = 1;
+		while (segment <= count) {
+			if (driveClaim.isLost()) {
+				endMove(Move.Status.CANCELLED);
+				return;
+			}
+			Waypoint end = waypoints.get(segment - 1);
+			MovementData tolerance = end.getTolerance() != null ? end.getTolerance() : defaultTolerance;
+			boolean stopsAtEnd = end.isStop() || segment == count;
+
+			double x = activeLocation.getFieldX();
+			double y = activeLocation.getFieldY();
+			double angle = activeLocation.getAngle();
+
+			// How far the robot is along the segment
+			double segmentLength = distances[segment] - distances[segment - 1];
+			double along = 0;
+			if (segmentLength > 0) {
+				along = ((x - pathX[segment - 1]) * (pathX[segment] - pathX[segment - 1])
+						+ (y - pathY[segment - 1]) * (pathY[segment] - pathY[segment - 1])) / segmentLength;
+				along = Math.max(0, Math.min(segmentLength, along));
+			}
+
+			if (stopsAtEnd) {
+				if (arrivedAt(end.getPosition(), tolerance)) {
+					turnOff();
+					segment++;
+					continue;
+				}
+			} else if (along >= segmentLength
+					|| (Math.abs(x - pathX[segment]) < tolerance.getX()
+					&& Math.abs(y - pathY[segment]) < tolerance.getY())) {
+				segment++;
+				continue;
+			}
+
+			// The next waypoint the robot stops at
+			int stop = segment;
+			while (stop < count && !waypoints.get(stop - 1).isStop()) stop++;
+
+			// Aims ahead along the path, but not past the next stop
+			double aimDistance = Math.min(distances[segment - 1] + along + lookaheadRadius, distances[stop]);
+			int aimSegment = segment;
+			while (aimSegment < stop && distances[aimSegment] < aimDistance) aimSegment++;
+			double aimLength = distances[aimSegment] - distances[aimSegment - 1];
+			double fraction = aimLength > 0 ? (aimDistance - distances[aimSegment - 1]) / aimLength : 1;
+			double aimX = pathX[aimSegment - 1] + fraction * (pathX[aimSegment] - pathX[aimSegment - 1]);
+			double aimY = pathY[aimSegment - 1] + fraction * (pathY[aimSegment] - pathY[aimSegment - 1]);
+
+			double deltaX = aimX - x;
+			double deltaY = aimY - y;
+			double aimError = Math.hypot(deltaX, deltaY);
+			double remaining = aimError + distances[stop] - aimDistance;
+			double speed = Math.min(maxVelocity, Math.abs(drivePid.calculate(remaining)));
+
+			// Turns the direction to the aim point into the robot's frame, like PathFinder
+			double strafePower = 0;
+			double drivePower = 0;
+			if (aimError > 0) {
+				double cos = Math.cos(angle);
+				double sin = Math.sin(angle);
+				strafePower = speed * (deltaX * cos + deltaY * sin) / aimError;
+				drivePower = speed * (deltaY * cos - deltaX * sin) / aimError;
+			}
+			double turnPower = turnPid.calculate(wrapAngle(end.getPosition().getAngleInRadians() - angle));
+
+			double[] wheelSpeeds = MecanumDrive.calculateDrivePowers(
+					drivePower, strafePower, turnPower
+			);
+			scaleSpeeds(wheelSpeeds, maxVelocity);
+			setMotorPowers(wheelSpeeds);
+			if (watchdog == null) continue;
+
+			double pathLeft = distances[count] - distances[segment - 1] - along;
+			double endDistance = Math.hypot(pathX[count] - x, pathY[count] - y);
+			MoveWatchdog.Action action = watchdog.check(Math.max(pathLeft, endDistance));
+			if (action != MoveWatchdog.Action.CONTINUE && action != MoveWatchdog.Action.RETRY) {
+				turnOff();
+				endMove(stoppedStatus(action));
+				return;
+			}
+		}
+		endMove(Move.Status.ARRIVED);
+	}
+
+	/**
+	 * Drives the robot through a list of waypoints using the default maximum velocity
+	 * @param waypoints the waypoints to drive through, in order
+	 */
+	public void followWaypoints(List<Waypoint> waypoints) {
+		followWaypoints(defaultMaxVelocity, waypoints);
+	}
+
+	/**
+	 * Drives the robot through waypoints using the default maximum velocity
+	 * @param waypoints the waypoints to drive through, in order
+	 */
+	public void followWaypoints(Waypoint... waypoints) {
+		followWaypoints(defaultMaxVelocity, Arrays.asList(waypoints));
+	}
+
+	/**
+	 * Drives the robot along a path with a {@link ProfiledPathFollower}, which drives at the speeds
+	 * planned from the path's corners instead of slowing down at every point, then stops. The
+	 * {@link MoveWatchdog} watches the distance left along the path, and trying again starts the
+	 * follower from rest where the robot is.
+	 * @param follower the follower for the path
+	 */
+	public void followProfiledPath(ProfiledPathFollower follower) {
+		double[] powers = new double[3];
+		startMove();
+		MoveWatchdog watchdog = startWatchdog(
+				follower.getRemainingDistance(activeLocation.getFieldX(), activeLocation.getFieldY())
+		);
+		while (!follower.isFinished(activeLocation.getFieldX(), activeLocation.getFieldY())) {
+			if (driveClaim.isLost()) {
+				endMove(Move.Status.CANCELLED);
+				return;
+			}
+			follower.update(
+					activeLocation.getFieldX(), activeLocation.getFieldY(), activeLocation.getAngle(),
+					powers
+			);
+			double[] wheelSpeeds = MecanumDrive.calculateDrivePowers(powers[0], powers[1], powers[2]);
+			scaleSpeeds(wheelSpeeds, 1.0);
+			setMotorPowers(wheelSpeeds);
+			if (watchdog == null) continue;
+
+			MoveWatchdog.Action action = watchdog.check(
+					follower.getRemainingDistance(activeLocation.getFieldX(), activeLocation.getFieldY())
+			);
+			if (action == MoveWatchdog.Action.RETRY) {
+				follower.reset();
+			} else if (action != MoveWatchdog.Action.CONTINUE) {
+				turnOff();
+				endMove(stoppedStatus(action));
+				return;
+			}
+		}
+		turnOff();
+		endMove(Move.Status.ARRIVED);
+	}
+
+	/**
+	 * Drives the robot along an ftclib trajectory with a {@link TrajectoryFollower}, which follows
+	 * the trajectory's planned speeds by time and corrects for the robot's position, then stops.
+	 * The {@link MoveWatchdog} watches the distance left along the trajectory. The trajectory's
+	 * clock isn't started again when trying again, so the robot carries on towards where the
+	 * trajectory is now.
+	 * @param follower the follower for the trajectory
+	 */
+	public void followTrajectory(TrajectoryFollower follower) {
+		double[] powers = new double[3];
+		follower.start();
+		startMove();
+		MoveWatchdog watchdog = startWatchdog(
+				follower.getRemainingDistance(activeLocation.getFieldX(), activeLocation.getFieldY())
+		);
+		while (!follower.isFinished(activeLocation.getFieldX(), activeLocation.getFieldY())) {
+			if (driveClaim.isLost()) {
+				endMove(Move.Status.CANCELLED);
+				return;
+			}
+			follower.update(
+					activeLocation.getFieldX(), activeLocation.getFieldY(), activeLocation.getAngle(),
+					powers
+			);
+			double[] wheelSpeeds = MecanumDrive.calculateDrivePowers(powers[0], powers[1], powers[2]);
+			scaleSpeeds(wheelSpeeds, 1.0);
+			setMotorPowers(wheelSpeeds);
+			if (watchdog == null) continue;
+
+			MoveWatchdog.Action action = watchdog.check(
+					follower.getRemainingDistance(activeLocation.getFieldX(), activeLocation.getFieldY())
+			);
+			if (action != MoveWatchdog.Action.CONTINUE && action != MoveWatchdog.Action.RETRY) {
+				turnOff();
+				endMove(stoppedStatus(action));
+				return;
+			}
+		}
+		turnOff();
+		endMove(Move.Status.ARRIVED);
+	}
+
+	/**
+	 * Wraps an angle change to the shortest turn, between -π and π
+	 * @param angle the angle change in radians
+	 * @return the wrapped angle change
+	 */
+	private static double wrapAngle(double angle) {
+		angle %= TAU;
+		if (angle > PI) return angle - TAU;
+		if (angle < -PI) return angle + TAU;
+		return angle;
+	}
+
 	/**
 	 * Rotates the robot to a new {@link Angle}, maintaining the other field positions
 	 * @param angle the goal angle to reach
@@ -476,4 +1136,194 @@ public class AutoDrivingNew {
 	public boolean rotateTo(Angle angle, double maxVelocity) {
 		return rotateTo(angle, maxVelocity, defaultErrorX, defaultErrorY, defaultErrorAngle);
 	}
+
+	/**
+	 * Starts rotating the robot to a new {@link Angle}, keeping the field position it has now,
+	 * without waiting for it to finish
+	 * @param angle the goal angle to reach
+	 * @param maxVelocity the maximum velocity to reach
+	 * @param angleErrorRange the permitted error range for the angle
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move rotateToAsync(Angle angle, double maxVelocity, Angle angleErrorRange) {
+		return stopAtAsync(
+				new MovementData(activeLocation.getFieldX(), activeLocation.getFieldY(), angle),
+				maxVelocity,
+				new MovementData(defaultErrorX, defaultErrorY, angleErrorRange)
+		);
+	}
+
+	/**
+	 * Starts rotating the robot to a new {@link Angle} using the default errors
+	 * @param angle the goal angle to reach
+	 * @param maxVelocity the maximum velocity to reach
+	 * @return the move, which can be checked on or cancelled
+	 */
+	public Move rotateToAsync(Angle angle, double maxVelocity) {
+		return rotateToAsync(angle, maxVelocity, defaultErrorAngle);
+	}
+
+	/**
+	 * A {@link #stopAt} move run by the scheduler
+	 */
+	private final class PidMove extends Move {
+		private final MovementData goal;
+		private final double maxVelocity;
+		private final MovementData errorRange;
+		private double startDistance;
+		private double startAngleError;
+
+		PidMove(MovementData goal, double maxVelocity, MovementData errorRange) {
+			this.goal = goal;
+			this.maxVelocity = maxVelocity;
+			this.errorRange = errorRange;
+			addRequirements(AutoDrivingNew.this);
+		}
+
+		@Override
+		protected void start() {
+			pathFinder.setDestination(goal);
+			startDistance = distanceToGoal();
+			startAngleError = angleToGoal();
+		}
+
+		@Override
+		protected void restart() {
+			start();
+			resetPids();
+		}
+
+		@Override
+		protected double step() {
+			stopAtStep(maxVelocity);
+
+			// The progress is held back by whichever of moving and turning is further behind
+			double moved = startDistance > 0 ? 1 - distanceToGoal() / startDistance : 1;
+			double turned = startAngleError > 0 ? 1 - angleToGoal() / startAngleError : 1;
+			return Math.min(moved, turned);
+		}
+
+		@Override
+		protected boolean hasArrived() {
+			return arrivedAt(goal, errorRange);
+		}
+
+		@Override
+		protected double remainingError() {
+			return AutoDrivingNew.this.remainingError(goal);
+		}
+
+		@Override
+		protected void stop() {
+			turnOff();
+		}
+
+		private double distanceToGoal() {
+			return Math.hypot(
+					goal.getX() - activeLocation.getFieldX(), goal.getY() - activeLocation.getFieldY()
+			);
+		}
+
+		private double angleToGoal() {
+			return Math.abs(wrapAngle(goal.getAngleInRadians() - activeLocation.getAngle()));
+		}
+	}
+
+	/**
+	 * A {@link #profiledStopAt} move run by the scheduler
+	 */
+	private final class ProfiledMove extends Move {
+		private final MovementData goal;
+		private final MovementData errorRange;
+		private final ElapsedTime timer = new ElapsedTime();
+		private SynchronizedProfile moveProfile;
+
+		ProfiledMove(MovementData goal, MovementData errorRange) {
+			this.goal = goal;
+			this.errorRange = errorRange;
+			addRequirements(AutoDrivingNew.this);
+		}
+
+		@Override
+		protected void start() {
+			// Keeps the profile it was planned with if the limits are changed during the move
+			moveProfile = profile;
+			double startAngle = activeLocation.getAngle();
+			moveProfile.plan(
+					activeLocation.getFieldX(), activeLocation.getFieldY(), startAngle,
+					goal.getX(), goal.getY(), wrapAngle(goal.getAngleInRadians() - startAngle)
+			);
+			timer.reset();
+		}
+
+		@Override
+		protected void restart() {
+			start();
+			resetPids();
+		}
+
+		@Override
+		protected double remainingError() {
+			return AutoDrivingNew.this.remainingError(goal);
+		}
+
+		@Override
+		protected double step() {
+			double time = timer.seconds();
+			profiledStep(moveProfile, time);
+			return moveProfile.totalTime() > 0 ? time / moveProfile.totalTime() : 1;
+		}
+
+		@Override
+		protected boolean hasArrived() {
+			return moveProfile.isFinished(timer.seconds()) && arrivedAt(goal, errorRange);
+		}
+
+		@Override
+		protected void stop() {
+			turnOff();
+		}
+	}
+
+	/**
+	 * A command which needs the drive while a blocking move runs, so a move scheduled meanwhile
+	 * interrupts it instead of driving the motors at the same time. The blocking move stops once
+	 * its claim is lost.
+	 */
+	private final class DriveClaim extends CommandBase {
+		private volatile boolean lost = false;
+
+		DriveClaim() {
+			addRequirements(AutoDrivingNew.this);
+		}
+
+		/**
+		 * Schedules the claim, which cancels the move using the drive
+		 */
+		void claim() {
+			lost = false;
+			CommandScheduler.getInstance().schedule(this);
+		}
+
+		/**
+		 * Cancels the claim, if it is still held
+		 */
+		void release() {
+			CommandScheduler scheduler = CommandScheduler.getInstance();
+			if (scheduler.isScheduled(this)) scheduler.cancel(this);
+		}
+
+		/**
+		 * @return whether another move was scheduled, or the moves were stopped, since the claim
+		 *         was made
+		 */
+		boolean isLost() {
+			return lost;
+		}
+
+		@Override
+		public void end(boolean interrupted) {
+			lost = true;
+		}
+	}
 }
@@ -0,0 +1,375 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.purepursuit.Path;
+import org.firstinspires.ftc.teamcode.java.util.MovementData;
+
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
+
+/**
+ * A path of straight segments which is worked out once, so followers can work with the distance
+ * along the path instead of recalculating the geometry every loop.
+ * <p>
+ * The points, segment lengths, distance along the path to each point, segment directions, the
+ * headings at the points and the curvature of the corners are kept in flat arrays. Finding the
+ * point at a distance is a binary search, and finding the closest point on the path searches a
+ * tree of segment bounding boxes, so both take O(log n) time for n points. None of the queries
+ * allocate.
+ * <p>
+ * The headings are the angles given with the points (for example the angle of a
+ * {@link MovementData}), and are blended along each segment the shortest way round.
+ */
+public class CompiledPath {
+	private final int pointCount;
+	private final double[] x;
+	private final double[] y;
+	private final double[] headings;
+
+	/**
+	 * The segment from point i - 1 to point i is segment i, so these are indexed from 1
+	 */
+	private final double[] lengths;
+	private final double[] directions;
+
+	/**
+	 * The distance along the path to each point
+	 */
+	private final double[] distances;
+
+	/**
+	 * The curvature of the corner at each point, which is 0 at the ends
+	 */
+	private final double[] curvatures;
+
+	/**
+	 * The bounding box tree. Node 1 holds every segment, and node k has the children 2k and 2k + 1,
+	 * each holding half of its segments.
+	 */
+	private final double[] nodeMinX, nodeMaxX, nodeMinY, nodeMaxY;
+	private final int[] nodeFirst, nodeLast;
+	private final int[] stack;
+
+	/**
+	 * Creates a path through points
+	 * @param x the x positions of the points
+	 * @param y the y positions of the points
+	 * @param headings the heading at each point (radians)
+	 * @throws IllegalArgumentException if there are no points, or the arrays have different lengths
+	 */
+	public CompiledPath(double[] x, double[] y, double[] headings) {
+		if (x.length == 0)
+			throw new IllegalArgumentException("A path must have at least one point");
+		if (y.length != x.length || headings.length != x.length)
+			throw new IllegalArgumentException("There must be the same number of x, y and heading values");
+
+		pointCount = x.length;
+		this.x = x.clone();
+		this.y = y.clone();
+		this.headings = headings.clone();
+
+		lengths = new double[pointCount];
+		directions = new double[pointCount];
+		distances = new double[pointCount];
+		for (int i = 1; i < pointCount; i++) {
+			double deltaX = x[i] - x[i - 1];
+			double deltaY = y[i] - y[i - 1];
+			lengths[i] = Math.hypot(deltaX, deltaY);
+			directions[i] = Math.atan2(deltaY, deltaX);
+			distances[i] = distances[i - 1] + lengths[i];
+		}
+
+		// The change in direction at each corner spread over the segments on either side
+		curvatures = new double[pointCount];
+		for (int i = 1; i < pointCount - 1; i++) {
+			if (lengths[i] == 0 || lengths[i + 1] == 0) continue;
+
+			double spread = (lengths[i] + lengths[i + 1]) / 2;
+			double turn = (directions[i + 1] - directions[i]) % TAU;
+			if (turn > PI) turn -= TAU;
+			if (turn < -PI) turn += TAU;
+			curvatures[i] = Math.abs(turn) / spread;
+		}
+
+		int nodes = 2;
+		while (nodes < 2 * Math.max(1, pointCount - 1)) nodes *= 2;
+		nodes *= 2;
+		nodeMinX = new double[nodes];
+		nodeMaxX = new double[nodes];
+		nodeMinY = new double[nodes];
+		nodeMaxY = new double[nodes];
+		nodeFirst = new int[nodes];
+		nodeLast = new int[nodes];
+		if (pointCount > 1) build(1, 1, pointCount - 1);
+
+		// Each level of the tree leaves at most one node on the stack
+		int depth = 1;
+		while ((1 << depth) < nodes) depth++;
+		stack = new int[depth + 2];
+	}
+
+	/**
+	 * Compiles an ftclib pure pursuit {@link Path}, using the pose of each waypoint
+	 * @param path the path to compile
+	 * @return the compiled path
+	 */
+	public static CompiledPath fromPath(Path path) {
+		double[] x = new double[path.size()];
+		double[] y = new double[path.size()];
+		double[] headings = new double[path.size()];
+		for (int i = 0; i < path.size(); i++) {
+			Pose2d pose = path.get(i).getPose();
+			x[i] = pose.getTranslation().getX();
+			y[i] = pose.getTranslation().getY();
+			headings[i] = pose.getHeading();
+		}
+		return new CompiledPath(x, y, headings);
+	}
+
+	/**
+	 * Compiles a list of field positions
+	 * @param points the positions to go through, in order
+	 * @return the compiled path
+	 */
+	public static CompiledPath fromMovementData(List<MovementData> points) {
+		double[] x = new double[points.size()];
+		double[] y = new double[points.size()];
+		double[] headings = new double[points.size()];
+		for (int i = 0; i < points.size(); i++) {
+			MovementData point = points.get(i);
+			x[i] = point.getX();
+			y[i] = point.getY();
+			headings[i] = point.getAngleInRadians();
+		}
+		return new CompiledPath(x, y, headings);
+	}
+
+	/**
+	 * Fills in the bounding boxes of a node and its children
+	 */
+	private void build(int node, int first, int last) {
+		nodeFirst[node] = first;
+		nodeLast[node] = last;
+		if (first == last) {
+			nodeMinX[node] = Math.min(x[first - 1], x[first]);
+			nodeMaxX[node] = Math.max(x[first - 1], x[first]);
+			nodeMinY[node] = Math.min(y[first - 1], y[first]);
+			nodeMaxY[node] = Math.max(y[first - 1], y[first]);
+			return;
+		}
+
+		int middle = (first + last) / 2;
+		build(2 * node, first, middle);
+		build(2 * node + 1, middle + 1, last);
+		nodeMinX[node] = Math.min(nodeMinX[2 * node], nodeMinX[2 * node + 1]);
+		nodeMaxX[node] = Math.max(nodeMaxX[2 * node], nodeMaxX[2 * node + 1]);
+		nodeMinY[node] = Math.min(nodeMinY[2 * node], nodeMinY[2 * node + 1]);
+		nodeMaxY[node] = Math.max(nodeMaxY[2 * node], nodeMaxY[2 * node + 1]);
+	}
+
+	/**
+	 * @return the number of points on the path
+	 */
+	public int size() {
+		return pointCount;
+	}
+
+	/**
+	 * @return the total length of the path
+	 */
+	public double getLength() {
+		return distances[pointCount - 1];
+	}
+
+	public double getPointX(int index) {
+		return x[index];
+	}
+
+	public double getPointY(int index) {
+		return y[index];
+	}
+
+	public double getPointHeading(int index) {
+		return headings[index];
+	}
+
+	/**
+	 * @param index the index of the point
+	 * @return the distance along the path to the point
+	 */
+	public double getPointDistance(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * @param index the index of the point
+	 * @return the curvature of the corner at the point (radians per unit of distance)
+	 */
+	public double getPointCurvature(int index) {
+		return curvatures[index];
+	}
+
+	/**
+	 * @param segment the segment, from 1 to size() - 1
+	 * @return the length of the segment
+	 */
+	public double getSegmentLength(int segment) {
+		return lengths[segment];
+	}
+
+	/**
+	 * @param segment the segment, from 1 to size() - 1
+	 * @return the direction of travel along the segment (radians)
+	 */
+	public double getSegmentDirection(int segment) {
+		return directions[segment];
+	}
+
+	/**
+	 * Finds the segment which a distance along the path falls on with a binary search
+	 * @param distance the distance along the path
+	 * @return the segment, from 1 to size() - 1, or 0 if the path is a single point
+	 */
+	public int segmentAt(double distance) {
+		if (pointCount < 2) return 0;
+
+		int low = 1;
+		int high = pointCount - 1;
+		while (low < high) {
+			int middle = (low + high) / 2;
+			if (distances[middle] < distance) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param segment the segment the distance is on
+	 * @param distance the distance along the path
+	 * @return how far along the segment the distance is, from 0 to 1
+	 */
+	private double fractionAlong(int segment, double distance) {
+		if (lengths[segment] == 0) return 1;
+		return Math.max(0, Math.min(1, (distance - distances[segment - 1]) / lengths[segment]));
+	}
+
+	public double getX(double distance) {
+		int segment = segmentAt(distance);
+		if (segment == 0) return x[0];
+		return x[segment - 1] + fractionAlong(segment, distance) * (x[segment] - x[segment - 1]);
+	}
+
+	public double getY(double distance) {
+		int segment = segmentAt(distance);
+		if (segment == 0) return y[0];
+		return y[segment - 1] + fractionAlong(segment, distance) * (y[segment] - y[segment - 1]);
+	}
+
+	/**
+	 * @param distance the distance along the path
+	 * @return the heading at the distance, blended between the points on either side (radians)
+	 */
+	public double getHeading(double distance) {
+		int segment = segmentAt(distance);
+		if (segment == 0) return headings[0];
+
+		double change = (headings[segment] - headings[segment - 1]) % TAU;
+		if (change > PI) change -= TAU;
+		if (change < -PI) change += TAU;
+		return headings[segment - 1] + fractionAlong(segment, distance) * change;
+	}
+
+	/**
+	 * @param distance the distance along the path
+	 * @return the direction of travel at the distance (radians)
+	 */
+	public double getDirection(double distance) {
+		return directions[segmentAt(distance)];
+	}
+
+	/**
+	 * Finds the point at a distance along the path
+	 * @param distance the distance along the path, which is limited to the ends of the path
+	 * @param result an array of at least 2 which the x and y positions are written into
+	 * @return the result array
+	 */
+	public double[] pointAt(double distance, double[] result) {
+		int segment = segmentAt(distance);
+		if (segment == 0) {
+			result[0] = x[0];
+			result[1] = y[0];
+			return result;
+		}
+
+		double fraction = fractionAlong(segment, distance);
+		result[0] = x[segment - 1] + fraction * (x[segment] - x[segment - 1]);
+		result[1] = y[segment - 1] + fraction * (y[segment] - y[segment - 1]);
+		return result;
+	}
+
+	/**
+	 * Finds the point on the path closest to a position by searching the bounding box tree, skipping
+	 * any box which is further away than the closest point found so far
+	 * @param pointX the x position
+	 * @param pointY the y position
+	 * @return the distance along the path to the closest point
+	 */
+	public double closestDistance(double pointX, double pointY) {
+		if (pointCount < 2) return 0;
+
+		double bestSquared = Double.POSITIVE_INFINITY;
+		double bestDistance = 0;
+
+		int top = 0;
+		stack[top++] = 1;
+		while (top > 0) {
+			int node = stack[--top];
+			if (boxDistanceSquared(node, pointX, pointY) >= bestSquared) continue;
+
+			if (nodeFirst[node] == nodeLast[node]) {
+				int segment = nodeFirst[node];
+				double fraction = 0;
+				if (lengths[segment] > 0) {
+					fraction = ((pointX - x[segment - 1]) * (x[segment] - x[segment - 1])
+							+ (pointY - y[segment - 1]) * (y[segment] - y[segment - 1]))
+							/ (lengths[segment] * lengths[segment]);
+					fraction = Math.max(0, Math.min(1, fraction));
+				}
+				double deltaX = x[segment - 1] + fraction * (x[segment] - x[segment - 1]) - pointX;
+				double deltaY = y[segment - 1] + fraction * (y[segment] - y[segment - 1]) - pointY;
+				double squared = deltaX * deltaX + deltaY * deltaY;
+				if (squared < bestSquared) {
+					bestSquared = squared;
+					bestDistance = distances[segment - 1] + fraction * lengths[segment];
+				}
+				continue;
+			}
+
+			// Searches the nearer child first, so more of the other one can be skipped
+			int left = 2 * node;
+			int right = 2 * node + 1;
+			if (boxDistanceSquared(left, pointX, pointY) <= boxDistanceSquared(right, pointX, pointY)) {
+				stack[top++] = right;
+				stack[top++] = left;
+			} else {
+				stack[top++] = left;
+				stack[top++] = right;
+			}
+		}
+		return bestDistance;
+	}
+
+	/**
+	 * @return the squared distance from a position to the bounding box of a node, or 0 if it is inside
+	 */
+	private double boxDistanceSquared(int node, double pointX, double pointY) {
+		double deltaX = Math.max(0, Math.max(nodeMinX[node] - pointX, pointX - nodeMaxX[node]));
+		double deltaY = Math.max(0, Math.max(nodeMinY[node] - pointY, pointY - nodeMaxY[node]));
+		return deltaX * deltaX + deltaY * deltaY;
+	}
+}
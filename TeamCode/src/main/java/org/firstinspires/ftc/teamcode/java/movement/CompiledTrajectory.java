@@ -0,0 +1,231 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.trajectory.Trajectory;
+
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
+
+/**
+ * An ftclib {@link Trajectory} kept as flat arrays, so it can be sampled every loop without
+ * allocating.
+ * <p>
+ * The time, velocity, acceleration, x, y, heading, curvature and distance along the trajectory of
+ * every state are kept in parallel arrays. Between two states the sample is worked out like ftclib's interpolation: the
+ * velocity changes at the first state's acceleration, and the pose is blended by the distance
+ * travelled. A trajectory made with {@link #resample(Trajectory, double)} has its states a fixed
+ * time apart, so the states around a time are found by division instead of a binary search.
+ * <p>
+ * Samples are written into a double array of {@link #sampleSize}, read with the index constants.
+ * Units are the trajectory's (meters, seconds and radians).
+ */
+public class CompiledTrajectory {
+	/**
+	 * The indices of the values in a sample
+	 */
+	public static final int timeIndex = 0;
+	public static final int velocityIndex = 1;
+	public static final int accelerationIndex = 2;
+	public static final int xIndex = 3;
+	public static final int yIndex = 4;
+	public static final int headingIndex = 5;
+	public static final int curvatureIndex = 6;
+	public static final int distanceIndex = 7;
+	public static final int sampleSize = 8;
+
+	private final int stateCount;
+	private final double[] times;
+	private final double[] velocities;
+	private final double[] accelerations;
+	private final double[] x;
+	private final double[] y;
+	private final double[] headings;
+	private final double[] curvatures;
+	private final double[] distances;
+
+	/**
+	 * The time between the states, or 0 if they aren't evenly spaced
+	 */
+	private final double period;
+
+	private CompiledTrajectory(int stateCount, double period) {
+		this.stateCount = stateCount;
+		this.period = period;
+		times = new double[stateCount];
+		velocities = new double[stateCount];
+		accelerations = new double[stateCount];
+		x = new double[stateCount];
+		y = new double[stateCount];
+		headings = new double[stateCount];
+		curvatures = new double[stateCount];
+		distances = new double[stateCount];
+	}
+
+	/**
+	 * Copies the states of a trajectory
+	 * @param trajectory the trajectory
+	 * @return the compiled trajectory
+	 */
+	public static CompiledTrajectory fromTrajectory(Trajectory trajectory) {
+		List<Trajectory.State> states = trajectory.getStates();
+		CompiledTrajectory compiled = new CompiledTrajectory(states.size(), 0);
+		for (int i = 0; i < states.size(); i++) {
+			compiled.set(i, states.get(i));
+		}
+		compiled.measureDistances();
+		return compiled;
+	}
+
+	/**
+	 * Samples a trajectory at a fixed period, so the compiled trajectory can be sampled without a
+	 * search. The last state is at the end of the trajectory, which can be less than a period after
+	 * the one before it. Samples between the new states cut the corners of the original slightly,
+	 * by a few mm at most with a 5 ms period.
+	 * @param trajectory the trajectory
+	 * @param period the time between the states, in seconds
+	 * @return the compiled trajectory
+	 * @throws IllegalArgumentException if the period isn't positive
+	 */
+	public static CompiledTrajectory resample(Trajectory trajectory, double period) {
+		if (!(period > 0)) throw new IllegalArgumentException("The period must be positive");
+
+		double totalTime = trajectory.getTotalTimeSeconds();
+		int stateCount = (int) Math.ceil(totalTime / period) + 1;
+		CompiledTrajectory compiled = new CompiledTrajectory(stateCount, period);
+		for (int i = 0; i < stateCount; i++) {
+			compiled.set(i, trajectory.sample(Math.min(i * period, totalTime)));
+		}
+		compiled.measureDistances();
+		return compiled;
+	}
+
+	private void set(int index, Trajectory.State state) {
+		Pose2d pose = state.poseMeters;
+		times[index] = state.timeSeconds;
+		velocities[index] = state.velocityMetersPerSecond;
+		accelerations[index] = state.accelerationMetersPerSecondSq;
+		x[index] = pose.getX();
+		y[index] = pose.getY();
+		headings[index] = pose.getRotation().getRadians();
+		curvatures[index] = state.curvatureRadPerMeter;
+	}
+
+	/**
+	 * Adds up the distance along the trajectory to each state
+	 */
+	private void measureDistances() {
+		for (int i = 1; i < stateCount; i++) {
+			distances[i] = distances[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+		}
+	}
+
+	public int size() {
+		return stateCount;
+	}
+
+	public double getTotalTime() {
+		return times[stateCount - 1];
+	}
+
+	/**
+	 * @return the distance along the whole trajectory, in meters
+	 */
+	public double getTotalDistance() {
+		return distances[stateCount - 1];
+	}
+
+	/**
+	 * @return whether the states are a fixed time apart
+	 */
+	public boolean isUniform() {
+		return period > 0;
+	}
+
+	public double getStateTime(int index) {
+		return times[index];
+	}
+
+	public double getStateX(int index) {
+		return x[index];
+	}
+
+	public double getStateY(int index) {
+		return y[index];
+	}
+
+	public double getStateHeading(int index) {
+		return headings[index];
+	}
+
+	/**
+	 * Finds the state at a time
+	 * @param time the time since the start of the trajectory, in seconds
+	 * @param sample an array of at least {@link #sampleSize} which the state is written into
+	 * @return the sample array
+	 */
+	public double[] sampleInto(double time, double[] sample) {
+		if (time <= times[0]) return copyState(0, sample);
+		if (time >= times[stateCount - 1]) return copyState(stateCount - 1, sample);
+
+		// The state at or after the time, from 1 so there is always a state before it
+		int next;
+		if (period > 0) {
+			next = Math.min(stateCount - 1, Math.max(1, (int) (time / period) + 1));
+		} else {
+			int low = 1;
+			int high = stateCount - 1;
+			while (low != high) {
+				int middle = (low + high) >>> 1;
+				if (times[middle] < time) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			next = low;
+		}
+		int previous = next - 1;
+
+		double duration = times[next] - times[previous];
+		if (Math.abs(duration) < 1e-9) return copyState(next, sample);
+
+		// Like ftclib's interpolation, the velocity changes at the first state's acceleration and
+		// the pose is blended by the distance covered
+		double deltaTime = time - times[previous];
+		double velocity = velocities[previous];
+		double acceleration = accelerations[previous];
+		boolean reversing = velocity < 0 || Math.abs(velocity) < 1e-9 && acceleration < 0;
+		double distance = (velocity * deltaTime + 0.5 * acceleration * deltaTime * deltaTime)
+				* (reversing ? -1 : 1);
+		double length = Math.hypot(x[next] - x[previous], y[next] - y[previous]);
+		double fraction = length > 1e-9 ? distance / length : 0;
+
+		double headingChange = (headings[next] - headings[previous]) % TAU;
+		if (headingChange > PI) headingChange -= TAU;
+		if (headingChange < -PI) headingChange += TAU;
+
+		sample[timeIndex] = time;
+		sample[velocityIndex] = velocity + acceleration * deltaTime;
+		sample[accelerationIndex] = acceleration;
+		sample[xIndex] = x[previous] + (x[next] - x[previous]) * fraction;
+		sample[yIndex] = y[previous] + (y[next] - y[previous]) * fraction;
+		sample[headingIndex] = headings[previous] + headingChange * fraction;
+		sample[curvatureIndex] = curvatures[previous] + (curvatures[next] - curvatures[previous]) * fraction;
+		sample[distanceIndex] = distances[previous] + (distances[next] - distances[previous]) * fraction;
+		return sample;
+	}
+
+	private double[] copyState(int index, double[] sample) {
+		sample[timeIndex] = times[index];
+		sample[velocityIndex] = velocities[index];
+		sample[accelerationIndex] = accelerations[index];
+		sample[xIndex] = x[index];
+		sample[yIndex] = y[index];
+		sample[headingIndex] = headings[index];
+		sample[curvatureIndex] = curvatures[index];
+		sample[distanceIndex] = distances[index];
+		return sample;
+	}
+}
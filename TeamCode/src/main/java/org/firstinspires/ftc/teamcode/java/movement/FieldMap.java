@@ -0,0 +1,338 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.firstinspires.ftc.teamcode.java.util.GoalPosition;
+import org.firstinspires.ftc.teamcode.java.util.Side;
+
+import java.util.Arrays;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.fieldSize;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.robotLength;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.robotWidth;
+
+/**
+ * An occupancy grid of the field, with the distance from every cell to the nearest obstacle.
+ * <p>
+ * Obstacles are added as rectangles and circles in field coordinates (mm), and {@link #build()}
+ * then works out the exact Euclidean distance transform of the grid, so the clearance around any
+ * point is a single lookup. The walls count as obstacles. A robot fits at a point when the
+ * clearance is at least its radius, which is half its diagonal so the heading doesn't matter.
+ * <p>
+ * Cells are marked when the shape comes close enough to their centre that every point of the shape
+ * is within half a cell diagonal of a marked centre, and the clearance has that taken off, so it is
+ * never more than the real distance.
+ */
+public class FieldMap {
+	/**
+	 * The radius of a circle around the robot
+	 */
+	public static final double robotRadius = Math.hypot(robotLength, robotWidth) / 2;
+
+	/**
+	 * The default size of a cell, in mm
+	 */
+	public static final double defaultCellSize = 50;
+
+	/**
+	 * Where the starter stack is. On the Ultimate Goal field it is 24 in from the middle of the field
+	 * towards the audience and 36 in towards the alliance's side wall, so 36 in from the side wall
+	 * and 48 in from the audience wall. A ring is 5 in across.
+	 */
+	public static final double blueRingStackX = 914.4;
+	public static final double redRingStackX = fieldSize - blueRingStackX;
+	public static final double ringStackY = 1219.2;
+	public static final double ringStackRadius = 63.5;
+
+	/**
+	 * The size of the tower goals against the back wall
+	 */
+	public static final double goalWidth = 610;
+	public static final double goalDepth = 250;
+
+	/**
+	 * The radius of a wobble goal's base
+	 */
+	public static final double wobbleGoalRadius = 101.6;
+
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	private final boolean[] occupied;
+	private final double[] clearance;
+	private boolean built = false;
+
+	/**
+	 * Creates an empty map of the field
+	 * @param cellSize the size of a cell, in mm
+	 * @throws IllegalArgumentException if the cell size isn't positive
+	 */
+	public FieldMap(double cellSize) {
+		if (!(cellSize > 0)) throw new IllegalArgumentException("The cell size must be positive");
+
+		this.cellSize = cellSize;
+		columns = (int) Math.ceil(fieldSize / cellSize);
+		rows = columns;
+		occupied = new boolean[columns * rows];
+		clearance = new double[columns * rows];
+	}
+
+	/**
+	 * Creates an empty map of the field with the {@link #defaultCellSize}
+	 */
+	public FieldMap() {
+		this(defaultCellSize);
+	}
+
+	/**
+	 * Creates a map of the Ultimate Goal field with the starter stack and the tower goals. Wobble
+	 * goals move during the match, so they can be added with {@link #addWobbleGoal(double, double)}.
+	 * The map still has to be {@link #build() built}.
+	 * @param side the alliance whose starter stack is added
+	 * @return the map
+	 */
+	public static FieldMap ultimateGoal(Side side) {
+		FieldMap map = new FieldMap();
+		double stackX = side == Side.BLUE ? blueRingStackX : redRingStackX;
+		map.addCircle(stackX, ringStackY, ringStackRadius);
+
+		double[] goalXs = {GoalPosition.blueGoalX, GoalPosition.redGoalX};
+		for (double goalX : goalXs) {
+			map.addRectangle(goalX - goalWidth / 2, fieldSize - goalDepth, goalX + goalWidth / 2, fieldSize);
+		}
+		return map;
+	}
+
+	/**
+	 * Marks a rectangle as an obstacle
+	 * @param minX the smallest x of the rectangle
+	 * @param minY the smallest y of the rectangle
+	 * @param maxX the largest x of the rectangle
+	 * @param maxY the largest y of the rectangle
+	 */
+	public void addRectangle(double minX, double minY, double maxX, double maxY) {
+		double margin = cellSize / 2;
+		int firstColumn = Math.max(0, column(minX - margin));
+		int lastColumn = Math.min(columns - 1, column(maxX + margin));
+		int firstRow = Math.max(0, row(minY - margin));
+		int lastRow = Math.min(rows - 1, row(maxY + margin));
+		for (int row = firstRow; row <= lastRow; row++) {
+			double centreY = centre(row);
+			if (centreY < minY - margin || centreY > maxY + margin) continue;
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				double centreX = centre(column);
+				if (centreX < minX - margin || centreX > maxX + margin) continue;
+				occupied[row * columns + column] = true;
+			}
+		}
+		built = false;
+	}
+
+	/**
+	 * Marks a circle as an obstacle
+	 * @param x the x of the centre
+	 * @param y the y of the centre
+	 * @param radius the radius of the circle
+	 */
+	public void addCircle(double x, double y, double radius) {
+		double reach = radius + cellSize * Math.sqrt(0.5);
+		int firstColumn = Math.max(0, column(x - reach));
+		int lastColumn = Math.min(columns - 1, column(x + reach));
+		int firstRow = Math.max(0, row(y - reach));
+		int lastRow = Math.min(rows - 1, row(y + reach));
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				if (Math.hypot(centre(column) - x, centre(row) - y) <= reach) {
+					occupied[row * columns + column] = true;
+				}
+			}
+		}
+		built = false;
+	}
+
+	/**
+	 * Marks a wobble goal as an obstacle
+	 * @param x the x of the wobble goal
+	 * @param y the y of the wobble goal
+	 */
+	public void addWobbleGoal(double x, double y) {
+		addCircle(x, y, wobbleGoalRadius);
+	}
+
+	/**
+	 * Removes every obstacle
+	 */
+	public void clear() {
+		Arrays.fill(occupied, false);
+		built = false;
+	}
+
+	/**
+	 * Works out the distance from every cell to the nearest obstacle or wall. This has to be called
+	 * after obstacles are added, and takes well under a millisecond at the default cell size.
+	 */
+	public void build() {
+		final double infinity = Double.MAX_VALUE;
+		int size = Math.max(columns, rows);
+		double[] squared = new double[columns * rows];
+		double[] line = new double[size];
+		double[] result = new double[size];
+		int[] parabolas = new int[size];
+		double[] bounds = new double[size + 1];
+
+		// Every point of an obstacle is this close to the centre of a marked cell
+		double cellReach = cellSize * Math.sqrt(0.5);
+
+		for (int i = 0; i < squared.length; i++) {
+			squared[i] = occupied[i] ? 0 : infinity;
+		}
+
+		// The squared distance in cells along the columns, then along the rows
+		for (int column = 0; column < columns; column++) {
+			for (int row = 0; row < rows; row++) line[row] = squared[row * columns + column];
+			transform(line, rows, result, parabolas, bounds);
+			for (int row = 0; row < rows; row++) squared[row * columns + column] = result[row];
+		}
+		for (int row = 0; row < rows; row++) {
+			System.arraycopy(squared, row * columns, line, 0, columns);
+			transform(line, columns, result, parabolas, bounds);
+			System.arraycopy(result, 0, squared, row * columns, columns);
+		}
+
+		for (int row = 0; row < rows; row++) {
+			double centreY = centre(row);
+			for (int column = 0; column < columns; column++) {
+				double centreX = centre(column);
+				double wall = Math.min(Math.min(centreX, fieldSize - centreX), Math.min(centreY, fieldSize - centreY));
+				int index = row * columns + column;
+				double obstacle = squared[index] >= infinity
+						? infinity : Math.sqrt(squared[index]) * cellSize - cellReach;
+				clearance[index] = Math.max(0, Math.min(wall, obstacle));
+			}
+		}
+		built = true;
+	}
+
+	/**
+	 * Finds the lower envelope of the parabolas rooted at each value, which is the squared distance
+	 * transform of a line (Felzenszwalb and Huttenlocher)
+	 */
+	private static void transform(double[] values, int count, double[] result, int[] parabolas, double[] bounds) {
+		int k = 0;
+		int first = -1;
+		for (int i = 0; i < count; i++) {
+			if (values[i] < Double.MAX_VALUE) {
+				first = i;
+				break;
+			}
+		}
+		if (first < 0) {
+			Arrays.fill(result, 0, count, Double.MAX_VALUE);
+			return;
+		}
+
+		parabolas[0] = first;
+		bounds[0] = Double.NEGATIVE_INFINITY;
+		bounds[1] = Double.POSITIVE_INFINITY;
+		for (int q = first + 1; q < count; q++) {
+			if (values[q] >= Double.MAX_VALUE) continue;
+			double intersection = intersection(values, q, parabolas[k]);
+			while (intersection <= bounds[k]) {
+				k--;
+				intersection = intersection(values, q, parabolas[k]);
+			}
+			k++;
+			parabolas[k] = q;
+			bounds[k] = intersection;
+			bounds[k + 1] = Double.POSITIVE_INFINITY;
+		}
+
+		k = 0;
+		for (int q = 0; q < count; q++) {
+			while (bounds[k + 1] < q) k++;
+			double offset = q - parabolas[k];
+			result[q] = offset * offset + values[parabolas[k]];
+		}
+	}
+
+	/**
+	 * @return where the parabolas rooted at q and p cross
+	 */
+	private static double intersection(double[] values, int q, int p) {
+		return ((values[q] + (double) q * q) - (values[p] + (double) p * p)) / (2.0 * q - 2.0 * p);
+	}
+
+	/**
+	 * @return whether the clearances are up to date with the obstacles
+	 */
+	public boolean isBuilt() {
+		return built;
+	}
+
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the cell index of a column and row
+	 */
+	public int index(int column, int row) {
+		return row * columns + column;
+	}
+
+	/**
+	 * @return the column a field x is in, which can be outside the grid
+	 */
+	public int column(double x) {
+		return (int) Math.floor(x / cellSize);
+	}
+
+	/**
+	 * @return the row a field y is in, which can be outside the grid
+	 */
+	public int row(double y) {
+		return (int) Math.floor(y / cellSize);
+	}
+
+	/**
+	 * @return the field x or y of the centre of a column or row
+	 */
+	public double centre(int cell) {
+		return (cell + 0.5) * cellSize;
+	}
+
+	/**
+	 * @return whether a cell is marked as an obstacle
+	 */
+	public boolean isOccupied(int index) {
+		return occupied[index];
+	}
+
+	/**
+	 * @return the distance from the centre of a cell to the nearest obstacle or wall
+	 */
+	public double getClearance(int index) {
+		return clearance[index];
+	}
+
+	/**
+	 * Finds the distance from a point to the nearest obstacle or wall, from the clearance of the
+	 * cell it is in less the distance to the cell's centre
+	 * @param x the field x
+	 * @param y the field y
+	 * @return the clearance, or 0 outside the field
+	 */
+	public double getClearance(double x, double y) {
+		int column = column(x);
+		int row = row(y);
+		if (column < 0 || column >= columns || row < 0 || row >= rows) return 0;
+		double offset = Math.hypot(x - centre(column), y - centre(row));
+		return Math.max(0, clearance[row * columns + column] - offset);
+	}
+}
@@ -0,0 +1,310 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.firstinspires.ftc.teamcode.java.util.MovementData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plans a path around the obstacles of a {@link FieldMap}, as waypoints for the path followers.
+ * <p>
+ * The planner runs A* over the cells of the map, moving to any of the 8 cells around a cell. A
+ * cell can be driven through when the robot fits anywhere in it, which is a single lookup of its
+ * clearance in the map's distance transform instead of checking the robot's footprint. The heuristic
+ * is the octile distance, the shortest 8-way path with no obstacles, so it never overestimates
+ * and the path found is the shortest on the grid. The cells are then shortened to the corners of
+ * the path: a waypoint is dropped when the robot can drive straight past it, which is checked by
+ * stepping along the line by the spare clearance at each point.
+ * <p>
+ * All search arrays are kept between plans, so a plan only allocates its waypoints, and takes a
+ * few milliseconds at most on the default map. If the robot starts too close to an obstacle, it
+ * may only move to cells with more clearance until it is clear. The goal's cell can always be
+ * entered, as long as the robot fits at the goal itself.
+ */
+public class GridPlanner {
+	private static final double sqrt2 = Math.sqrt(2);
+
+	/**
+	 * The smallest step when checking a straight line, in mm
+	 */
+	private static final double minimumStep = 5;
+
+	private static final int[] columnSteps = {1, -1, 0, 0, 1, 1, -1, -1};
+	private static final int[] rowSteps = {0, 0, 1, -1, 1, -1, 1, -1};
+
+	private final FieldMap map;
+	private final double robotRadius;
+
+	/**
+	 * The clearance a cell needs for the robot to fit anywhere in it
+	 */
+	private final double cellClearance;
+
+	private final double[] costs;
+	private final double[] estimates;
+	private final int[] parents;
+	private final int[] visited;
+	private final boolean[] closed;
+	private final int[] heap;
+	private final int[] heapPositions;
+	private int heapSize;
+	private int search = 0;
+	private int expandedCells;
+
+	// The cells of the last path, from the goal back to the start
+	private final int[] pathCells;
+
+	/**
+	 * Creates a planner
+	 * @param map the map of the field
+	 * @param robotRadius how far the centre of the robot has to stay from obstacles, in mm, which
+	 *                    can include a margin for odometry error
+	 */
+	public GridPlanner(FieldMap map, double robotRadius) {
+		this.map = map;
+		this.robotRadius = robotRadius;
+		cellClearance = robotRadius + map.getCellSize() * Math.sqrt(0.5);
+
+		int cellCount = map.getColumns() * map.getRows();
+		costs = new double[cellCount];
+		estimates = new double[cellCount];
+		parents = new int[cellCount];
+		visited = new int[cellCount];
+		closed = new boolean[cellCount];
+		heap = new int[cellCount];
+		heapPositions = new int[cellCount];
+		pathCells = new int[cellCount];
+	}
+
+	/**
+	 * Creates a planner for the {@link FieldMap#robotRadius}
+	 * @param map the map of the field
+	 */
+	public GridPlanner(FieldMap map) {
+		this(map, FieldMap.robotRadius);
+	}
+
+	/**
+	 * @return how many cells the last plan looked at
+	 */
+	public int getExpandedCells() {
+		return expandedCells;
+	}
+
+	/**
+	 * Plans a path from the robot's position to a goal. The map is built first if obstacles were
+	 * added since it was last built.
+	 * @param start where the robot is
+	 * @param goal where the robot should go
+	 * @return the waypoints from the start to the goal, which have the start's angle at the start
+	 *         and the goal's angle after it, or null if there is no path
+	 */
+	public List<MovementData> plan(MovementData start, MovementData goal) {
+		if (!map.isBuilt()) map.build();
+
+		int columns = map.getColumns();
+		int rows = map.getRows();
+		int startColumn = map.column(start.getX());
+		int startRow = map.row(start.getY());
+		int goalColumn = map.column(goal.getX());
+		int goalRow = map.row(goal.getY());
+		expandedCells = 0;
+		if (!inside(startColumn, startRow) || !inside(goalColumn, goalRow)) return null;
+
+		int startIndex = map.index(startColumn, startRow);
+		int goalIndex = map.index(goalColumn, goalRow);
+		if (map.getClearance(goal.getX(), goal.getY()) < robotRadius) return null;
+
+		// Cells not visited in this search have stale costs, which a new search number ignores
+		search++;
+		if (search == Integer.MAX_VALUE) {
+			Arrays.fill(visited, 0);
+			search = 1;
+		}
+		heapSize = 0;
+
+		visit(startIndex, -1, 0, heuristic(startColumn, startRow, goalColumn, goalRow));
+		boolean found = false;
+		while (heapSize > 0) {
+			int current = pop();
+			if (current == goalIndex) {
+				found = true;
+				break;
+			}
+			closed[current] = true;
+			expandedCells++;
+
+			int column = current % columns;
+			int row = current / columns;
+			double currentClearance = map.getClearance(current);
+			for (int i = 0; i < 8; i++) {
+				int nextColumn = column + columnSteps[i];
+				int nextRow = row + rowSteps[i];
+				if (nextColumn < 0 || nextColumn >= columns || nextRow < 0 || nextRow >= rows) continue;
+
+				int next = map.index(nextColumn, nextRow);
+				boolean seen = visited[next] == search;
+				if (seen && closed[next]) continue;
+
+				// The goal's cell only needs the robot to fit at the goal, which was checked above
+				double clearance = map.getClearance(next);
+				if (next != goalIndex && clearance < cellClearance && clearance <= currentClearance) continue;
+
+				double cost = costs[current] + (i < 4 ? 1 : sqrt2) * map.getCellSize();
+				if (seen && cost >= costs[next]) continue;
+
+				visit(next, current, cost, cost + heuristic(nextColumn, nextRow, goalColumn, goalRow));
+			}
+		}
+		if (!found) return null;
+
+		int cellCount = 0;
+		for (int cell = goalIndex; cell != -1; cell = parents[cell]) {
+			pathCells[cellCount++] = cell;
+		}
+		return shorten(start, goal, cellCount);
+	}
+
+	/**
+	 * Turns the cells of a path into waypoints at its corners
+	 */
+	private List<MovementData> shorten(MovementData start, MovementData goal, int cellCount) {
+		int columns = map.getColumns();
+		List<MovementData> waypoints = new ArrayList<>();
+		waypoints.add(start);
+
+		// The points are the start, the centres of the cells between the ends, then the goal
+		int pointCount = cellCount;
+		double anchorX = start.getX();
+		double anchorY = start.getY();
+		int anchor = 0;
+
+		// Until the robot is clear of obstacles, it follows the cells
+		while (anchor < pointCount - 1 && map.getClearance(anchorX, anchorY) < robotRadius) {
+			anchor++;
+			int cell = pathCells[cellCount - 1 - anchor];
+			anchorX = anchor == pointCount - 1 ? goal.getX() : map.centre(cell % columns);
+			anchorY = anchor == pointCount - 1 ? goal.getY() : map.centre(cell / columns);
+			if (anchor < pointCount - 1) {
+				waypoints.add(new MovementData(anchorX, anchorY, goal.getAngle()));
+			}
+		}
+
+		double lastX = anchorX;
+		double lastY = anchorY;
+		for (int point = anchor + 1; point < pointCount; point++) {
+			int cell = pathCells[cellCount - 1 - point];
+			double x = point == pointCount - 1 ? goal.getX() : map.centre(cell % columns);
+			double y = point == pointCount - 1 ? goal.getY() : map.centre(cell / columns);
+			if (point > anchor + 1 && !isClear(anchorX, anchorY, x, y)) {
+				// The point before this one is a corner
+				waypoints.add(new MovementData(lastX, lastY, goal.getAngle()));
+				anchorX = lastX;
+				anchorY = lastY;
+				anchor = point - 1;
+			}
+			lastX = x;
+			lastY = y;
+		}
+		waypoints.add(goal);
+		return waypoints;
+	}
+
+	/**
+	 * Checks whether the robot can drive straight between two points
+	 */
+	private boolean isClear(double x0, double y0, double x1, double y1) {
+		double length = Math.hypot(x1 - x0, y1 - y0);
+		double travelled = 0;
+		while (true) {
+			double fraction = length > 0 ? Math.min(1, travelled / length) : 1;
+			double spare = map.getClearance(x0 + (x1 - x0) * fraction, y0 + (y1 - y0) * fraction) - robotRadius;
+			if (spare < 0) return false;
+			if (fraction >= 1) return true;
+			travelled += Math.max(spare, minimumStep);
+		}
+	}
+
+	private boolean inside(int column, int row) {
+		return column >= 0 && column < map.getColumns() && row >= 0 && row < map.getRows();
+	}
+
+	/**
+	 * The octile distance between two cells, in mm
+	 */
+	private double heuristic(int column, int row, int goalColumn, int goalRow) {
+		int dx = Math.abs(goalColumn - column);
+		int dy = Math.abs(goalRow - row);
+		return (Math.max(dx, dy) + (sqrt2 - 1) * Math.min(dx, dy)) * map.getCellSize();
+	}
+
+	/**
+	 * Sets the cost of a cell and adds it to the open cells, or moves it up if it is there already
+	 */
+	private void visit(int cell, int parent, double cost, double estimate) {
+		boolean open = visited[cell] == search;
+		visited[cell] = search;
+		closed[cell] = false;
+		parents[cell] = parent;
+		costs[cell] = cost;
+		estimates[cell] = estimate;
+		if (!open) {
+			heap[heapSize] = cell;
+			heapPositions[cell] = heapSize;
+			heapSize++;
+		}
+		siftUp(heapPositions[cell]);
+	}
+
+	/**
+	 * Removes the open cell with the lowest estimate
+	 */
+	private int pop() {
+		int cell = heap[0];
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapPositions[heap[0]] = 0;
+			siftDown(0);
+		}
+		return cell;
+	}
+
+	/**
+	 * Whether one cell should come out of the heap before another. Ties go to the cell further from
+	 * the start, which is usually closer to the goal.
+	 */
+	private boolean before(int a, int b) {
+		if (estimates[a] != estimates[b]) return estimates[a] < estimates[b];
+		return costs[a] > costs[b];
+	}
+
+	private void siftUp(int position) {
+		int cell = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (!before(cell, heap[parent])) break;
+			heap[position] = heap[parent];
+			heapPositions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = cell;
+		heapPositions[cell] = position;
+	}
+
+	private void siftDown(int position) {
+		int cell = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && before(heap[child + 1], heap[child])) child++;
+			if (!before(heap[child], cell)) break;
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = cell;
+		heapPositions[cell] = position;
+	}
+}
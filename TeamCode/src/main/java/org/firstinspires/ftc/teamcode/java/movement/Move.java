@@ -0,0 +1,188 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.command.CommandBase;
+import org.arcrobotics.ftclib.files.command.CommandScheduler;
+
+/**
+ * A move which runs a step every control loop instead of blocking until the robot arrives, so
+ * the shooter, intake and wobble arm can be worked while the robot drives.
+ * <p>
+ * A move is a {@link org.arcrobotics.ftclib.files.command.Command}, and the async methods of
+ * {@link AutoDrivingNew} schedule it on the {@link CommandScheduler}, which runs it whenever
+ * {@link CommandScheduler#run()} is called from the OpMode's loop. It needs the drive, so
+ * starting another move interrupts it.
+ * <p>
+ * The status and progress can be read from any thread, and {@link #cancel()} can be called from
+ * any thread: the move stops the next time it runs. A move left running when the OpMode stops
+ * would run again the next time the scheduler is, so the OpMode should call
+ * {@link AutoDrivingNew#stopMoves()} as it stops. Making the next AutoDrivingNew stops it too.
+ * The blocking moves of AutoDrivingNew need the drive as well, so they cancel a running move.
+ * <p>
+ * A move can be watched by a {@link MoveWatchdog}, which stops it, accepts it or tries it again
+ * if it times out or stalls.
+ */
+public abstract class Move extends CommandBase {
+	/**
+	 * Where a move is up to
+	 */
+	public enum Status {
+		WAITING,
+		RUNNING,
+		/** Reached the goal */
+		ARRIVED,
+		/** Stopped short after timing out or stalling, and accepted where it stopped */
+		ACCEPTED,
+		/** Gave up after timing out or stalling */
+		SKIPPED,
+		CANCELLED,
+	}
+
+	private volatile Status status = Status.WAITING;
+	private volatile double progress = 0;
+	private volatile boolean cancelRequested = false;
+
+	private MoveWatchdog watchdog;
+
+	/**
+	 * What the watchdog decided, or null while the move should go on
+	 */
+	private volatile Status outcome;
+
+	/**
+	 * Plans the move from where the robot is
+	 */
+	protected abstract void start();
+
+	/**
+	 * Plans the move again from where the robot is, when the watchdog tries it again
+	 */
+	protected void restart() {
+		start();
+	}
+
+	/**
+	 * Runs one step of the move, setting the motor powers
+	 * @return how far through the move the robot is, from 0 to 1
+	 */
+	protected abstract double step();
+
+	/**
+	 * @return whether the robot has reached the end of the move
+	 */
+	protected abstract boolean hasArrived();
+
+	/**
+	 * @return the error left, in mm, with turning counted as the distance the corners of the robot
+	 *         move, for the watchdog
+	 */
+	protected abstract double remainingError();
+
+	/**
+	 * Stops the motors once the move is over
+	 */
+	protected abstract void stop();
+
+	/**
+	 * Watches the move for timing out and stalling. This has to be set before the move starts.
+	 * @param watchdog the watchdog, which shouldn't be used by another move, or null to not watch
+	 * @return this move
+	 */
+	public Move watchedBy(MoveWatchdog watchdog) {
+		this.watchdog = watchdog;
+		return this;
+	}
+
+	@Override
+	public final void initialize() {
+		status = Status.RUNNING;
+		progress = 0;
+		outcome = null;
+		cancelRequested = false;
+		start();
+		if (watchdog != null) watchdog.start(remainingError());
+	}
+
+	@Override
+	public final void execute() {
+		if (cancelRequested || outcome != null) return;
+		progress = Math.max(0, Math.min(1, step()));
+
+		if (watchdog == null || hasArrived()) return;
+		switch (watchdog.check(remainingError())) {
+			case RETRY:
+				restart();
+				break;
+			case ACCEPT:
+				outcome = Status.ACCEPTED;
+				break;
+			case SKIP:
+				outcome = Status.SKIPPED;
+				break;
+			default:
+				break;
+		}
+	}
+
+	@Override
+	public final boolean isFinished() {
+		return cancelRequested || outcome != null || hasArrived();
+	}
+
+	@Override
+	public final void end(boolean interrupted) {
+		stop();
+		if (interrupted || cancelRequested) {
+			status = Status.CANCELLED;
+		} else if (outcome != null) {
+			status = outcome;
+		} else {
+			progress = 1;
+			status = Status.ARRIVED;
+		}
+	}
+
+	/**
+	 * Stops the move, the next time it runs
+	 */
+	public void cancel() {
+		cancelRequested = true;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return how far through the move the robot is, from 0 to 1
+	 */
+	public double getProgress() {
+		return progress;
+	}
+
+	/**
+	 * @return whether the move is over, for any reason
+	 */
+	public boolean isDone() {
+		Status status = this.status;
+		return status != Status.WAITING && status != Status.RUNNING;
+	}
+
+	/**
+	 * @return what the watchdog found wrong with the move, or {@link MoveWatchdog.Failure#NONE}
+	 */
+	public MoveWatchdog.Failure getFailure() {
+		return watchdog != null ? watchdog.getFailure() : MoveWatchdog.Failure.NONE;
+	}
+
+	/**
+	 * @return whether the move arrived, or was accepted where it stopped
+	 */
+	public boolean hasSucceeded() {
+		Status status = this.status;
+		return status == Status.ARRIVED || status == Status.ACCEPTED;
+	}
+
+	public boolean isCancelled() {
+		return status == Status.CANCELLED;
+	}
+}
@@ -0,0 +1,176 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+/**
+ * Watches a move for running out of time or getting stuck, and decides what to do about it.
+ * <p>
+ * A move is timed out when an attempt takes longer than the timeout. It is stalled when the error
+ * left hasn't gone down by at least the minimum progress within the stall time while it is still
+ * above the stall error, for example when the robot is pushing against a wall or a wobble goal.
+ * Small errors are never a stall, so the robot can settle onto the goal slowly.
+ * <p>
+ * When either happens the {@link Recovery} decides whether the robot accepts where it is, tries
+ * the move again from where it is, or skips the move so the rest of autonomous can go on. Retries
+ * which run out are skipped.
+ * <p>
+ * The settings are given to the constructor, and each move watches with its own copy, made with
+ * {@link #MoveWatchdog(MoveWatchdog)}. The error is in mm, with turning counted as the distance the
+ * corners of the robot move.
+ */
+public class MoveWatchdog {
+	/**
+	 * What went wrong with a move
+	 */
+	public enum Failure {
+		NONE,
+		TIMED_OUT,
+		STALLED,
+	}
+
+	/**
+	 * What to do when a move fails
+	 */
+	public enum Recovery {
+		/** Stop and treat the move as done */
+		ACCEPT,
+		/** Start the move again from where the robot is */
+		RETRY,
+		/** Stop and give up on the move */
+		SKIP,
+	}
+
+	/**
+	 * What the move should do after a check
+	 */
+	public enum Action {
+		CONTINUE,
+		RETRY,
+		ACCEPT,
+		SKIP,
+	}
+
+	private final double timeout;
+	private final double stallTime;
+	private final double minProgress;
+	private final double stallError;
+	private final Recovery recovery;
+	private final int maxRetries;
+
+	private long attemptStart;
+	private long windowStart;
+	private double windowError;
+	private int retries;
+	private Failure failure = Failure.NONE;
+
+	/**
+	 * Creates a watchdog
+	 * @param timeout the longest an attempt can take, in seconds
+	 * @param stallTime how long the error is given to go down, in seconds
+	 * @param minProgress how much the error has to go down in the stall time, in mm
+	 * @param stallError the error below which the move can't stall, in mm
+	 * @param recovery what to do when the move times out or stalls
+	 * @param maxRetries how many times the move can be tried again when retrying
+	 */
+	public MoveWatchdog(double timeout, double stallTime, double minProgress, double stallError,
+	                    Recovery recovery, int maxRetries) {
+		this.timeout = timeout;
+		this.stallTime = stallTime;
+		this.minProgress = minProgress;
+		this.stallError = stallError;
+		this.recovery = recovery;
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * Creates a watchdog which only gives up on a move that takes longer than a timeout
+	 * @param timeout the longest a move can take, in seconds
+	 */
+	public MoveWatchdog(double timeout) {
+		this(timeout, Double.POSITIVE_INFINITY, 0, 0, Recovery.SKIP, 0);
+	}
+
+	/**
+	 * Copies the settings of a watchdog, to watch a new move
+	 * @param settings the watchdog to copy
+	 */
+	public MoveWatchdog(MoveWatchdog settings) {
+		this(
+				settings.timeout, settings.stallTime, settings.minProgress, settings.stallError,
+				settings.recovery, settings.maxRetries
+		);
+	}
+
+	/**
+	 * Starts watching a move
+	 * @param error the error at the start
+	 */
+	public void start(double error) {
+		retries = 0;
+		failure = Failure.NONE;
+		startAttempt(error);
+	}
+
+	private void startAttempt(double error) {
+		attemptStart = System.nanoTime();
+		windowStart = attemptStart;
+		windowError = error;
+	}
+
+	/**
+	 * Checks the move, which should be done every loop
+	 * @param error the error left
+	 * @return what the move should do. After {@link Action#RETRY} the move should be planned again
+	 *         from where the robot is.
+	 */
+	public Action check(double error) {
+		long now = System.nanoTime();
+		Failure found = Failure.NONE;
+		if ((now - attemptStart) * 1e-9 > timeout) {
+			found = Failure.TIMED_OUT;
+		} else if (error <= stallError) {
+			windowStart = now;
+			windowError = error;
+		} else if ((now - windowStart) * 1e-9 >= stallTime) {
+			if (windowError - error < minProgress) found = Failure.STALLED;
+			windowStart = now;
+			windowError = error;
+		}
+		if (found == Failure.NONE) return Action.CONTINUE;
+
+		failure = found;
+		switch (recovery) {
+			case ACCEPT:
+				return Action.ACCEPT;
+			case RETRY:
+				if (retries < maxRetries) {
+					retries++;
+					startAttempt(error);
+					return Action.RETRY;
+				}
+				return Action.SKIP;
+			default:
+				return Action.SKIP;
+		}
+	}
+
+	/**
+	 * @return the last failure found, or {@link Failure#NONE}
+	 */
+	public Failure getFailure() {
+		return failure;
+	}
+
+	/**
+	 * @return how many times the move has been tried again
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	public double getTimeout() {
+		return timeout;
+	}
+
+	public Recovery getRecovery() {
+		return recovery;
+	}
+}
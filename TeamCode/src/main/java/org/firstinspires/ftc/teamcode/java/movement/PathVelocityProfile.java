@@ -0,0 +1,141 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+/**
+ * Gives every point along a {@link CompiledPath} the fastest speed the robot can have there, so it
+ * can drive at full speed on the straights and slow down just enough for the corners.
+ * <p>
+ * Each corner is limited by the sideways acceleration needed to turn it, v = √(a / κ). A forward
+ * pass then limits how quickly the robot can speed up between the points, and a backward pass
+ * limits how quickly it can slow down, so the robot starts and ends at rest and never has to
+ * brake harder than the acceleration limit. Between the points the speed follows the same
+ * constant acceleration curves.
+ */
+public class PathVelocityProfile {
+	private final CompiledPath path;
+	private final double maxVelocity;
+	private final double maxAcceleration;
+
+	/**
+	 * The fastest speed at each point of the path
+	 */
+	private final double[] velocities;
+
+	/**
+	 * Creates the profile for a path which starts and ends at rest
+	 * @param path the path to drive along
+	 * @param maxVelocity the fastest the robot can drive
+	 * @param maxAcceleration the fastest the robot can speed up or slow down
+	 * @param maxLateralAcceleration the largest sideways acceleration allowed in corners
+	 */
+	public PathVelocityProfile(CompiledPath path, double maxVelocity, double maxAcceleration,
+	                           double maxLateralAcceleration) {
+		this(path, maxVelocity, maxAcceleration, maxLateralAcceleration, 0, 0);
+	}
+
+	/**
+	 * Creates the profile for a path
+	 * @param path the path to drive along
+	 * @param maxVelocity the fastest the robot can drive
+	 * @param maxAcceleration the fastest the robot can speed up or slow down
+	 * @param maxLateralAcceleration the largest sideways acceleration allowed in corners
+	 * @param startVelocity the speed at the start of the path
+	 * @param endVelocity the speed at the end of the path
+	 */
+	public PathVelocityProfile(CompiledPath path, double maxVelocity, double maxAcceleration,
+	                           double maxLateralAcceleration, double startVelocity, double endVelocity) {
+		this.path = path;
+		this.maxVelocity = maxVelocity;
+		this.maxAcceleration = maxAcceleration;
+
+		int count = path.size();
+		velocities = new double[count];
+		for (int i = 0; i < count; i++) {
+			double curvature = path.getPointCurvature(i);
+			velocities[i] = curvature > 0
+					? Math.min(maxVelocity, Math.sqrt(maxLateralAcceleration / curvature))
+					: maxVelocity;
+		}
+		velocities[0] = Math.min(velocities[0], startVelocity);
+		velocities[count - 1] = Math.min(velocities[count - 1], endVelocity);
+
+		// Limits how fast the robot can speed up
+		for (int i = 1; i < count; i++) {
+			velocities[i] = Math.min(velocities[i], reachable(velocities[i - 1], path.getSegmentLength(i)));
+		}
+		// Limits how fast the robot can slow down
+		for (int i = count - 2; i >= 0; i--) {
+			velocities[i] = Math.min(velocities[i], reachable(velocities[i + 1], path.getSegmentLength(i + 1)));
+		}
+	}
+
+	/**
+	 * @return the fastest speed after accelerating from a speed over a distance
+	 */
+	private double reachable(double velocity, double distance) {
+		return Math.sqrt(velocity * velocity + 2 * maxAcceleration * distance);
+	}
+
+	public CompiledPath getPath() {
+		return path;
+	}
+
+	/**
+	 * @param index the index of the point
+	 * @return the fastest speed at the point
+	 */
+	public double getPointVelocity(int index) {
+		return velocities[index];
+	}
+
+	/**
+	 * Finds the planned speed at a distance along the path
+	 * @param distance the distance along the path
+	 * @return the speed
+	 */
+	public double velocityAt(double distance) {
+		int segment = path.segmentAt(distance);
+		if (segment == 0) return velocities[0];
+
+		double fromStart = Math.max(0, distance - path.getPointDistance(segment - 1));
+		double toEnd = Math.max(0, path.getPointDistance(segment) - distance);
+		return Math.min(maxVelocity, Math.min(
+				reachable(velocities[segment - 1], fromStart), reachable(velocities[segment], toEnd)
+		));
+	}
+
+	/**
+	 * Finds the fastest speed at a distance along the path from which the robot can still slow
+	 * down for the corners and the end. Unlike {@link #velocityAt(double)}, this doesn't limit how
+	 * quickly the robot speeds up, which followers can do over time instead.
+	 * @param distance the distance along the path
+	 * @return the speed
+	 */
+	public double brakingVelocityAt(double distance) {
+		int segment = path.segmentAt(distance);
+		if (segment == 0) return velocities[0];
+
+		double toEnd = Math.max(0, path.getPointDistance(segment) - distance);
+		return Math.min(maxVelocity, reachable(velocities[segment], toEnd));
+	}
+
+	public double getMaxAcceleration() {
+		return maxAcceleration;
+	}
+
+	/**
+	 * Finds the planned acceleration along the path at a distance along it
+	 * @param distance the distance along the path
+	 * @return the acceleration, which is negative when slowing down
+	 */
+	public double accelerationAt(double distance) {
+		int segment = path.segmentAt(distance);
+		if (segment == 0) return 0;
+
+		double fromStart = Math.max(0, distance - path.getPointDistance(segment - 1));
+		double toEnd = Math.max(0, path.getPointDistance(segment) - distance);
+		double speedingUp = reachable(velocities[segment - 1], fromStart);
+		double slowingDown = reachable(velocities[segment], toEnd);
+		if (Math.min(speedingUp, slowingDown) >= maxVelocity) return 0;
+		return speedingUp < slowingDown ? maxAcceleration : -maxAcceleration;
+	}
+}
@@ -0,0 +1,175 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.controller.wpilibcontroller.SimpleMotorFeedforward;
+import org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfController;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
+
+/**
+ * Follows a {@link CompiledPath} at the speeds planned by a {@link PathVelocityProfile}.
+ * <p>
+ * Every update finds how far along the path the robot is, aims at a point a lookahead distance
+ * further along (which pulls the robot back onto the path), and drives towards it at the planned
+ * speed. The planned speed is 0 where the path starts at rest, so the follower speeds up over
+ * time at the profile's acceleration limit, up to the speed it can still brake from. The speed
+ * and acceleration are turned into powers with feedforward, so the speed doesn't depend on PID
+ * gains, and the turn PID Loop keeps the robot at the path's heading.
+ * <p>
+ * The feedforward gains are the kS, kV and kA found by the {@link
+ * org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfTuner} for the drive and
+ * strafe axes.
+ */
+public class ProfiledPathFollower {
+	private final PathVelocityProfile profile;
+	private final CompiledPath path;
+	private final SimpleMotorFeedforward driveFeedforward, strafeFeedforward;
+	private final PositionPidfController turnPid;
+	private final double lookahead;
+
+	/**
+	 * How fast the robot is driven over the last part of the path for each mm left, so that it
+	 * doesn't stop short where the planned speed reaches 0
+	 */
+	private double finishGain = 2;
+
+	/**
+	 * How close the robot has to be to the end of the path to have finished
+	 */
+	private double tolerance = 20;
+
+	private final double[] aim = new double[2];
+	private double progress;
+	private double speed;
+	private long lastTime = -1;
+
+	/**
+	 * Creates a follower
+	 * @param profile the speeds to follow the path at
+	 * @param driveFeedforward the feedforward for driving forwards, in power per mm/s
+	 * @param strafeFeedforward the feedforward for strafing, in power per mm/s
+	 * @param turnPid the PID Loop which keeps the robot's heading
+	 * @param lookahead how far ahead along the path the robot aims, in mm
+	 */
+	public ProfiledPathFollower(PathVelocityProfile profile, SimpleMotorFeedforward driveFeedforward,
+	                            SimpleMotorFeedforward strafeFeedforward, PositionPidfController turnPid,
+	                            double lookahead) {
+		this.profile = profile;
+		this.path = profile.getPath();
+		this.driveFeedforward = driveFeedforward;
+		this.strafeFeedforward = strafeFeedforward;
+		this.turnPid = turnPid;
+		this.lookahead = lookahead;
+	}
+
+	public void setFinishGain(double finishGain) {
+		this.finishGain = finishGain;
+	}
+
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Starts again from rest, for following the path another time
+	 */
+	public void reset() {
+		speed = 0;
+		lastTime = -1;
+	}
+
+	/**
+	 * @return how far along the path the robot was at the last update
+	 */
+	public double getProgress() {
+		return progress;
+	}
+
+	/**
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @return whether the robot is at the end of the path
+	 */
+	public boolean isFinished(double x, double y) {
+		int last = path.size() - 1;
+		return Math.hypot(path.getPointX(last) - x, path.getPointY(last) - y) < tolerance;
+	}
+
+	/**
+	 * Finds how much of the path is left, for a {@link MoveWatchdog}. This is the length of the
+	 * path past the closest point to the robot, or the distance to the end if that is further.
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @return the distance left, in mm
+	 */
+	public double getRemainingDistance(double x, double y) {
+		int last = path.size() - 1;
+		return Math.max(
+				path.getLength() - path.closestDistance(x, y),
+				Math.hypot(path.getPointX(last) - x, path.getPointY(last) - y)
+		);
+	}
+
+	/**
+	 * Finds the powers to follow the path from a pose
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @param angle the angle of the robot, like {@link ActiveLocation#getAngle()}
+	 * @param powers an array of at least 3 which the drive, strafe and turn powers are written into
+	 * @return the powers array
+	 */
+	public double[] update(double x, double y, double angle, double[] powers) {
+		progress = path.closestDistance(x, y);
+		double remaining = path.getLength() - progress;
+
+		long now = System.nanoTime();
+		double dt = lastTime == -1 ? 0 : (now - lastTime) / 1e9;
+		lastTime = now;
+
+		// Speeds up over time, but never faster than the robot can brake from
+		double maxAcceleration = profile.getMaxAcceleration();
+		double braking = profile.brakingVelocityAt(progress);
+		double acceleration;
+		if (speed + maxAcceleration * dt < braking) {
+			speed += maxAcceleration * dt;
+			acceleration = maxAcceleration;
+		} else {
+			acceleration = braking < speed ? -maxAcceleration : 0;
+			speed = braking;
+		}
+
+		double commanded = speed;
+		if (remaining < lookahead) {
+			commanded = Math.max(commanded, finishGain * Math.hypot(
+					path.getPointX(path.size() - 1) - x, path.getPointY(path.size() - 1) - y
+			));
+		}
+
+		// Drives towards the aim point, which is on the path if the robot has drifted off it
+		path.pointAt(progress + lookahead, aim);
+		double deltaX = aim[0] - x;
+		double deltaY = aim[1] - y;
+		double aimDistance = Math.hypot(deltaX, deltaY);
+		double directionX = 0, directionY = 0;
+		if (aimDistance > 1e-9) {
+			directionX = deltaX / aimDistance;
+			directionY = deltaY / aimDistance;
+		}
+
+		// Turns the velocity and acceleration into the robot's frame, like PathFinder
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		double strafeDirection = directionX * cos + directionY * sin;
+		double driveDirection = directionY * cos - directionX * sin;
+
+		powers[0] = driveFeedforward.calculate(commanded * driveDirection, acceleration * driveDirection);
+		powers[1] = strafeFeedforward.calculate(commanded * strafeDirection, acceleration * strafeDirection);
+
+		// The angle error is taken the same way as in AutoDrivingNew.calculateDrivePowers
+		double angleError = (path.getHeading(progress) - angle) % TAU;
+		if (angleError > PI) angleError -= TAU;
+		if (angleError < -PI) angleError += TAU;
+		powers[2] = turnPid.calculate(angleError);
+		return powers;
+	}
+}
@@ -0,0 +1,112 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.firstinspires.ftc.teamcode.java.util.Angle;
+import org.firstinspires.ftc.teamcode.java.util.MovementData;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
+
+/**
+ * Decides when the robot has arrived from where it will come to rest, instead of where it is.
+ * <p>
+ * Checking only the position lets a fast robot count as arrived while it is passing through the
+ * tolerance, then overshoot, and makes a slow robot creep along the edge of the tolerance. From
+ * the velocity estimate of the {@link ActiveLocation}, the robot would stop v² / 2a further along
+ * its direction of travel if it braked at a, and its angle would stop changing ω² / 2α further on.
+ * The robot has arrived once that resting pose is within the tolerance, which can be before the
+ * robot itself is, so the next move can start while the robot is still moving. Nothing brakes the
+ * robot when it arrives, so the next move, or stopping the motors, has to follow straight away for
+ * the prediction to hold.
+ * <p>
+ * Above a top speed the robot never counts as arrived, so a poorly tuned deceleration can't end a
+ * move from far away.
+ */
+public class SettleDetector {
+	private final double deceleration;
+	private final double angularDeceleration;
+	private final double maxSpeed;
+
+	/**
+	 * Creates a settle detector
+	 * @param deceleration how fast the robot slows down when braking, in mm/s²
+	 * @param angularDeceleration how fast the robot stops turning when braking, in radians/s²
+	 * @param maxSpeed the fastest the robot can be moving and still count as arrived, in mm/s
+	 * @throws IllegalArgumentException if a deceleration isn't positive
+	 */
+	public SettleDetector(double deceleration, double angularDeceleration, double maxSpeed) {
+		if (!(deceleration > 0) || !(angularDeceleration > 0))
+			throw new IllegalArgumentException("The decelerations must be positive");
+
+		this.deceleration = deceleration;
+		this.angularDeceleration = angularDeceleration;
+		this.maxSpeed = maxSpeed;
+	}
+
+	/**
+	 * Finds how far something travels while braking to a stop
+	 * @param speed the speed it is moving at
+	 * @param deceleration how fast it slows down
+	 * @return the stopping distance
+	 */
+	public static double stoppingDistance(double speed, double deceleration) {
+		return speed * speed / (2 * deceleration);
+	}
+
+	/**
+	 * Checks whether the robot will come to rest within the tolerance of a goal
+	 * @param x the field x position (mm)
+	 * @param y the field y position (mm)
+	 * @param angle the angle (radians)
+	 * @param velocityX the field x velocity (mm/s)
+	 * @param velocityY the field y velocity (mm/s)
+	 * @param angularVelocity the angular velocity (radians/s)
+	 * @param goal the goal position
+	 * @param errorX the error range for the x position
+	 * @param errorY the error range for the y position
+	 * @param errorAngle the error range for the angle, in radians
+	 * @return whether the robot has arrived
+	 */
+	public boolean hasSettled(double x, double y, double angle, double velocityX, double velocityY,
+	                          double angularVelocity, MovementData goal, double errorX, double errorY,
+	                          double errorAngle) {
+		double speed = Math.hypot(velocityX, velocityY);
+		if (speed > maxSpeed) return false;
+
+		double restX = x;
+		double restY = y;
+		if (speed > 0) {
+			double stoppingDistance = stoppingDistance(speed, deceleration);
+			restX += velocityX / speed * stoppingDistance;
+			restY += velocityY / speed * stoppingDistance;
+		}
+		double restAngle = angle
+				+ Math.signum(angularVelocity) * stoppingDistance(angularVelocity, angularDeceleration);
+
+		double angleError = (goal.getAngleInRadians() - restAngle) % TAU;
+		if (angleError > PI) angleError -= TAU;
+		if (angleError < -PI) angleError += TAU;
+
+		return Math.abs(goal.getX() - restX) < errorX
+				&& Math.abs(goal.getY() - restY) < errorY
+				&& Math.abs(angleError) < errorAngle;
+	}
+
+	/**
+	 * Checks whether the robot will come to rest within the tolerance of a goal, using the
+	 * position and velocity estimate of an {@link ActiveLocation}
+	 * @param location the robot's location
+	 * @param goal the goal position
+	 * @param errorX the error range for the x position
+	 * @param errorY the error range for the y position
+	 * @param errorAngle the error range for the angle
+	 * @return whether the robot has arrived
+	 */
+	public boolean hasSettled(ActiveLocation location, MovementData goal, double errorX, double errorY,
+	                          Angle errorAngle) {
+		return hasSettled(
+				location.getFieldX(), location.getFieldY(), location.getAngle(),
+				location.getVelocityX(), location.getVelocityY(), location.getAngularVelocity(),
+				goal, errorX, errorY, errorAngle.getAngleInRadians()
+		);
+	}
+}
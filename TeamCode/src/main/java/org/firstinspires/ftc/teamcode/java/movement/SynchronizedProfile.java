@@ -0,0 +1,320 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.geometry.Translation2d;
+import org.arcrobotics.ftclib.files.kinematics.wpilibkinematics.ChassisSpeeds;
+import org.arcrobotics.ftclib.files.kinematics.wpilibkinematics.MecanumDriveKinematics;
+import org.arcrobotics.ftclib.files.kinematics.wpilibkinematics.MecanumDriveWheelSpeeds;
+import org.arcrobotics.ftclib.files.trajectory.TrapezoidProfile;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.robotLength;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.robotWidth;
+
+/**
+ * Plans a point to point move as motion profiles on the x, y and θ axes which all finish at the
+ * same time, without any wheel going over its speed or acceleration limit.
+ * <p>
+ * The x and y axes share one {@link TrapezoidProfile} along the straight line to the goal, so
+ * they are always in step, and θ has its own profile. Every wheel's speed is the sum of a
+ * translation part and a rotation part, so the wheel limits are split between the two: the
+ * translation gets a fraction of the limit and the rotation gets the rest. The fraction is
+ * chosen so that both profiles take the same time, which is the shortest time possible with a
+ * fixed split. A move with no turn gives the whole limit to translation (and the other way
+ * around), instead of slowing every axis down to match the slowest one.
+ * <p>
+ * The wheel factors come from a {@link MecanumDriveKinematics}, and account for the robot
+ * turning during the move, which changes the direction of travel relative to the wheels.
+ * <p>
+ * Positions are field positions in mm and angles are in radians, like {@link ActiveLocation}.
+ * Planning and sampling don't allocate, so one instance can be reused for every move.
+ */
+public class SynchronizedProfile {
+	/**
+	 * How precisely the split between translation and rotation is found
+	 */
+	private static final int splitIterations = 50;
+
+	private static final double millimetersPerMeter = 1000;
+
+	/**
+	 * The speed of each wheel for 1 mm/s of strafing, 1 mm/s of driving and 1 rad/s of turning
+	 */
+	private final double[] strafeFactors = new double[4];
+	private final double[] driveFactors = new double[4];
+	private final double[] turnFactors = new double[4];
+
+	/**
+	 * The largest wheel speed for 1 rad/s of turning, in mm/s
+	 */
+	private final double rotationFactor;
+
+	private final double maxWheelVelocity;
+	private final double maxWheelAcceleration;
+
+	private final TrapezoidProfile.Constraints translationConstraints = new TrapezoidProfile.Constraints();
+	private final TrapezoidProfile.Constraints rotationConstraints = new TrapezoidProfile.Constraints();
+	private final TrapezoidProfile.State start = new TrapezoidProfile.State();
+	private final TrapezoidProfile.State translationGoal = new TrapezoidProfile.State();
+	private final TrapezoidProfile.State rotationGoal = new TrapezoidProfile.State();
+	private final TrapezoidProfile.State translationState = new TrapezoidProfile.State();
+	private final TrapezoidProfile.State rotationState = new TrapezoidProfile.State();
+	private final TrapezoidProfile translationProfile;
+	private final TrapezoidProfile rotationProfile;
+
+	private double startX, startY, startAngle;
+	private double directionX, directionY;
+	private double distance, angleChange;
+	private double translationShare;
+	private double totalTime;
+
+	private double x, y, angle;
+	private double velocityX, velocityY, angularVelocity;
+
+	/**
+	 * Creates a planner
+	 * @param kinematics the kinematics of the drivetrain (in meters, as ftclib uses)
+	 * @param maxWheelVelocity the fastest any wheel can move, in mm/s
+	 * @param maxWheelAcceleration the fastest any wheel can accelerate, in mm/s²
+	 */
+	public SynchronizedProfile(MecanumDriveKinematics kinematics, double maxWheelVelocity,
+	                           double maxWheelAcceleration) {
+		this.maxWheelVelocity = maxWheelVelocity;
+		this.maxWheelAcceleration = maxWheelAcceleration;
+
+		// ftclib's chassis speeds are forward (x) and left (y), while ours are right (x) and
+		// forward (y)
+		setFactors(strafeFactors, kinematics.toWheelSpeeds(new ChassisSpeeds(0, -1, 0)), 1);
+		setFactors(driveFactors, kinematics.toWheelSpeeds(new ChassisSpeeds(1, 0, 0)), 1);
+		setFactors(turnFactors, kinematics.toWheelSpeeds(new ChassisSpeeds(0, 0, 1)), millimetersPerMeter);
+
+		double maxTurnFactor = 0;
+		for (double factor : turnFactors) {
+			maxTurnFactor = Math.max(maxTurnFactor, Math.abs(factor));
+		}
+		rotationFactor = maxTurnFactor;
+
+		translationProfile = new TrapezoidProfile(translationConstraints, translationGoal, start);
+		rotationProfile = new TrapezoidProfile(rotationConstraints, rotationGoal, start);
+	}
+
+	/**
+	 * Creates a planner with the wheels at the corners of our robot
+	 * @param maxWheelVelocity the fastest any wheel can move, in mm/s
+	 * @param maxWheelAcceleration the fastest any wheel can accelerate, in mm/s²
+	 */
+	public SynchronizedProfile(double maxWheelVelocity, double maxWheelAcceleration) {
+		this(defaultKinematics(), maxWheelVelocity, maxWheelAcceleration);
+	}
+
+	/**
+	 * @return kinematics with a wheel at each corner of the robot
+	 */
+	public static MecanumDriveKinematics defaultKinematics() {
+		double halfLength = robotLength / 2 / millimetersPerMeter;
+		double halfWidth = robotWidth / 2 / millimetersPerMeter;
+		return new MecanumDriveKinematics(
+				new Translation2d(halfLength, halfWidth),
+				new Translation2d(halfLength, -halfWidth),
+				new Translation2d(-halfLength, halfWidth),
+				new Translation2d(-halfLength, -halfWidth)
+		);
+	}
+
+	/**
+	 * Plans a move from a start pose, starting and ending at rest
+	 * @param startX the field x position at the start (mm)
+	 * @param startY the field y position at the start (mm)
+	 * @param startAngle the angle at the start (radians)
+	 * @param goalX the field x position of the goal (mm)
+	 * @param goalY the field y position of the goal (mm)
+	 * @param angleChange how far to turn, with the sign giving the direction (radians)
+	 */
+	public void plan(double startX, double startY, double startAngle, double goalX, double goalY,
+	                 double angleChange) {
+		this.startX = startX;
+		this.startY = startY;
+		this.startAngle = startAngle;
+		this.angleChange = angleChange;
+
+		double deltaX = goalX - startX;
+		double deltaY = goalY - startY;
+		distance = Math.hypot(deltaX, deltaY);
+		directionX = distance > 0 ? deltaX / distance : 0;
+		directionY = distance > 0 ? deltaY / distance : 0;
+
+		double translationFactor = translationFactor(Math.atan2(deltaY, deltaX));
+
+		boolean translates = distance > 1e-9;
+		boolean rotates = Math.abs(angleChange) > 1e-9;
+		if (!translates) {
+			translationShare = 0;
+		} else if (!rotates) {
+			translationShare = 1;
+		} else {
+			// The translation time falls and the rotation time rises as the share grows, so the
+			// share where they are equal can be found with a bisection
+			double low = 0;
+			double high = 1;
+			for (int i = 0; i < splitIterations; i++) {
+				double share = (low + high) / 2.0;
+				double translationTime = profileTime(
+						distance, share * maxWheelVelocity / translationFactor,
+						share * maxWheelAcceleration / translationFactor
+				);
+				double rotationTime = profileTime(
+						Math.abs(angleChange), (1 - share) * maxWheelVelocity / rotationFactor,
+						(1 - share) * maxWheelAcceleration / rotationFactor
+				);
+				if (translationTime > rotationTime) {
+					low = share;
+				} else {
+					high = share;
+				}
+			}
+			translationShare = (low + high) / 2.0;
+		}
+
+		translationConstraints.maxVelocity = translationShare * maxWheelVelocity / translationFactor;
+		translationConstraints.maxAcceleration = translationShare * maxWheelAcceleration / translationFactor;
+		rotationConstraints.maxVelocity = (1 - translationShare) * maxWheelVelocity / rotationFactor;
+		rotationConstraints.maxAcceleration = (1 - translationShare) * maxWheelAcceleration / rotationFactor;
+
+		translationGoal.position = distance;
+		rotationGoal.position = Math.abs(angleChange);
+
+		totalTime = 0;
+		if (translates) {
+			translationProfile.update(translationConstraints, translationGoal, start);
+			totalTime = translationProfile.totalTime();
+		}
+		if (rotates) {
+			rotationProfile.update(rotationConstraints, rotationGoal, start);
+			totalTime = Math.max(totalTime, rotationProfile.totalTime());
+		}
+	}
+
+	/**
+	 * Finds the planned pose and velocity at a time. The results are read with the getters.
+	 * @param t the time since the start of the move, in seconds
+	 */
+	public void calculate(double t) {
+		translationState.position = 0;
+		translationState.velocity = 0;
+		if (distance > 1e-9) {
+			translationProfile.calculate(t, translationState);
+		}
+
+		rotationState.position = 0;
+		rotationState.velocity = 0;
+		if (Math.abs(angleChange) > 1e-9) {
+			rotationProfile.calculate(t, rotationState);
+		}
+
+		x = startX + directionX * translationState.position;
+		y = startY + directionY * translationState.position;
+		velocityX = directionX * translationState.velocity;
+		velocityY = directionY * translationState.velocity;
+
+		double turnDirection = Math.signum(angleChange);
+		angle = startAngle + turnDirection * rotationState.position;
+		angularVelocity = turnDirection * rotationState.velocity;
+	}
+
+	public double totalTime() {
+		return totalTime;
+	}
+
+	public boolean isFinished(double t) {
+		return t >= totalTime;
+	}
+
+	/**
+	 * @return the fraction of the wheel limits given to translation in the last plan
+	 */
+	public double getTranslationShare() {
+		return translationShare;
+	}
+
+	/**
+	 * @return the largest wheel speed for 1 rad/s of turning, in mm/s
+	 */
+	public double getRotationFactor() {
+		return rotationFactor;
+	}
+
+	public double getMaxWheelVelocity() {
+		return maxWheelVelocity;
+	}
+
+	public double getX() {
+		return x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	public double getAngle() {
+		return angle;
+	}
+
+	public double getVelocityX() {
+		return velocityX;
+	}
+
+	public double getVelocityY() {
+		return velocityY;
+	}
+
+	public double getAngularVelocity() {
+		return angularVelocity;
+	}
+
+	/**
+	 * Finds the time a trapezoid profile takes to move a distance from rest to rest
+	 */
+	static double profileTime(double distance, double maxVelocity, double maxAcceleration) {
+		if (distance <= 0) return 0;
+		if (maxVelocity <= 0 || maxAcceleration <= 0) return Double.POSITIVE_INFINITY;
+
+		if (distance >= maxVelocity * maxVelocity / maxAcceleration) {
+			return distance / maxVelocity + maxVelocity / maxAcceleration;
+		}
+		return 2 * Math.sqrt(distance / maxAcceleration);
+	}
+
+	/**
+	 * Finds the largest wheel speed for 1 mm/s of translation in a field direction, over every
+	 * angle the robot passes through during the turn
+	 * @param fieldDirection the direction of travel on the field (radians)
+	 */
+	private double translationFactor(double fieldDirection) {
+		// The direction relative to the robot, at the start and end of the turn
+		double first = fieldDirection - startAngle;
+		double last = first - angleChange;
+		double low = Math.min(first, last);
+		double high = Math.max(first, last);
+
+		double factor = 0;
+		for (int i = 0; i < 4; i++) {
+			// Each wheel's speed is R cos(direction - phase), which peaks at phase + kπ
+			double magnitude = Math.hypot(strafeFactors[i], driveFactors[i]);
+			double phase = Math.atan2(driveFactors[i], strafeFactors[i]);
+			double peak = phase + Math.ceil((low - phase) / PI) * PI;
+			if (peak <= high) {
+				factor = Math.max(factor, magnitude);
+			} else {
+				factor = Math.max(factor, Math.abs(magnitude * Math.cos(low - phase)));
+				factor = Math.max(factor, Math.abs(magnitude * Math.cos(high - phase)));
+			}
+		}
+		return factor;
+	}
+
+	private static void setFactors(double[] factors, MecanumDriveWheelSpeeds speeds, double scale) {
+		factors[0] = speeds.frontLeftMetersPerSecond * scale;
+		factors[1] = speeds.frontRightMetersPerSecond * scale;
+		factors[2] = speeds.rearLeftMetersPerSecond * scale;
+		factors[3] = speeds.rearRightMetersPerSecond * scale;
+	}
+}
@@ -0,0 +1,339 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.firstinspires.ftc.teamcode.java.util.MovementData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
+
+/**
+ * Chooses the order of the tasks in autonomous, such as delivering the wobble goals, collecting
+ * rings and shooting, so that the most points are scored before the end of the period.
+ * <p>
+ * Each task has a location, how long it takes once the robot is there and how many points it
+ * scores, and can need other tasks to be done first. The time to drive between every two
+ * locations is found once with a {@link SynchronizedProfile}. A depth first branch and bound
+ * search then tries the orders, going to the tasks with the most points per second first so a
+ * good plan is found early. A branch is cut when even doing every task still reachable from it
+ * in time (ignoring the order they need) can't beat the best plan. The search stops when it runs
+ * out of time and returns the best plan so far, so it can be given whatever time is left in init.
+ * <p>
+ * Plans score the most points, then finish soonest. Tasks which don't fit are left out.
+ */
+public class TaskSequencer {
+	/**
+	 * The length of the autonomous period, in seconds
+	 */
+	public static final double autonomousTime = 30;
+
+	/**
+	 * The most tasks in a plan, as the tasks done are kept in the bits of a long
+	 */
+	public static final int maxTasks = 63;
+
+	/**
+	 * How many branches are searched between checks of the clock
+	 */
+	private static final int clockInterval = 256;
+
+	/**
+	 * Something to do during autonomous
+	 */
+	public static final class Task {
+		private final String name;
+		private final MovementData location;
+		private final double duration;
+		private final double points;
+		private final List<Task> prerequisites = new ArrayList<>();
+
+		/**
+		 * Creates a task
+		 * @param name the name of the task, for telemetry
+		 * @param location where the robot has to be to do the task
+		 * @param duration how long the task takes once the robot is there, in seconds
+		 * @param points how many points the task scores
+		 */
+		public Task(String name, MovementData location, double duration, double points) {
+			this.name = name;
+			this.location = location;
+			this.duration = duration;
+			this.points = points;
+		}
+
+		/**
+		 * Makes this task wait until other tasks are done, for example shooting after collecting
+		 * @param tasks the tasks to do first
+		 * @return this task
+		 */
+		public Task after(Task... tasks) {
+			Collections.addAll(prerequisites, tasks);
+			return this;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public MovementData getLocation() {
+			return location;
+		}
+
+		public double getDuration() {
+			return duration;
+		}
+
+		public double getPoints() {
+			return points;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * The best order found
+	 */
+	public static final class Plan {
+		private final List<Task> tasks;
+		private final double points;
+		private final double finishTime;
+		private final boolean optimal;
+		private final long searchedBranches;
+
+		private Plan(List<Task> tasks, double points, double finishTime, boolean optimal,
+		             long searchedBranches) {
+			this.tasks = tasks;
+			this.points = points;
+			this.finishTime = finishTime;
+			this.optimal = optimal;
+			this.searchedBranches = searchedBranches;
+		}
+
+		/**
+		 * @return the tasks to do, in order
+		 */
+		public List<Task> getTasks() {
+			return tasks;
+		}
+
+		public double getPoints() {
+			return points;
+		}
+
+		/**
+		 * @return when the last task is done, or the robot reaches the end location if there is one
+		 */
+		public double getFinishTime() {
+			return finishTime;
+		}
+
+		/**
+		 * @return whether every order was checked before the time ran out, so no plan is better
+		 */
+		public boolean isOptimal() {
+			return optimal;
+		}
+
+		public long getSearchedBranches() {
+			return searchedBranches;
+		}
+	}
+
+	private final SynchronizedProfile profile;
+
+	// The problem being searched. The start is location n and the end location is n + 1.
+	private int taskCount;
+	private double[] durations;
+	private double[] points;
+	private long[] prerequisites;
+	private double[][] travelTimes;
+	private boolean hasEnd;
+	private double deadline;
+
+	// The search
+	private int[] sequence;
+	private int[][] orders;
+	private double[][] priorities;
+	private int[] bestSequence;
+	private int bestLength;
+	private double bestPoints;
+	private double bestFinish;
+	private long branches;
+	private long stopTime;
+	private boolean outOfTime;
+
+	/**
+	 * Creates a sequencer
+	 * @param profile the profile used to find how long the robot takes to drive between tasks
+	 */
+	public TaskSequencer(SynchronizedProfile profile) {
+		this.profile = profile;
+	}
+
+	/**
+	 * Finds the best order of the tasks
+	 * @param start where the robot starts
+	 * @param tasks the tasks to choose from
+	 * @param end where the robot has to be at the deadline, such as parked on the launch line, or
+	 *            null if it can stop anywhere
+	 * @param deadline how long there is to do the tasks, in seconds, usually what is left of the
+	 *                 {@link #autonomousTime}
+	 * @param budget how long the search can take, in seconds
+	 * @return the best plan found, which is empty if no task fits
+	 * @throws IllegalArgumentException if there are more than {@link #maxTasks} tasks, or a task
+	 *                                  needs a task which isn't in the list
+	 */
+	public Plan plan(MovementData start, List<Task> tasks, MovementData end, double deadline,
+	                 double budget) {
+		if (tasks.size() > maxTasks)
+			throw new IllegalArgumentException("There can't be more than " + maxTasks + " tasks");
+
+		setUp(start, tasks, end, deadline);
+		stopTime = System.nanoTime() + (long) (budget * 1e9);
+		outOfTime = false;
+		branches = 0;
+		bestLength = 0;
+		bestPoints = 0;
+		bestFinish = hasEnd ? travelTimes[taskCount][taskCount + 1] : 0;
+		if (bestFinish > deadline) bestFinish = Double.POSITIVE_INFINITY;
+
+		search(0, taskCount, 0, 0, 0L);
+
+		List<Task> order = new ArrayList<>(bestLength);
+		for (int i = 0; i < bestLength; i++) {
+			order.add(tasks.get(bestSequence[i]));
+		}
+		return new Plan(order, bestPoints, bestFinish, !outOfTime, branches);
+	}
+
+	/**
+	 * Finds the travel times and prerequisites of the tasks
+	 */
+	private void setUp(MovementData start, List<Task> tasks, MovementData end, double deadline) {
+		taskCount = tasks.size();
+		hasEnd = end != null;
+		this.deadline = deadline;
+
+		durations = new double[taskCount];
+		points = new double[taskCount];
+		prerequisites = new long[taskCount];
+		for (int i = 0; i < taskCount; i++) {
+			Task task = tasks.get(i);
+			durations[i] = task.duration;
+			points[i] = task.points;
+			for (Task prerequisite : task.prerequisites) {
+				int index = tasks.indexOf(prerequisite);
+				if (index < 0) {
+					throw new IllegalArgumentException(
+							task.name + " needs " + prerequisite.name + ", which isn't in the list");
+				}
+				prerequisites[i] |= 1L << index;
+			}
+		}
+
+		MovementData[] locations = new MovementData[taskCount + 2];
+		for (int i = 0; i < taskCount; i++) {
+			locations[i] = tasks.get(i).location;
+		}
+		locations[taskCount] = start;
+		locations[taskCount + 1] = hasEnd ? end : start;
+
+		travelTimes = new double[taskCount + 2][taskCount + 2];
+		for (int from = 0; from < taskCount + 2; from++) {
+			for (int to = 0; to < taskCount + 2; to++) {
+				if (from != to) travelTimes[from][to] = travelTime(locations[from], locations[to]);
+			}
+		}
+
+		sequence = new int[taskCount];
+		bestSequence = new int[taskCount];
+		orders = new int[taskCount + 1][taskCount];
+		priorities = new double[taskCount + 1][taskCount];
+	}
+
+	/**
+	 * @return how long the profile takes to move between two locations, in seconds
+	 */
+	private double travelTime(MovementData from, MovementData to) {
+		double angleChange = (to.getAngleInRadians() - from.getAngleInRadians()) % TAU;
+		if (angleChange > PI) angleChange -= TAU;
+		if (angleChange < -PI) angleChange += TAU;
+		profile.plan(from.getX(), from.getY(), from.getAngleInRadians(), to.getX(), to.getY(), angleChange);
+		return profile.totalTime();
+	}
+
+	/**
+	 * Tries every task which can come next in the sequence
+	 * @param depth how many tasks are in the sequence
+	 * @param location the location of the last task, or the start
+	 * @param time the time the last task is done
+	 * @param score the points of the tasks in the sequence
+	 * @param done the tasks in the sequence
+	 */
+	private void search(int depth, int location, double time, double score, long done) {
+		if (outOfTime) return;
+		branches++;
+		if (branches % clockInterval == 0 && System.nanoTime() > stopTime) {
+			outOfTime = true;
+			return;
+		}
+
+		// Only tasks which can be done and still reach the end in time can come next
+		int[] order = orders[depth];
+		double[] priority = priorities[depth];
+		int candidates = 0;
+		double reachablePoints = 0;
+		for (int task = 0; task < taskCount; task++) {
+			if ((done & (1L << task)) != 0) continue;
+
+			double finish = time + travelTimes[location][task] + durations[task];
+			if (finish + endTime(task) > deadline) continue;
+			reachablePoints += points[task];
+			if ((prerequisites[task] & ~done) != 0) continue;
+
+			// Insert by points per second, highest first
+			double value = points[task] / Math.max(1e-6, finish - time);
+			int position = candidates++;
+			while (position > 0 && priority[position - 1] < value) {
+				order[position] = order[position - 1];
+				priority[position] = priority[position - 1];
+				position--;
+			}
+			order[position] = task;
+			priority[position] = value;
+		}
+
+		double bound = score + reachablePoints;
+		if (bound < bestPoints || bound == bestPoints && time + endTime(location) >= bestFinish) return;
+
+		for (int i = 0; i < candidates; i++) {
+			int task = order[i];
+			double finish = time + travelTimes[location][task] + durations[task];
+			double taskScore = score + points[task];
+			sequence[depth] = task;
+
+			double finishAtEnd = finish + endTime(task);
+			if (taskScore > bestPoints || taskScore == bestPoints && finishAtEnd < bestFinish) {
+				bestPoints = taskScore;
+				bestFinish = finishAtEnd;
+				bestLength = depth + 1;
+				System.arraycopy(sequence, 0, bestSequence, 0, bestLength);
+			}
+
+			search(depth + 1, task, finish, taskScore, done | (1L << task));
+			if (outOfTime) return;
+		}
+	}
+
+	/**
+	 * @return the time to drive from a location to the end, which is 0 if there is no end
+	 */
+	private double endTime(int location) {
+		return hasEnd ? travelTimes[location][taskCount + 1] : 0;
+	}
+}
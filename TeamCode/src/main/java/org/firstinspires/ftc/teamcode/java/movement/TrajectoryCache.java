@@ -0,0 +1,235 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.geometry.Rotation2d;
+import org.arcrobotics.ftclib.files.trajectory.Trajectory;
+import org.arcrobotics.ftclib.files.trajectory.TrajectoryConfig;
+import org.arcrobotics.ftclib.files.trajectory.TrajectoryGenerator;
+import org.arcrobotics.ftclib.files.trajectory.constraint.HashableTrajectoryConstraint;
+import org.arcrobotics.ftclib.files.trajectory.constraint.TrajectoryConstraint;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves generated trajectories to files, so an OpMode's init only has to generate a trajectory
+ * the first time it is run, or after its waypoints or config change.
+ * <p>
+ * Each trajectory is saved under a name as a small binary file: a header with the hash of the
+ * waypoints and config it was made from, followed by the time, velocity, acceleration, pose and
+ * curvature of every state. Files are read through a memory mapped buffer, which is much faster
+ * than generating the trajectory again. If the file is missing, can't be read or has a different
+ * hash, the trajectory is generated and the file is written again.
+ * <p>
+ * The hash includes the {@link TrajectoryGenerator#kVersion}, so the trajectories are made again
+ * when the generator changes. It also includes the class of every constraint, and the settings of
+ * constraints which are a {@link HashableTrajectoryConstraint}. The settings of other constraints
+ * can't be seen, so when they change, pass a new version to
+ * {@link #get(String, List, TrajectoryConfig, long)} (or {@link #clear()} the cache).
+ */
+public class TrajectoryCache {
+	/**
+	 * The default folder the trajectories are saved in
+	 */
+	public static final String defaultPath = "/sdcard/FIRST/trajectories/";
+
+	private static final int magic = 0x5452414A; // "TRAJ"
+	private static final int formatVersion = 1;
+	private static final int headerBytes = 4 + 4 + 8 + 4;
+
+	// Time, velocity, acceleration, x, y, heading and curvature
+	private static final int stateBytes = 7 * 8;
+
+	private final File folder;
+
+	/**
+	 * Creates a cache which saves trajectories in a folder
+	 * @param folder the folder to save the trajectories in
+	 */
+	public TrajectoryCache(File folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * Creates a cache which saves trajectories in the {@link #defaultPath}
+	 */
+	public TrajectoryCache() {
+		this(new File(defaultPath));
+	}
+
+	/**
+	 * Loads a saved trajectory, or generates and saves it if the saved one was made from different
+	 * waypoints or config
+	 * @param name the name to save the trajectory under, which should be a valid file name
+	 * @param waypoints the waypoints of the trajectory, as given to the {@link TrajectoryGenerator}
+	 * @param config the config of the trajectory
+	 * @return the trajectory
+	 */
+	public Trajectory get(String name, List<Pose2d> waypoints, TrajectoryConfig config) {
+		return get(name, waypoints, config, 0);
+	}
+
+	/**
+	 * Loads a saved trajectory, or generates and saves it if the saved one was made from different
+	 * waypoints, config or version
+	 * @param name the name to save the trajectory under, which should be a valid file name
+	 * @param waypoints the waypoints of the trajectory, as given to the {@link TrajectoryGenerator}
+	 * @param config the config of the trajectory
+	 * @param version a number to change whenever something the hash can't see changes, such as the
+	 *                settings of a constraint which isn't a {@link HashableTrajectoryConstraint}
+	 * @return the trajectory
+	 */
+	public Trajectory get(String name, List<Pose2d> waypoints, TrajectoryConfig config, long version) {
+		long hash = hash(waypoints, config, version);
+		File file = new File(folder, name + ".traj");
+
+		Trajectory trajectory = load(file, hash);
+		if (trajectory != null) return trajectory;
+
+		trajectory = TrajectoryGenerator.generateTrajectory(waypoints, config);
+		save(file, hash, trajectory);
+		return trajectory;
+	}
+
+	/**
+	 * Deletes every saved trajectory, so they are all generated again
+	 */
+	public void clear() {
+		File[] files = folder.listFiles();
+		if (files == null) return;
+
+		for (File file : files) {
+			if (file.getName().endsWith(".traj")) file.delete();
+		}
+	}
+
+	/**
+	 * Finds a 64 bit FNV-1a hash of everything a trajectory is generated from
+	 * @param waypoints the waypoints of the trajectory
+	 * @param config the config of the trajectory
+	 * @param version the version given by the caller
+	 * @return the hash
+	 */
+	public static long hash(List<Pose2d> waypoints, TrajectoryConfig config, long version) {
+		long hash = 0xcbf29ce484222325L;
+		hash = mix(hash, TrajectoryGenerator.kVersion);
+		hash = mix(hash, version);
+		hash = mix(hash, waypoints.size());
+		for (Pose2d waypoint : waypoints) {
+			hash = mix(hash, Double.doubleToLongBits(waypoint.getX()));
+			hash = mix(hash, Double.doubleToLongBits(waypoint.getY()));
+			hash = mix(hash, Double.doubleToLongBits(waypoint.getRotation().getRadians()));
+		}
+
+		hash = mix(hash, Double.doubleToLongBits(config.getMaxVelocity()));
+		hash = mix(hash, Double.doubleToLongBits(config.getMaxAcceleration()));
+		hash = mix(hash, Double.doubleToLongBits(config.getStartVelocity()));
+		hash = mix(hash, Double.doubleToLongBits(config.getEndVelocity()));
+		hash = mix(hash, config.isReversed() ? 1 : 0);
+		for (TrajectoryConstraint constraint : config.getConstraints()) {
+			hash = mix(hash, constraint.getClass().getName().hashCode());
+			if (constraint instanceof HashableTrajectoryConstraint) {
+				double[] settings = ((HashableTrajectoryConstraint) constraint).getSettings();
+				hash = mix(hash, settings.length);
+				for (double setting : settings) {
+					hash = mix(hash, Double.doubleToLongBits(setting));
+				}
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Adds the 8 bytes of a value to a hash
+	 */
+	private static long mix(long hash, long value) {
+		for (int i = 0; i < 8; i++) {
+			hash ^= (value >>> (i * 8)) & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Reads a saved trajectory
+	 * @param file the file the trajectory was saved in
+	 * @param hash the hash the trajectory should have been made from
+	 * @return the trajectory, or null if the file doesn't exist, can't be read or doesn't match
+	 */
+	private static Trajectory load(File file, long hash) {
+		if (!file.isFile()) return null;
+
+		try (RandomAccessFile input = new RandomAccessFile(file, "r");
+		     FileChannel channel = input.getChannel()) {
+			long size = channel.size();
+			if (size < headerBytes) return null;
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt() != magic || buffer.getInt() != formatVersion || buffer.getLong() != hash) {
+				return null;
+			}
+			int count = buffer.getInt();
+			if (count <= 0 || size != headerBytes + (long) count * stateBytes) return null;
+
+			List<Trajectory.State> states = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				double time = buffer.getDouble();
+				double velocity = buffer.getDouble();
+				double acceleration = buffer.getDouble();
+				double x = buffer.getDouble();
+				double y = buffer.getDouble();
+				double heading = buffer.getDouble();
+				double curvature = buffer.getDouble();
+				states.add(new Trajectory.State(
+						time, velocity, acceleration, new Pose2d(x, y, new Rotation2d(heading)), curvature
+				));
+			}
+			return new Trajectory(states);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Saves a trajectory, replacing the file at once so a half written file is never read
+	 * @param file the file to save the trajectory in
+	 * @param hash the hash the trajectory was made from
+	 * @param trajectory the trajectory
+	 */
+	private void save(File file, long hash, Trajectory trajectory) {
+		if (!folder.exists() && !folder.mkdirs()) return;
+
+		List<Trajectory.State> states = trajectory.getStates();
+		ByteBuffer buffer = ByteBuffer.allocate(headerBytes + states.size() * stateBytes);
+		buffer.putInt(magic).putInt(formatVersion).putLong(hash).putInt(states.size());
+		for (Trajectory.State state : states) {
+			buffer.putDouble(state.timeSeconds);
+			buffer.putDouble(state.velocityMetersPerSecond);
+			buffer.putDouble(state.accelerationMetersPerSecondSq);
+			buffer.putDouble(state.poseMeters.getX());
+			buffer.putDouble(state.poseMeters.getY());
+			buffer.putDouble(state.poseMeters.getRotation().getRadians());
+			buffer.putDouble(state.curvatureRadPerMeter);
+		}
+		buffer.flip();
+
+		File temporary = new File(folder, file.getName() + ".tmp");
+		try (FileOutputStream output = new FileOutputStream(temporary);
+		     FileChannel channel = output.getChannel()) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			temporary.delete();
+			return;
+		}
+		if (!temporary.renameTo(file)) temporary.delete();
+	}
+}
@@ -0,0 +1,252 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.arcrobotics.ftclib.files.controller.PIDController;
+import org.arcrobotics.ftclib.files.controller.wpilibcontroller.SimpleMotorFeedforward;
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.trajectory.Trajectory;
+import org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfController;
+
+import java.util.List;
+
+import static org.firstinspires.ftc.teamcode.java.util.Constants.PI;
+import static org.firstinspires.ftc.teamcode.java.util.Constants.TAU;
+
+/**
+ * Follows an ftclib {@link Trajectory} by time with a mecanum drive, which can drive in any
+ * direction while keeping its own heading.
+ * <p>
+ * Every update samples the trajectory at the time since {@link #start()}, from a
+ * {@link CompiledTrajectory} so the loop doesn't allocate. The state's speed along
+ * the path, its acceleration, and the sideways acceleration v²κ from its curvature are turned into
+ * drive and strafe powers with feedforward, and the x and y PID Loops correct for the distance
+ * between the robot and the sampled pose. The turn PID Loop keeps the robot at a fixed angle
+ * instead of the trajectory's heading, which is only the direction of travel.
+ * <p>
+ * While following, a {@link TrajectoryReplanner} can plan a new trajectory from where the robot will
+ * be once planning is done. The follower switches to it at that time, without stopping.
+ * <p>
+ * Trajectories are made by ftclib's TrajectoryGenerator in meters, with x and y the field positions
+ * used by {@link ActiveLocation} and the heading measured from the x axis. The feedforward gains
+ * are the kS, kV and kA found by the {@link
+ * org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfTuner} for the drive and
+ * strafe axes, in power per mm/s.
+ */
+public class TrajectoryFollower {
+	private static final double millimetersPerMeter = 1000;
+
+	private CompiledTrajectory trajectory;
+	private final SimpleMotorFeedforward driveFeedforward, strafeFeedforward;
+	private final PIDController xController, yController;
+	private final PositionPidfController turnPid;
+	private final double angle;
+	private final ElapsedTime timer = new ElapsedTime();
+
+	/**
+	 * How close the robot has to be to the end of the trajectory to have finished, in mm
+	 */
+	private double tolerance = 20;
+
+	private final double[] sample = new double[CompiledTrajectory.sampleSize];
+	private final double[] prediction = new double[CompiledTrajectory.sampleSize];
+
+	/**
+	 * The time on the timer the current trajectory started at
+	 */
+	private double trajectoryStart;
+
+	private TrajectoryReplanner replanner;
+	private TrajectoryReplanner.Plan pending;
+
+	/**
+	 * Creates a follower
+	 * @param trajectory the trajectory to follow, in meters, which can be resampled for faster
+	 *                   sampling
+	 * @param driveFeedforward the feedforward for driving forwards, in power per mm/s
+	 * @param strafeFeedforward the feedforward for strafing, in power per mm/s
+	 * @param xController the PID Loop giving the correction in mm/s for an x error in mm
+	 * @param yController the PID Loop giving the correction in mm/s for a y error in mm
+	 * @param turnPid the PID Loop which keeps the robot's angle
+	 * @param angle the angle to keep the robot at, like {@link ActiveLocation#getAngle()}
+	 */
+	public TrajectoryFollower(CompiledTrajectory trajectory, SimpleMotorFeedforward driveFeedforward,
+	                          SimpleMotorFeedforward strafeFeedforward, PIDController xController,
+	                          PIDController yController, PositionPidfController turnPid, double angle) {
+		this.trajectory = trajectory;
+		this.driveFeedforward = driveFeedforward;
+		this.strafeFeedforward = strafeFeedforward;
+		this.xController = xController;
+		this.yController = yController;
+		this.turnPid = turnPid;
+		this.angle = angle;
+		trajectory.sampleInto(0, sample);
+	}
+
+	/**
+	 * Creates a follower for an ftclib trajectory
+	 * @param trajectory the trajectory to follow, in meters
+	 * @param driveFeedforward the feedforward for driving forwards, in power per mm/s
+	 * @param strafeFeedforward the feedforward for strafing, in power per mm/s
+	 * @param xController the PID Loop giving the correction in mm/s for an x error in mm
+	 * @param yController the PID Loop giving the correction in mm/s for a y error in mm
+	 * @param turnPid the PID Loop which keeps the robot's angle
+	 * @param angle the angle to keep the robot at, like {@link ActiveLocation#getAngle()}
+	 */
+	public TrajectoryFollower(Trajectory trajectory, SimpleMotorFeedforward driveFeedforward,
+	                          SimpleMotorFeedforward strafeFeedforward, PIDController xController,
+	                          PIDController yController, PositionPidfController turnPid, double angle) {
+		this(
+				CompiledTrajectory.fromTrajectory(trajectory), driveFeedforward, strafeFeedforward,
+				xController, yController, turnPid, angle
+		);
+	}
+
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Starts the trajectory's clock, which should be done just before the first update
+	 */
+	public void start() {
+		xController.reset();
+		yController.reset();
+		trajectoryStart = 0;
+		pending = null;
+		timer.reset();
+	}
+
+	/**
+	 * @return the time since the current trajectory started, in seconds
+	 */
+	public double getTime() {
+		return timer.seconds() - trajectoryStart;
+	}
+
+	/**
+	 * Asks a re-planner for a new trajectory through waypoints, which starts where the robot will be
+	 * once the re-planner's budget is over. That is where the current trajectory will be then, moved
+	 * by how far the robot is off it now. The follower switches to the new trajectory when it
+	 * starts, and keeps following the current one until then, or if it isn't planned in time.
+	 * @param replanner the re-planner
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @param waypoints the waypoints to drive through, in meters like the trajectory
+	 */
+	public void replan(TrajectoryReplanner replanner, double x, double y, List<Pose2d> waypoints) {
+		this.replanner = replanner;
+
+		double now = getTime();
+		double switchTime = now + replanner.getBudget();
+		trajectory.sampleInto(now, prediction);
+		double errorX = x / millimetersPerMeter - prediction[CompiledTrajectory.xIndex];
+		double errorY = y / millimetersPerMeter - prediction[CompiledTrajectory.yIndex];
+
+		trajectory.sampleInto(switchTime, prediction);
+		double speed = switchTime < trajectory.getTotalTime() ? prediction[CompiledTrajectory.velocityIndex] : 0;
+		double heading = prediction[CompiledTrajectory.headingIndex];
+		replanner.request(
+				prediction[CompiledTrajectory.xIndex] + errorX, prediction[CompiledTrajectory.yIndex] + errorY,
+				speed * Math.cos(heading), speed * Math.sin(heading), trajectoryStart + switchTime, waypoints
+		);
+	}
+
+	/**
+	 * @return the sample from the last update, read with the {@link CompiledTrajectory} indices
+	 */
+	public double[] getSample() {
+		return sample;
+	}
+
+	/**
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @return whether the trajectory's time is over and the robot is at its end
+	 */
+	public boolean isFinished(double x, double y) {
+		if (pending != null || getTime() < trajectory.getTotalTime()) return false;
+
+		int last = trajectory.size() - 1;
+		return Math.hypot(
+				trajectory.getStateX(last) * millimetersPerMeter - x,
+				trajectory.getStateY(last) * millimetersPerMeter - y
+		) < tolerance;
+	}
+
+	/**
+	 * Finds how much of the trajectory is left, for a {@link MoveWatchdog}. This is the distance
+	 * along the trajectory from the sample of the last update to the end, plus how far the robot is
+	 * from that sample, so it doesn't go down while the robot is stuck even though the sample moves
+	 * on.
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @return the distance left, in mm
+	 */
+	public double getRemainingDistance(double x, double y) {
+		double alongTrajectory = trajectory.getTotalDistance() - sample[CompiledTrajectory.distanceIndex];
+		return alongTrajectory * millimetersPerMeter + Math.hypot(
+				sample[CompiledTrajectory.xIndex] * millimetersPerMeter - x,
+				sample[CompiledTrajectory.yIndex] * millimetersPerMeter - y
+		);
+	}
+
+	/**
+	 * Finds the powers to follow the trajectory from a pose
+	 * @param x the field x position of the robot
+	 * @param y the field y position of the robot
+	 * @param angle the angle of the robot, like {@link ActiveLocation#getAngle()}
+	 * @param powers an array of at least 3 which the drive, strafe and turn powers are written into
+	 * @return the powers array
+	 */
+	public double[] update(double x, double y, double angle, double[] powers) {
+		if (replanner != null) {
+			TrajectoryReplanner.Plan plan = replanner.poll();
+			if (plan != null) pending = plan;
+		}
+		if (pending != null && timer.seconds() >= pending.getStartTime()) {
+			trajectory = pending.getTrajectory();
+			trajectoryStart = pending.getStartTime();
+			pending = null;
+		}
+
+		double time = getTime();
+		trajectory.sampleInto(time, sample);
+		double cosHeading = Math.cos(sample[CompiledTrajectory.headingIndex]);
+		double sinHeading = Math.sin(sample[CompiledTrajectory.headingIndex]);
+
+		// The last state still has the acceleration it braked with, so once the trajectory is over
+		// only the PID Loops are used to hold the robot at its end
+		double speed = 0, acceleration = 0;
+		if (time < trajectory.getTotalTime()) {
+			speed = sample[CompiledTrajectory.velocityIndex] * millimetersPerMeter;
+			acceleration = sample[CompiledTrajectory.accelerationIndex] * millimetersPerMeter;
+		}
+		// The sideways acceleration needed to follow the curve, towards its centre
+		double centripetal = speed * speed * sample[CompiledTrajectory.curvatureIndex] / millimetersPerMeter;
+
+		double velocityX = speed * cosHeading
+				+ xController.calculate(x, sample[CompiledTrajectory.xIndex] * millimetersPerMeter);
+		double velocityY = speed * sinHeading
+				+ yController.calculate(y, sample[CompiledTrajectory.yIndex] * millimetersPerMeter);
+		double accelerationX = acceleration * cosHeading - centripetal * sinHeading;
+		double accelerationY = acceleration * sinHeading + centripetal * cosHeading;
+
+		// Turns the velocity and acceleration into the robot's frame, like PathFinder
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		powers[0] = driveFeedforward.calculate(
+				velocityY * cos - velocityX * sin, accelerationY * cos - accelerationX * sin
+		);
+		powers[1] = strafeFeedforward.calculate(
+				velocityX * cos + velocityY * sin, accelerationX * cos + accelerationY * sin
+		);
+
+		// The angle error is taken the same way as in AutoDrivingNew.calculateDrivePowers
+		double angleError = (this.angle - angle) % TAU;
+		if (angleError > PI) angleError -= TAU;
+		if (angleError < -PI) angleError += TAU;
+		powers[2] = turnPid.calculate(angleError);
+		return powers;
+	}
+}
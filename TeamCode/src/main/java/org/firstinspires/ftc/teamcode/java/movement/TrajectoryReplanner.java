@@ -0,0 +1,252 @@
+package org.firstinspires.ftc.teamcode.java.movement;
+
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.geometry.Rotation2d;
+import org.arcrobotics.ftclib.files.spline.PoseWithCurvature;
+import org.arcrobotics.ftclib.files.spline.Spline;
+import org.arcrobotics.ftclib.files.spline.SplineHelper;
+import org.arcrobotics.ftclib.files.spline.SplineParameterizer;
+import org.arcrobotics.ftclib.files.trajectory.Trajectory;
+import org.arcrobotics.ftclib.files.trajectory.TrajectoryConfig;
+import org.arcrobotics.ftclib.files.trajectory.TrajectoryParameterizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plans new trajectories on a background thread while the robot keeps driving, for example to
+ * change where the robot goes once the ring stack has been seen after START.
+ * <p>
+ * A plan starts from where the robot is expected to be a time budget after it was asked for, with
+ * the speed it will have then, so the {@link TrajectoryFollower} can switch to it without
+ * stopping. If planning takes longer than the budget, the plan would start behind the robot, so it
+ * is thrown away and counted as missed. Only the newest request is planned; older ones which
+ * haven't finished are thrown away too.
+ * <p>
+ * The splines are cached by their control vectors once they are parameterized. Like the
+ * TrajectoryGenerator, a spline is made between every two neighbouring control vectors, and the
+ * vectors of a segment are scaled by its length. So when a new plan keeps the rest of the route,
+ * moving the start changes the first two splines: the one from the robot's position, and the one
+ * joining it to the next segment. Those are parameterized again, the rest come from the cache,
+ * and just the fast time parameterization is redone for the whole trajectory.
+ * <p>
+ * Positions and speeds are the trajectory's (meters), like ftclib's TrajectoryGenerator.
+ */
+public class TrajectoryReplanner {
+	/**
+	 * How many parameterized splines are kept
+	 */
+	private static final int cacheSize = 64;
+
+	/**
+	 * Below this speed (m/s) the robot is treated as stopped, and the first spline starts towards
+	 * the first waypoint instead of along the robot's direction of travel
+	 */
+	private static final double stoppedSpeed = 0.05;
+
+	/**
+	 * A finished plan
+	 */
+	public static final class Plan {
+		private final CompiledTrajectory trajectory;
+		private final double startTime;
+
+		private Plan(CompiledTrajectory trajectory, double startTime) {
+			this.trajectory = trajectory;
+			this.startTime = startTime;
+		}
+
+		public CompiledTrajectory getTrajectory() {
+			return trajectory;
+		}
+
+		/**
+		 * @return the time the plan starts at, on the clock of whoever asked for it
+		 */
+		public double getStartTime() {
+			return startTime;
+		}
+	}
+
+	private final TrajectoryConfig config;
+	private final double budget;
+	private final ExecutorService executor;
+
+	// Only used on the planning thread
+	private final Map<SplineKey, List<PoseWithCurvature>> splineCache =
+			new LinkedHashMap<SplineKey, List<PoseWithCurvature>>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<SplineKey, List<PoseWithCurvature>> eldest) {
+					return size() > cacheSize;
+				}
+			};
+
+	private final AtomicInteger latestRequest = new AtomicInteger();
+	private final AtomicReference<Plan> finished = new AtomicReference<>();
+	private final AtomicInteger missedPlans = new AtomicInteger();
+
+	/**
+	 * Creates a re-planner
+	 * @param config the limits and constraints of the trajectories. Its start velocity is replaced
+	 *               by the robot's speed, and reversing isn't used.
+	 * @param budget how long a plan can take, in seconds, which is also how far ahead it starts
+	 */
+	public TrajectoryReplanner(TrajectoryConfig config, double budget) {
+		this.config = config;
+		this.budget = budget;
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "TrajectoryReplanner");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public double getBudget() {
+		return budget;
+	}
+
+	/**
+	 * @return how many plans were thrown away for going over the budget or failing
+	 */
+	public int getMissedPlans() {
+		return missedPlans.get();
+	}
+
+	/**
+	 * Asks for a plan from a state the robot will be in once the budget is over. This returns at
+	 * once, and the plan is collected with {@link #poll()}.
+	 * @param x the x position the plan starts at
+	 * @param y the y position the plan starts at
+	 * @param velocityX the x velocity the plan starts with
+	 * @param velocityY the y velocity the plan starts with
+	 * @param startTime the time the plan starts at, which is given back with the plan
+	 * @param waypoints the waypoints to drive through after the start, where the last heading is
+	 *                  the direction of travel at the end
+	 */
+	public void request(final double x, final double y, final double velocityX, final double velocityY,
+	                    final double startTime, List<Pose2d> waypoints) {
+		final List<Pose2d> route = new ArrayList<>(waypoints);
+		final int request = latestRequest.incrementAndGet();
+		final long deadline = System.nanoTime() + (long) (budget * 1e9);
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				// A newer request replaces this one
+				if (request != latestRequest.get()) return;
+
+				CompiledTrajectory trajectory = plan(x, y, velocityX, velocityY, route);
+				if (trajectory == null || System.nanoTime() > deadline) {
+					missedPlans.incrementAndGet();
+					return;
+				}
+				if (request == latestRequest.get()) {
+					finished.set(new Plan(trajectory, startTime));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Takes the newest finished plan
+	 * @return the plan, or null if no plan has finished since the last poll
+	 */
+	public Plan poll() {
+		return finished.getAndSet(null);
+	}
+
+	/**
+	 * Stops the planning thread
+	 */
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Plans a trajectory from a start state through waypoints
+	 * @return the trajectory, or null if the splines couldn't be parameterized
+	 */
+	private CompiledTrajectory plan(double x, double y, double velocityX, double velocityY,
+	                                List<Pose2d> waypoints) {
+		if (waypoints.isEmpty()) return null;
+
+		double speed = Math.hypot(velocityX, velocityY);
+		Rotation2d heading;
+		if (speed > stoppedSpeed) {
+			heading = new Rotation2d(velocityX, velocityY);
+		} else {
+			Pose2d first = waypoints.get(0);
+			heading = new Rotation2d(first.getX() - x, first.getY() - y);
+		}
+
+		List<Pose2d> route = new ArrayList<>(waypoints.size() + 1);
+		route.add(new Pose2d(x, y, heading));
+		route.addAll(waypoints);
+
+		List<Spline.ControlVector> vectors = SplineHelper.getQuinticControlVectorsFromWaypoints(route);
+		Spline[] splines = SplineHelper.getQuinticSplinesFromControlVectors(
+				vectors.toArray(new Spline.ControlVector[0])
+		);
+
+		List<PoseWithCurvature> points = new ArrayList<>();
+		try {
+			for (int i = 0; i < splines.length; i++) {
+				SplineKey key = new SplineKey(vectors.get(i), vectors.get(i + 1));
+				List<PoseWithCurvature> splinePoints = splineCache.get(key);
+				if (splinePoints == null) {
+					splinePoints = SplineParameterizer.parameterize(splines[i]);
+					splineCache.put(key, splinePoints);
+				}
+				// The first point of each spline is the last point of the one before it
+				points.addAll(i == 0 ? splinePoints : splinePoints.subList(1, splinePoints.size()));
+			}
+		} catch (SplineParameterizer.MalformedSplineException e) {
+			return null;
+		}
+
+		Trajectory trajectory = TrajectoryParameterizer.timeParameterizeTrajectory(
+				points, config.getConstraints(), Math.min(speed, config.getMaxVelocity()),
+				config.getEndVelocity(), config.getMaxVelocity(), config.getMaxAcceleration(), false
+		);
+		return CompiledTrajectory.fromTrajectory(trajectory);
+	}
+
+	/**
+	 * The control vectors at both ends of a spline, which are all it depends on
+	 */
+	private static final class SplineKey {
+		private final double[] values;
+		private final int hash;
+
+		SplineKey(Spline.ControlVector initial, Spline.ControlVector last) {
+			values = new double[initial.x.length * 4];
+			int length = initial.x.length;
+			System.arraycopy(initial.x, 0, values, 0, length);
+			System.arraycopy(initial.y, 0, values, length, length);
+			System.arraycopy(last.x, 0, values, length * 2, length);
+			System.arraycopy(last.y, 0, values, length * 3, length);
+			hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof SplineKey && Arrays.equals(values, ((SplineKey) other).values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
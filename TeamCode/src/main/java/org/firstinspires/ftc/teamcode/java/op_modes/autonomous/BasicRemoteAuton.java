@@ -100,12 +100,12 @@ public class BasicRemoteAuton extends LinearOpMode {
 
             //Path B:
 
-	        wobbleGrip.setPosition(Constants.lowerWobbleDown);
+	        wobbleGrip.setPosition(Constants.lowerWobbleDown.get());
 	        sleep(100);
 	        //moveY(Constants.navLineY);
 	        sleep(1000);
             moveY(2000);
-            wobbleGrip.setPosition(Constants.lowerWobbleUp);
+            wobbleGrip.setPosition(Constants.lowerWobbleUp.get());
             telemetry.speak("Wobble one");
             sleep(5000);
             turnTo(0);
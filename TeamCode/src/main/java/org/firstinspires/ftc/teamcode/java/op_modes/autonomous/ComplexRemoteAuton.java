@@ -111,7 +111,7 @@ public class ComplexRemoteAuton extends LinearOpMode {
 					autoDriving.stopAt(MovementData.withDegrees(startPosx,1900,0),.3);
 					//autoDriving.driveY(1900);
 				}
-				lowerWobble.setPosition(Constants.lowerWobbleUp);
+				lowerWobble.setPosition(Constants.lowerWobbleUp.get());
 				autoDriving.freeDriveXY(-150,-150,.3); //Backs away from wobble
 				//autoDriving.freeDriveY(-150);
 				autoDriving.stopAt(MovementData.withDegrees(startPosx,2070,0),.3);
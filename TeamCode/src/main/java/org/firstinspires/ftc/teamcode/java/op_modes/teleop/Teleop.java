@@ -133,10 +133,10 @@ public class Teleop extends LinearOpMode {
                 }
                 //Lower wobble movement
                 if (gamepad1.right_bumper){
-                    if (lowerWobble.getPosition()>=(Math.abs(Constants.lowerWobbleUp-.2))){
-                        lowerWobble.setPosition(Constants.lowerWobbleDown);
+                    if (lowerWobble.getPosition()>=(Math.abs(Constants.lowerWobbleUp.get()-.2))){
+                        lowerWobble.setPosition(Constants.lowerWobbleDown.get());
                     }else{
-                        lowerWobble.setPosition(Constants.lowerWobbleUp);
+                        lowerWobble.setPosition(Constants.lowerWobbleUp.get());
                     }
 
                 }
@@ -0,0 +1,134 @@
+package org.firstinspires.ftc.teamcode.java.tests;
+
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.java.drivebase.MecanumDrive;
+import org.firstinspires.ftc.teamcode.java.movement.ActiveLocation;
+import org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfTuner;
+import org.firstinspires.ftc.teamcode.java.util.PositionControl.SimulatedDrivetrainAxis;
+import org.firstinspires.ftc.teamcode.java.util.RobotHardware;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the {@link PositionPidfTuner} on one axis and shows the suggested constants.
+ * <p>
+ * During init, use the dpad to pick the axis and X to switch between the robot and the
+ * simulated drivetrain. The robot needs about 1.5 m of clear space along the tuned axis
+ * (or room to spin for the turn axis). The recorded poses are saved to
+ * /sdcard/FIRST/autotune/ so they can be looked at on a computer.
+ */
+@Autonomous(name = "AutoTuneTest", group = "Testing")
+public class AutoTuneTest extends LinearOpMode {
+
+	private static final String logFolder = "/sdcard/FIRST/autotune/";
+
+	RobotHardware robot = new RobotHardware();
+	private final ElapsedTime runtime = new ElapsedTime();
+
+	private PositionPidfTuner.Axis axis = PositionPidfTuner.Axis.DRIVE;
+	private boolean simulated = false;
+
+	@Override
+	public void runOpMode() {
+		boolean wasPressed = false;
+		while (!isStarted() && !isStopRequested()) {
+			boolean pressed = gamepad1.dpad_left || gamepad1.dpad_right || gamepad1.x;
+			if (pressed && !wasPressed) {
+				PositionPidfTuner.Axis[] axes = PositionPidfTuner.Axis.values();
+				if (gamepad1.dpad_right) axis = axes[(axis.ordinal() + 1) % axes.length];
+				if (gamepad1.dpad_left) axis = axes[(axis.ordinal() + axes.length - 1) % axes.length];
+				if (gamepad1.x) simulated = !simulated;
+			}
+			wasPressed = pressed;
+
+			telemetry.addData("Axis (dpad)", axis);
+			telemetry.addData("Plant (X)", simulated ? "Simulated" : "Robot");
+			telemetry.update();
+			idle();
+		}
+
+		if (isStopRequested()) return;
+
+		PositionPidfTuner tuner = simulated ? runSimulated() : runOnRobot();
+		if (tuner == null) return;
+
+		String saved;
+		try {
+			File file = new File(logFolder + axis.name().toLowerCase() + ".csv");
+			tuner.getLogger().writeCsv(file);
+			saved = file.getPath();
+		} catch (IOException e) {
+			saved = "Failed: " + e.getMessage();
+		}
+
+		while (opModeIsActive()) {
+			telemetry.addData("Axis", axis);
+			telemetry.addData("kS", tuner.getKs());
+			telemetry.addData("kV", tuner.getKv());
+			telemetry.addData("kA", tuner.getKa());
+			telemetry.addData("Samples", "%d of %d", tuner.getSamplesUsed(), tuner.getLogger().size());
+			telemetry.addData("Suggested", tuner.getSuggestion());
+			telemetry.addData("Log", saved);
+			telemetry.update();
+			idle();
+		}
+	}
+
+	/**
+	 * Tunes against a drivetrain model with roughly our robot's gains, to check the tuner
+	 */
+	private PositionPidfTuner runSimulated() {
+		SimulatedDrivetrainAxis plant;
+		if (axis == PositionPidfTuner.Axis.TURN) {
+			plant = new SimulatedDrivetrainAxis(0.08, 0.25, 0.04);
+			plant.setNoise(0.002);
+		} else {
+			plant = new SimulatedDrivetrainAxis(0.06, 6.7e-4, 1e-4);
+			plant.setNoise(0.3);
+		}
+		return PositionPidfTuner.runSimulation(plant, axis, 0.01);
+	}
+
+	/**
+	 * Drives the robot through the tuner's patterns until it is done or the OpMode is stopped
+	 */
+	private PositionPidfTuner runOnRobot() {
+		robot.init(hardwareMap);
+		ActiveLocation activeLocation = new ActiveLocation(robot);
+		PositionPidfTuner tuner = new PositionPidfTuner(axis);
+
+		runtime.reset();
+		while (opModeIsActive() && !tuner.isFinished()) {
+			double power = tuner.update(
+					runtime.seconds(),
+					activeLocation.getFieldX(),
+					activeLocation.getFieldY(),
+					activeLocation.getAngle()
+			);
+
+			double[] wheelSpeeds = MecanumDrive.calculateDrivePowers(
+					axis == PositionPidfTuner.Axis.DRIVE ? power : 0,
+					axis == PositionPidfTuner.Axis.STRAFE ? power : 0,
+					axis == PositionPidfTuner.Axis.TURN ? power : 0
+			);
+			robot.frontLeftMotor.setPower(wheelSpeeds[0]);
+			robot.frontRightMotor.setPower(wheelSpeeds[1]);
+			robot.backLeftMotor.setPower(wheelSpeeds[2]);
+			robot.backRightMotor.setPower(wheelSpeeds[3]);
+
+			telemetry.addData("Power", power);
+			telemetry.update();
+		}
+
+		robot.frontLeftMotor.setPower(0);
+		robot.frontRightMotor.setPower(0);
+		robot.backLeftMotor.setPower(0);
+		robot.backRightMotor.setPower(0);
+
+		return tuner.isFinished() ? tuner : null;
+	}
+}
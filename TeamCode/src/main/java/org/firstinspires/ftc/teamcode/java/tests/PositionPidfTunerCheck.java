@@ -0,0 +1,91 @@
+package org.firstinspires.ftc.teamcode.java.tests;
+
+import org.firstinspires.ftc.teamcode.java.util.PositionControl.PositionPidfTuner;
+import org.firstinspires.ftc.teamcode.java.util.PositionControl.SimulatedDrivetrainAxis;
+
+import java.util.Locale;
+
+/**
+ * Checks how well {@link PositionPidfTuner} finds the gains of a {@link SimulatedDrivetrainAxis}.
+ * <p>
+ * This runs on a computer instead of the robot: run {@link #main(String[])} with the team code
+ * on the class path. Each plant is tuned and every fitted gain is compared to the true one. The
+ * check fails (and exits with 1) if any gain is further off than the tolerance of its case. The
+ * noise is in the units of the axis, millimetres for driving and radians for turning.
+ */
+public class PositionPidfTunerCheck {
+	/**
+	 * The time step of the simulated control loop in seconds
+	 */
+	private static final double DT = 0.01;
+
+	private static final Case[] CASES = {
+			// Without noise the only error left is from sampling the positions
+			new Case("drive, no noise", PositionPidfTuner.Axis.DRIVE, 0.06, 6.7e-4, 1e-4, 0, 0.01, 0.01, 0.01),
+			new Case("turn, no noise", PositionPidfTuner.Axis.TURN, 0.08, 0.25, 0.04, 0, 0.01, 0.01, 0.01),
+			// Noise makes kS the least certain gain, since it is fitted from the ramps
+			new Case("drive, 0.3 mm noise", PositionPidfTuner.Axis.DRIVE, 0.06, 6.7e-4, 1e-4, 0.3, 0.05, 0.02, 0.05),
+			new Case("strafe, 1 mm noise", PositionPidfTuner.Axis.STRAFE, 0.06, 6.7e-4, 1e-4, 1, 0.1, 0.02, 0.05),
+			new Case("turn, 2 mrad noise", PositionPidfTuner.Axis.TURN, 0.08, 0.25, 0.04, 0.002, 0.05, 0.02, 0.05),
+			new Case("turn, 5 mrad noise", PositionPidfTuner.Axis.TURN, 0.08, 0.25, 0.04, 0.005, 0.1, 0.02, 0.05),
+			new Case("slow turn, 2 mrad noise", PositionPidfTuner.Axis.TURN, 0.05, 0.3, 0.1, 0.002, 0.25, 0.05, 0.05),
+	};
+
+	public static void main(String[] args) {
+		boolean passed = true;
+		for (Case check : CASES) {
+			passed &= check.run();
+		}
+		System.out.println(passed ? "All gains are within tolerance" : "Some gains are outside the tolerance");
+		if (!passed) System.exit(1);
+	}
+
+	private static class Case {
+		final String name;
+		final PositionPidfTuner.Axis axis;
+		final double kS, kV, kA, noise;
+		final double kSTolerance, kVTolerance, kATolerance;
+
+		/**
+		 * @param kSTolerance how far off kS can be, as a fraction of the true kS (and the same for
+		 *                    kV and kA)
+		 */
+		Case(String name, PositionPidfTuner.Axis axis, double kS, double kV, double kA, double noise,
+			 double kSTolerance, double kVTolerance, double kATolerance) {
+			this.name = name;
+			this.axis = axis;
+			this.kS = kS;
+			this.kV = kV;
+			this.kA = kA;
+			this.noise = noise;
+			this.kSTolerance = kSTolerance;
+			this.kVTolerance = kVTolerance;
+			this.kATolerance = kATolerance;
+		}
+
+		boolean run() {
+			SimulatedDrivetrainAxis plant = new SimulatedDrivetrainAxis(kS, kV, kA);
+			plant.setNoise(noise);
+			PositionPidfTuner tuner = PositionPidfTuner.runSimulation(plant, axis, DT);
+
+			System.out.println(name + ":");
+			boolean passed = compare("kS", tuner.getKs(), kS, kSTolerance);
+			passed &= compare("kV", tuner.getKv(), kV, kVTolerance);
+			passed &= compare("kA", tuner.getKa(), kA, kATolerance);
+			System.out.println("  " + tuner.getSuggestion());
+			return passed;
+		}
+
+		private static boolean compare(String gain, double fitted, double actual, double tolerance) {
+			double error = fitted / actual - 1;
+			// A NaN gain fails as well
+			boolean passed = Math.abs(error) <= tolerance;
+			System.out.println(String.format(
+					Locale.US,
+					"  %s %.4g (true %.4g, %+.1f%%, tolerance %.0f%%) %s",
+					gain, fitted, actual, error * 100, tolerance * 100, passed ? "ok" : "FAILED"
+			));
+			return passed;
+		}
+	}
+}
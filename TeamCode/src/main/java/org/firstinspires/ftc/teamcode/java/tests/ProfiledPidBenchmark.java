@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode.java.tests;
+
+import android.os.Debug;
+
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+
+import org.arcrobotics.ftclib.files.controller.PIDController;
+import org.arcrobotics.ftclib.files.controller.wpilibcontroller.ProfiledPIDController;
+import org.arcrobotics.ftclib.files.trajectory.TrapezoidProfile;
+
+/**
+ * Measures the per call cost of {@link ProfiledPIDController#calculate(double)}.
+ * <p>
+ * The "old" loop does what the controller used to do every call (build a new profile and a new
+ * setpoint) with a copy of the previous {@link TrapezoidProfile}, which also copied the goal and
+ * initial states, so its cost is the one before the change. The "new" loop uses the controller
+ * which re-plans one profile in place. Both loops switch goals part way through
+ * so re-planning mid-motion is included. No hardware is needed.
+ */
+@TeleOp(name = "Profiled PID Benchmark", group = "Testing")
+public class ProfiledPidBenchmark extends LinearOpMode {
+
+	/**
+	 * The number of calls that are timed for each version
+	 */
+	private static final int ITERATIONS = 200000;
+
+	/**
+	 * The number of calls made before timing so the runtime has warmed up
+	 */
+	private static final int WARMUP = 20000;
+
+	private static final TrapezoidProfile.Constraints CONSTRAINTS =
+			new TrapezoidProfile.Constraints(1500, 3000);
+
+	@Override
+	public void runOpMode() {
+		telemetry.addData("Status", "Press start to run the benchmark");
+		telemetry.update();
+
+		waitForStart();
+
+		telemetry.addData("Status", "Running...");
+		telemetry.update();
+
+		runOld(WARMUP);
+		runNew(WARMUP);
+
+		Result oldResult = measure(false);
+		Result newResult = measure(true);
+
+		while (opModeIsActive()) {
+			telemetry.addData("Iterations", ITERATIONS);
+			telemetry.addData("Old ns/call", "%.1f", oldResult.nanosPerCall);
+			telemetry.addData("Old allocations", "%d (%d bytes)", oldResult.allocations, oldResult.bytes);
+			telemetry.addData("New ns/call", "%.1f", newResult.nanosPerCall);
+			telemetry.addData("New allocations", "%d (%d bytes)", newResult.allocations, newResult.bytes);
+			telemetry.update();
+			idle();
+		}
+	}
+
+	/**
+	 * Times one version of the loop and counts the objects it allocated on this thread
+	 */
+	@SuppressWarnings("deprecation")
+	private Result measure(boolean useNew) {
+		Debug.resetThreadAllocCount();
+		Debug.resetThreadAllocSize();
+		Debug.startAllocCounting();
+
+		long start = System.nanoTime();
+		double sink = useNew ? runNew(ITERATIONS) : runOld(ITERATIONS);
+		long elapsed = System.nanoTime() - start;
+
+		Debug.stopAllocCounting();
+
+		Result result = new Result();
+		result.nanosPerCall = (double) elapsed / ITERATIONS;
+		result.allocations = Debug.getThreadAllocCount();
+		result.bytes = Debug.getThreadAllocSize();
+		// Keeps the loop from being optimized away
+		result.sink = sink;
+		return result;
+	}
+
+	/**
+	 * The previous implementation of ProfiledPIDController.calculate()
+	 */
+	private double runOld(int iterations) {
+		PIDController controller = new PIDController(0.01, 0, 0.001);
+		TrapezoidProfile.State goal = new TrapezoidProfile.State(1000, 0);
+		TrapezoidProfile.State setpoint = new TrapezoidProfile.State();
+		double output = 0;
+
+		for (int i = 0; i < iterations; i++) {
+			if (i % 500 == 0) {
+				goal = new TrapezoidProfile.State(goal.position > 0 ? -1000 : 1000, 0);
+			}
+			OldTrapezoidProfile profile = new OldTrapezoidProfile(CONSTRAINTS, goal, setpoint);
+			setpoint = profile.calculate(controller.getPeriod());
+			output += controller.calculate(setpoint.position * 0.9, setpoint.position);
+		}
+		return output;
+	}
+
+	/**
+	 * The current implementation of ProfiledPIDController.calculate()
+	 */
+	private double runNew(int iterations) {
+		ProfiledPIDController controller = new ProfiledPIDController(0.01, 0, 0.001, CONSTRAINTS);
+		controller.setGoal(1000);
+		double output = 0;
+
+		for (int i = 0; i < iterations; i++) {
+			if (i % 500 == 0) {
+				controller.setGoal(controller.getGoal().position > 0 ? -1000 : 1000);
+			}
+			output += controller.calculate(controller.getSetpoint().position * 0.9);
+		}
+		return output;
+	}
+
+	/**
+	 * The previous implementation of TrapezoidProfile, which allocated its own copies of the goal and
+	 * initial states and a new state for every result
+	 */
+	private static class OldTrapezoidProfile {
+		private final int direction;
+		private final TrapezoidProfile.Constraints constraints;
+		private final TrapezoidProfile.State initial;
+		private final TrapezoidProfile.State goal;
+
+		private final double endAccel;
+		private final double endFullSpeed;
+		private final double endDeccel;
+
+		OldTrapezoidProfile(TrapezoidProfile.Constraints constraints, TrapezoidProfile.State goal,
+		                    TrapezoidProfile.State initial) {
+			direction = initial.position > goal.position ? -1 : 1;
+			this.constraints = constraints;
+			this.initial = direct(initial);
+			this.goal = direct(goal);
+
+			if (this.initial.velocity > constraints.maxVelocity) {
+				this.initial.velocity = constraints.maxVelocity;
+			}
+
+			double cutoffBegin = this.initial.velocity / constraints.maxAcceleration;
+			double cutoffDistBegin = cutoffBegin * cutoffBegin * constraints.maxAcceleration / 2.0;
+
+			double cutoffEnd = this.goal.velocity / constraints.maxAcceleration;
+			double cutoffDistEnd = cutoffEnd * cutoffEnd * constraints.maxAcceleration / 2.0;
+
+			double fullTrapezoidDist = cutoffDistBegin + (this.goal.position - this.initial.position)
+					+ cutoffDistEnd;
+			double accelerationTime = constraints.maxVelocity / constraints.maxAcceleration;
+
+			double fullSpeedDist = fullTrapezoidDist - accelerationTime * accelerationTime
+					* constraints.maxAcceleration;
+
+			if (fullSpeedDist < 0) {
+				accelerationTime = Math.sqrt(fullTrapezoidDist / constraints.maxAcceleration);
+				fullSpeedDist = 0;
+			}
+
+			endAccel = accelerationTime - cutoffBegin;
+			endFullSpeed = endAccel + fullSpeedDist / constraints.maxVelocity;
+			endDeccel = endFullSpeed + accelerationTime - cutoffEnd;
+		}
+
+		TrapezoidProfile.State calculate(double t) {
+			TrapezoidProfile.State result = new TrapezoidProfile.State(initial.position, initial.velocity);
+
+			if (t < endAccel) {
+				result.velocity += t * constraints.maxAcceleration;
+				result.position += (initial.velocity + t * constraints.maxAcceleration / 2.0) * t;
+			} else if (t < endFullSpeed) {
+				result.velocity = constraints.maxVelocity;
+				result.position += (initial.velocity + endAccel * constraints.maxAcceleration / 2.0) * endAccel
+						+ constraints.maxVelocity * (t - endAccel);
+			} else if (t <= endDeccel) {
+				result.velocity = goal.velocity + (endDeccel - t) * constraints.maxAcceleration;
+				double timeLeft = endDeccel - t;
+				result.position = goal.position - (goal.velocity + timeLeft * constraints.maxAcceleration / 2.0)
+						* timeLeft;
+			} else {
+				result = goal;
+			}
+
+			return direct(result);
+		}
+
+		private TrapezoidProfile.State direct(TrapezoidProfile.State in) {
+			return new TrapezoidProfile.State(in.position * direction, in.velocity * direction);
+		}
+	}
+
+	private static class Result {
+		double nanosPerCall;
+		long allocations;
+		long bytes;
+		double sink;
+	}
+}
@@ -0,0 +1,329 @@
+package org.firstinspires.ftc.teamcode.java.tests;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.arcrobotics.ftclib.files.geometry.Pose2d;
+import org.arcrobotics.ftclib.files.geometry.Rotation2d;
+import org.arcrobotics.ftclib.files.geometry.Transform2d;
+import org.arcrobotics.ftclib.files.geometry.Translation2d;
+import org.arcrobotics.ftclib.files.geometry.Twist2d;
+import org.arcrobotics.ftclib.files.spline.PoseWithCurvature;
+import org.arcrobotics.ftclib.files.spline.Spline;
+import org.arcrobotics.ftclib.files.spline.SplineHelper;
+import org.arcrobotics.ftclib.files.trajectory.Trajectory;
+import org.arcrobotics.ftclib.files.trajectory.TrajectoryConfig;
+import org.arcrobotics.ftclib.files.trajectory.TrajectoryGenerator;
+import org.arcrobotics.ftclib.files.trajectory.constraint.CentripetalAccelerationConstraint;
+import org.arcrobotics.ftclib.files.trajectory.constraint.MecanumStrafeConstraint;
+import org.arcrobotics.ftclib.files.trajectory.constraint.TrajectoryConstraint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that {@link TrajectoryGenerator} gives exactly the same trajectories as the spline and
+ * trajectory parameterizers did before they were rewritten to allocate less, subdivide splines in
+ * parallel and constrain points in batches.
+ * <p>
+ * The "old" generator below is the previous implementation. Both generate the same random
+ * trajectories, some reversed and some with constraints, and every number of every state has to
+ * match bit for bit. No hardware is needed.
+ */
+@TeleOp(name = "Trajectory Equivalence Test", group = "Testing")
+public class TrajectoryEquivalenceTest extends LinearOpMode {
+
+	/**
+	 * The number of random trajectories compared
+	 */
+	private static final int trajectories = 12;
+
+	private static final double maxDx = 0.127;
+	private static final double maxDy = 0.00127;
+	private static final double maxDtheta = 0.0872;
+
+	@Override
+	public void runOpMode() {
+		telemetry.addData("Status", "Press start to compare the trajectories");
+		telemetry.update();
+
+		waitForStart();
+
+		telemetry.addData("Status", "Running...");
+		telemetry.update();
+
+		Random random = new Random(1);
+		int states = 0;
+		int mismatches = 0;
+		String firstMismatch = "none";
+		for (int k = 0; k < trajectories; k++) {
+			List<Pose2d> waypoints = new ArrayList<>();
+			double x = 0;
+			double y = 0;
+			for (int i = 0; i < 3 + k % 4; i++) {
+				waypoints.add(new Pose2d(x, y, new Rotation2d(random.nextDouble() * 2 - 1)));
+				x += 0.5 + random.nextDouble();
+				y += random.nextDouble() - 0.5;
+			}
+			TrajectoryConfig config = new TrajectoryConfig(1.5, 2).setReversed(k % 5 == 4);
+			if (k % 3 == 0) config.addConstraint(new CentripetalAccelerationConstraint(1.0));
+			if (k % 4 == 1) config.addConstraint(new MecanumStrafeConstraint(1.5, 2, 0.8, new Rotation2d(0.3)));
+
+			List<Trajectory.State> oldStates = generateOld(waypoints, config).getStates();
+			List<Trajectory.State> newStates = TrajectoryGenerator.generateTrajectory(waypoints, config).getStates();
+			if (oldStates.size() != newStates.size()) {
+				mismatches++;
+				if (firstMismatch.equals("none")) {
+					firstMismatch = String.format("trajectory %d has %d states instead of %d", k,
+							newStates.size(), oldStates.size());
+				}
+				continue;
+			}
+			for (int i = 0; i < oldStates.size(); i++) {
+				states++;
+				if (!same(oldStates.get(i), newStates.get(i))) {
+					mismatches++;
+					if (firstMismatch.equals("none")) {
+						firstMismatch = String.format("trajectory %d state %d: %s instead of %s", k, i,
+								newStates.get(i), oldStates.get(i));
+					}
+				}
+			}
+		}
+
+		while (opModeIsActive()) {
+			telemetry.addData("Trajectories", trajectories);
+			telemetry.addData("States compared", states);
+			telemetry.addData("Mismatches", mismatches);
+			telemetry.addData("First mismatch", firstMismatch);
+			telemetry.addData("Result", mismatches == 0 ? "Identical" : "DIFFERENT");
+			telemetry.update();
+			idle();
+		}
+	}
+
+	/**
+	 * Whether two states have exactly the same bits in every number
+	 */
+	private static boolean same(Trajectory.State a, Trajectory.State b) {
+		return same(a.timeSeconds, b.timeSeconds)
+				&& same(a.velocityMetersPerSecond, b.velocityMetersPerSecond)
+				&& same(a.accelerationMetersPerSecondSq, b.accelerationMetersPerSecondSq)
+				&& same(a.poseMeters.getX(), b.poseMeters.getX())
+				&& same(a.poseMeters.getY(), b.poseMeters.getY())
+				&& same(a.poseMeters.getRotation().getRadians(), b.poseMeters.getRotation().getRadians())
+				&& same(a.curvatureRadPerMeter, b.curvatureRadPerMeter);
+	}
+
+	private static boolean same(double a, double b) {
+		return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+	}
+
+	/**
+	 * The previous implementation of TrajectoryGenerator.generateTrajectory(waypoints, config)
+	 */
+	private static Trajectory generateOld(List<Pose2d> waypoints, TrajectoryConfig config) {
+		List<Spline.ControlVector> controlVectors = SplineHelper.getQuinticControlVectorsFromWaypoints(waypoints);
+		Spline.ControlVector[] newControlVectors = new Spline.ControlVector[controlVectors.size()];
+		for (int i = 0; i < controlVectors.size(); i++) {
+			Spline.ControlVector vector = controlVectors.get(i);
+			newControlVectors[i] = new Spline.ControlVector(vector.x, vector.y);
+			if (config.isReversed()) {
+				newControlVectors[i].x[1] *= -1;
+				newControlVectors[i].y[1] *= -1;
+			}
+		}
+
+		Spline[] splines = SplineHelper.getQuinticSplinesFromControlVectors(newControlVectors);
+		List<PoseWithCurvature> points = new ArrayList<>();
+		points.add(splines[0].getPoint(0.0));
+		for (Spline spline : splines) {
+			List<PoseWithCurvature> splinePoints = parameterizeOld(spline);
+			points.addAll(splinePoints.subList(1, splinePoints.size()));
+		}
+
+		if (config.isReversed()) {
+			Transform2d flip = new Transform2d(new Translation2d(), Rotation2d.fromDegrees(180.0));
+			for (PoseWithCurvature point : points) {
+				point.poseMeters = point.poseMeters.plus(flip);
+				point.curvatureRadPerMeter *= -1;
+			}
+		}
+
+		return timeParameterizeOld(points, config.getConstraints(), config.getStartVelocity(),
+				config.getEndVelocity(), config.getMaxVelocity(), config.getMaxAcceleration(),
+				config.isReversed());
+	}
+
+	/**
+	 * The previous implementation of SplineParameterizer.parameterize(spline)
+	 */
+	private static List<PoseWithCurvature> parameterizeOld(Spline spline) {
+		List<PoseWithCurvature> points = new ArrayList<>();
+		points.add(spline.getPoint(0.0));
+
+		ArrayDeque<double[]> stack = new ArrayDeque<>();
+		stack.push(new double[] {0.0, 1.0});
+		while (!stack.isEmpty()) {
+			double[] current = stack.removeFirst();
+			PoseWithCurvature start = spline.getPoint(current[0]);
+			PoseWithCurvature end = spline.getPoint(current[1]);
+
+			Twist2d twist = start.poseMeters.log(end.poseMeters);
+			if (Math.abs(twist.dy) > maxDy || Math.abs(twist.dx) > maxDx || Math.abs(twist.dtheta) > maxDtheta) {
+				stack.addFirst(new double[] {(current[0] + current[1]) / 2, current[1]});
+				stack.addFirst(new double[] {current[0], (current[0] + current[1]) / 2});
+			} else {
+				points.add(spline.getPoint(current[1]));
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * The previous implementation of TrajectoryParameterizer.timeParameterizeTrajectory()
+	 */
+	private static Trajectory timeParameterizeOld(List<PoseWithCurvature> points,
+	                                              List<TrajectoryConstraint> constraints,
+	                                              double startVelocity, double endVelocity,
+	                                              double maxVelocity, double maxAcceleration,
+	                                              boolean reversed) {
+		List<ConstrainedState> constrainedStates = new ArrayList<>(points.size());
+		ConstrainedState predecessor = new ConstrainedState(points.get(0), 0, startVelocity,
+				-maxAcceleration, maxAcceleration);
+
+		// Forward pass
+		for (int i = 0; i < points.size(); i++) {
+			ConstrainedState state = new ConstrainedState(points.get(i), 0, 0, 0, 0);
+			constrainedStates.add(state);
+
+			double ds = state.pose.poseMeters.getTranslation().getDistance(
+					predecessor.pose.poseMeters.getTranslation());
+			state.distance = predecessor.distance + ds;
+
+			while (true) {
+				state.maxVelocity = Math.min(maxVelocity, Math.sqrt(
+						predecessor.maxVelocity * predecessor.maxVelocity
+								+ predecessor.maxAcceleration * ds * 2.0));
+				state.minAcceleration = -maxAcceleration;
+				state.maxAcceleration = maxAcceleration;
+
+				for (TrajectoryConstraint constraint : constraints) {
+					state.maxVelocity = Math.min(state.maxVelocity, constraint.getMaxVelocityMetersPerSecond(
+							state.pose.poseMeters, state.pose.curvatureRadPerMeter, state.maxVelocity));
+				}
+				enforceAccelerationLimitsOld(reversed, constraints, state);
+
+				if (ds < 1E-6) break;
+
+				double actualAcceleration = (state.maxVelocity * state.maxVelocity
+						- predecessor.maxVelocity * predecessor.maxVelocity) / (ds * 2.0);
+				if (state.maxAcceleration < actualAcceleration - 1E-6) {
+					predecessor.maxAcceleration = state.maxAcceleration;
+				} else {
+					if (actualAcceleration > predecessor.minAcceleration) {
+						predecessor.maxAcceleration = actualAcceleration;
+					}
+					break;
+				}
+			}
+			predecessor = state;
+		}
+
+		ConstrainedState successor = new ConstrainedState(points.get(points.size() - 1),
+				constrainedStates.get(constrainedStates.size() - 1).distance, endVelocity,
+				-maxAcceleration, maxAcceleration);
+
+		// Backward pass
+		for (int i = points.size() - 1; i >= 0; i--) {
+			ConstrainedState state = constrainedStates.get(i);
+			double ds = state.distance - successor.distance;
+
+			while (true) {
+				double newMaxVelocity = Math.sqrt(successor.maxVelocity * successor.maxVelocity
+						+ successor.minAcceleration * ds * 2.0);
+				if (newMaxVelocity >= state.maxVelocity) break;
+
+				state.maxVelocity = newMaxVelocity;
+				enforceAccelerationLimitsOld(reversed, constraints, state);
+
+				if (ds > -1E-6) break;
+
+				double actualAcceleration = (state.maxVelocity * state.maxVelocity
+						- successor.maxVelocity * successor.maxVelocity) / (ds * 2.0);
+				if (state.minAcceleration > actualAcceleration + 1E-6) {
+					successor.minAcceleration = state.minAcceleration;
+				} else {
+					successor.minAcceleration = actualAcceleration;
+					break;
+				}
+			}
+			successor = state;
+		}
+
+		// Integrate the constrained states forward in time
+		List<Trajectory.State> states = new ArrayList<>(points.size());
+		double time = 0.0;
+		double distance = 0.0;
+		double velocity = 0.0;
+		for (int i = 0; i < constrainedStates.size(); i++) {
+			ConstrainedState state = constrainedStates.get(i);
+			double ds = state.distance - distance;
+			double acceleration = (state.maxVelocity * state.maxVelocity - velocity * velocity) / (ds * 2);
+
+			double dt = 0.0;
+			if (i > 0) {
+				states.get(i - 1).accelerationMetersPerSecondSq = reversed ? -acceleration : acceleration;
+				if (Math.abs(acceleration) > 1E-6) {
+					dt = (state.maxVelocity - velocity) / acceleration;
+				} else if (Math.abs(velocity) > 1E-6) {
+					dt = ds / velocity;
+				} else {
+					throw new RuntimeException("Something went wrong");
+				}
+			}
+
+			velocity = state.maxVelocity;
+			distance = state.distance;
+			time += dt;
+
+			states.add(new Trajectory.State(time, reversed ? -velocity : velocity,
+					reversed ? -acceleration : acceleration, state.pose.poseMeters,
+					state.pose.curvatureRadPerMeter));
+		}
+		return new Trajectory(states);
+	}
+
+	private static void enforceAccelerationLimitsOld(boolean reversed, List<TrajectoryConstraint> constraints,
+	                                                 ConstrainedState state) {
+		for (TrajectoryConstraint constraint : constraints) {
+			double factor = reversed ? -1.0 : 1.0;
+			TrajectoryConstraint.MinMax minMax = constraint.getMinMaxAccelerationMetersPerSecondSq(
+					state.pose.poseMeters, state.pose.curvatureRadPerMeter, state.maxVelocity * factor);
+
+			state.minAcceleration = Math.max(state.minAcceleration,
+					reversed ? -minMax.maxAccelerationMetersPerSecondSq : minMax.minAccelerationMetersPerSecondSq);
+			state.maxAcceleration = Math.min(state.maxAcceleration,
+					reversed ? -minMax.minAccelerationMetersPerSecondSq : minMax.maxAccelerationMetersPerSecondSq);
+		}
+	}
+
+	private static class ConstrainedState {
+		final PoseWithCurvature pose;
+		double distance;
+		double maxVelocity;
+		double minAcceleration;
+		double maxAcceleration;
+
+		ConstrainedState(PoseWithCurvature pose, double distance, double maxVelocity,
+		                 double minAcceleration, double maxAcceleration) {
+			this.pose = pose;
+			this.distance = distance;
+			this.maxVelocity = maxVelocity;
+			this.minAcceleration = minAcceleration;
+			this.maxAcceleration = maxAcceleration;
+		}
+	}
+}
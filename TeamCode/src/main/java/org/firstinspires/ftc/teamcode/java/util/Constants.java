@@ -39,6 +39,7 @@ public final class Constants {
 	public static final double robotLength = 444.5; //∆
 	public static final double robotWidth = 457.2; //jajaja
 		//field constants
+	public static final double fieldSize = 3657.6;
 	public static final double backFieldY = 3587.75;
 	public static final double navLineY = 1880;
 	public static final Coordinate cornerAB = new Coordinate(1828.8,2438.4);
@@ -49,9 +50,9 @@ public final class Constants {
 	public static final double wobbleY = 490;
 
 
-		//Hardware constants
-	public static final double lowerWobbleDown = 0;
-	public static final double lowerWobbleUp = 1;
+		//Hardware constants (tunable while running, see ParameterRegistry)
+	public static final TunableParameter lowerWobbleDown = ParameterRegistry.register("Constants.lowerWobbleDown", 0);
+	public static final TunableParameter lowerWobbleUp = ParameterRegistry.register("Constants.lowerWobbleUp", 1);
 
 
 }
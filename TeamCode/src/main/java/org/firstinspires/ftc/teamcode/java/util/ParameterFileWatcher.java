@@ -0,0 +1,152 @@
+package org.firstinspires.ftc.teamcode.java.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Watches a properties file of overrides and copies its values into the
+ * {@link ParameterRegistry}, so parameters can be changed while an OpMode is running.
+ * <p>
+ * The app never writes the override file, so it only holds the values that were put there by
+ * hand, and every parameter that isn't in it keeps the default from the code. The current value
+ * of every registered parameter is written to a separate template file instead. To tune, pull
+ * the template, copy the lines to change into the override file and push it, for example:
+ * <pre>
+ * adb pull /sdcard/FIRST/parameters.template.properties
+ * adb push parameters.properties /sdcard/FIRST/parameters.properties
+ * </pre>
+ * The new values are used by the control loops on their next cycle. Lines that don't parse are
+ * skipped. The overrides are also applied when the app starts, so delete the file (or the lines)
+ * once the values have been copied into the code.
+ */
+public class ParameterFileWatcher implements Runnable {
+	/**
+	 * The default file which is watched
+	 */
+	public static final String defaultPath = "/sdcard/FIRST/parameters.properties";
+
+	/**
+	 * The default file which the registered parameters are written to
+	 */
+	public static final String defaultTemplatePath = "/sdcard/FIRST/parameters.template.properties";
+
+	/**
+	 * How often the file is checked for changes, in milliseconds
+	 */
+	private static final long pollPeriod = 250;
+
+	private static ParameterFileWatcher shared;
+
+	private final File file;
+	private final File template;
+	private long lastModified = 0;
+	private int templateCount = 0;
+
+	// For stopping the thread
+	private volatile boolean isRunning = true;
+
+	/**
+	 * Creates a watcher for a file
+	 * @param file the properties file of overrides to watch, which is only read
+	 * @param template the file to write the registered parameters to, or null to not write one
+	 */
+	public ParameterFileWatcher(File file, File template) {
+		this.file = file;
+		this.template = template;
+	}
+
+	/**
+	 * Starts watching the {@link #defaultPath} on a background thread, unless it is already
+	 * being watched. The thread lives as long as the app, so this is safe to call from every
+	 * OpMode.
+	 */
+	public static synchronized void startShared() {
+		if (shared != null) return;
+
+		shared = new ParameterFileWatcher(new File(defaultPath), new File(defaultTemplatePath));
+		Thread thread = new Thread(shared, "ParameterFileWatcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Reads the file if it has changed since it was last read, and updates the template if
+	 * parameters were registered since it was written
+	 * @return true if new values were read
+	 */
+	public boolean poll() {
+		if (template != null && ParameterRegistry.size() != templateCount) writeTemplate();
+
+		if (!file.exists()) {
+			// Reads the file again if it is created with the same time
+			lastModified = 0;
+			return false;
+		}
+
+		long modified = file.lastModified();
+		if (modified == lastModified) return false;
+		lastModified = modified;
+
+		Properties properties = new Properties();
+		try (InputStream input = new FileInputStream(file)) {
+			properties.load(input);
+		} catch (IOException e) {
+			return false;
+		}
+
+		for (String name : properties.stringPropertyNames()) {
+			try {
+				ParameterRegistry.set(name, Double.parseDouble(properties.getProperty(name).trim()));
+			} catch (NumberFormatException e) {
+				// Skip values that aren't numbers
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the current value of every registered parameter to the template file. The watched
+	 * file is never written.
+	 */
+	public void writeTemplate() {
+		List<TunableParameter> parameters = ParameterRegistry.getAll();
+		// Not retried until another parameter is registered
+		templateCount = parameters.size();
+		File parent = template.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) return;
+
+		try (PrintWriter writer = new PrintWriter(new FileWriter(template))) {
+			writer.println("# Copy the lines to change into " + file.getName());
+			for (TunableParameter parameter : parameters) {
+				writer.println(parameter.getName() + "=" + parameter.get());
+			}
+		} catch (IOException e) {
+			// The template is only for reference
+		}
+	}
+
+	/**
+	 * Sets up the thread to stop
+	 */
+	public void stop() {
+		isRunning = false;
+	}
+
+	@Override
+	public void run() {
+		while (isRunning) {
+			poll();
+			try {
+				Thread.sleep(pollPeriod);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+}
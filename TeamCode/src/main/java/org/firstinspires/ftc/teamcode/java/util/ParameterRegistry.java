@@ -0,0 +1,79 @@
+package org.firstinspires.ftc.teamcode.java.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every {@link TunableParameter} by name so that they can be read and changed at runtime,
+ * for example by the {@link ParameterFileWatcher}, without rebuilding the app.
+ * <p>
+ * Names are written as Owner.value, like "USDrive.kp" or "Constants.lowerWobbleUp".
+ */
+public final class ParameterRegistry {
+	private static final ConcurrentHashMap<String, TunableParameter> parameters =
+			new ConcurrentHashMap<>();
+
+	private ParameterRegistry() {
+	}
+
+	/**
+	 * Registers a parameter, or returns the one already registered with that name.
+	 * <p>
+	 * If a value was set for the name before it was registered (for example, read from the
+	 * parameter file), that value is kept instead of the default.
+	 * @param name the name of the parameter
+	 * @param defaultValue the value to use if the parameter hasn't been registered or set
+	 * @return the parameter
+	 */
+	public static TunableParameter register(String name, double defaultValue) {
+		TunableParameter parameter = parameters.get(name);
+		if (parameter != null) return parameter;
+
+		TunableParameter created = new TunableParameter(name, defaultValue);
+		parameter = parameters.putIfAbsent(name, created);
+		return parameter == null ? created : parameter;
+	}
+
+	/**
+	 * Gets a registered parameter
+	 * @param name the name of the parameter
+	 * @return the parameter, or null if there isn't one with that name
+	 */
+	public static TunableParameter get(String name) {
+		return parameters.get(name);
+	}
+
+	/**
+	 * Sets the value of a parameter, registering it if it doesn't exist yet so that the value
+	 * is used once the owner registers it
+	 * @param name the name of the parameter
+	 * @param value the new value
+	 */
+	public static void set(String name, double value) {
+		register(name, value).set(value);
+	}
+
+	/**
+	 * @return the number of registered parameters
+	 */
+	public static int size() {
+		return parameters.size();
+	}
+
+	/**
+	 * @return all of the registered parameters, sorted by name
+	 */
+	public static List<TunableParameter> getAll() {
+		List<TunableParameter> all = new ArrayList<>(parameters.values());
+		Collections.sort(all, new Comparator<TunableParameter>() {
+			@Override
+			public int compare(TunableParameter a, TunableParameter b) {
+				return a.getName().compareTo(b.getName());
+			}
+		});
+		return all;
+	}
+}
@@ -0,0 +1,137 @@
+package org.firstinspires.ftc.teamcode.java.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Records the pose of the robot over time, along with the power that was commanded at the
+ * time, so a movement can be looked at (or fitted) after it has finished.
+ * <p>
+ * All of the memory is allocated when the logger is created, so logging a sample in a control
+ * loop does not allocate. Once the logger is full, new samples are dropped.
+ */
+public class PoseLogger {
+	/**
+	 * The default number of samples, enough for a bit over a minute at 100 Hz
+	 */
+	public static final int defaultCapacity = 8192;
+
+	private final double[] time;
+	private final double[] x;
+	private final double[] y;
+	private final double[] angle;
+	private final double[] power;
+
+	private int size = 0;
+
+	/**
+	 * Creates a logger which can hold the given number of samples
+	 * @param capacity the maximum number of samples
+	 */
+	public PoseLogger(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity must be positive");
+
+		time = new double[capacity];
+		x = new double[capacity];
+		y = new double[capacity];
+		angle = new double[capacity];
+		power = new double[capacity];
+	}
+
+	/**
+	 * Creates a logger with the {@link #defaultCapacity}
+	 */
+	public PoseLogger() {
+		this(defaultCapacity);
+	}
+
+	/**
+	 * Records a sample
+	 * @param time the time of the sample in seconds
+	 * @param x the field x position (mm)
+	 * @param y the field y position (mm)
+	 * @param angle the angle of the robot (radians)
+	 * @param power the power which was commanded for this sample
+	 * @return false if the logger is full and the sample was dropped
+	 */
+	public boolean log(double time, double x, double y, double angle, double power) {
+		if (size == this.time.length) return false;
+
+		this.time[size] = time;
+		this.x[size] = x;
+		this.y[size] = y;
+		this.angle[size] = angle;
+		this.power[size] = power;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes all of the samples
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return time.length;
+	}
+
+	public boolean isFull() {
+		return size == time.length;
+	}
+
+	public double getTime(int index) {
+		return time[checkIndex(index)];
+	}
+
+	public double getX(int index) {
+		return x[checkIndex(index)];
+	}
+
+	public double getY(int index) {
+		return y[checkIndex(index)];
+	}
+
+	public double getAngle(int index) {
+		return angle[checkIndex(index)];
+	}
+
+	public double getPower(int index) {
+		return power[checkIndex(index)];
+	}
+
+	/**
+	 * Writes all of the samples to a CSV file, with a header row
+	 * @param file the file to write (it is replaced if it already exists)
+	 * @throws IOException if the file can not be written
+	 */
+	public void writeCsv(File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs())
+			throw new IOException("Could not create the directory " + parent);
+
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+			writer.println("time,x,y,angle,power");
+			for (int i = 0; i < size; i++) {
+				writer.println(String.format(
+						Locale.US, "%.4f,%.3f,%.3f,%.5f,%.4f", time[i], x[i], y[i], angle[i], power[i]
+				));
+			}
+		}
+	}
+
+	private int checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " is not in [0, " + size + ")");
+		return index;
+	}
+}
@@ -3,6 +3,9 @@ package org.firstinspires.ftc.teamcode.java.util.PositionControl;
 import com.qualcomm.robotcore.util.ElapsedTime;
 import com.qualcomm.robotcore.util.Range;
 
+import org.firstinspires.ftc.teamcode.java.util.ParameterRegistry;
+import org.firstinspires.ftc.teamcode.java.util.TunableParameter;
+
 /**
  * the PIDController class will be used for  all the different pid calculations
  * for example AutoDriving ,autoAdjusting , controlling the shooter speed
@@ -16,10 +19,10 @@ public class PositionPidfController {
 	private final ElapsedTime elapsedTime;
 
 	private double previousTime;
-	private double kp;
-	private double ki;
-	private double kd;
-	private double f;
+	private final TunableParameter kp;
+	private final TunableParameter ki;
+	private final TunableParameter kd;
+	private final TunableParameter f;
 
 	double integral = 0;
 	double derivative = 0;
@@ -27,10 +30,24 @@ public class PositionPidfController {
 	public PositionPidfController(double kp, double ki, double kd, double f) {
 		elapsedTime = new ElapsedTime();
 		this.previousTime = 0;
-		this.kp = kp;
-		this.ki = ki;
-		this.kd = kd;
-		this.f = f;
+		this.kp = new TunableParameter("kp", kp);
+		this.ki = new TunableParameter("ki", ki);
+		this.kd = new TunableParameter("kd", kd);
+		this.f = new TunableParameter("f", f);
+	}
+
+	/**
+	 * Creates a controller whose gains are registered in the {@link ParameterRegistry} as
+	 * name.kp, name.ki, name.kd and name.f, so they can be tuned while running
+	 * @param name the name to register the gains under
+	 */
+	public PositionPidfController(String name, double kp, double ki, double kd, double f) {
+		elapsedTime = new ElapsedTime();
+		this.previousTime = 0;
+		this.kp = ParameterRegistry.register(name + ".kp", kp);
+		this.ki = ParameterRegistry.register(name + ".ki", ki);
+		this.kd = ParameterRegistry.register(name + ".kd", kd);
+		this.f = ParameterRegistry.register(name + ".f", f);
 	}
 
 	public double getMaxIntegral() {
@@ -50,38 +67,53 @@ public class PositionPidfController {
 	}
 
 	public double getP() {
-		return kp;
+		return kp.get();
 	}
 
 	public void setP(double kp) {
-		this.kp = kp;
+		this.kp.set(kp);
 	}
 
 	public double getI() {
-		return ki;
+		return ki.get();
 	}
 
 	public void setI(double ki) {
-		this.ki = ki;
+		this.ki.set(ki);
 	}
 
 	public double getD() {
-		return kd;
+		return kd.get();
 	}
 
 	public void setD(double kd) {
-		this.kd = kd;
+		this.kd.set(kd);
 	}
 
 	public double getF() {
-		return f;
+		return f.get();
 	}
 
 	public void setF(double f) {
-		this.f = f;
+		this.f.set(f);
+	}
+
+	/**
+	 * Forgets the integral and the last error, as if the controller was just made
+	 */
+	public void reset() {
+		integral = 0;
+		derivative = 0;
+		previousTime = elapsedTime.nanoseconds();
 	}
 
 	public double calculate(double error) {
+		// Each gain is read once, so a value changed while running is used from the next call
+		double kp = this.kp.get();
+		double ki = this.ki.get();
+		double kd = this.kd.get();
+		double f = this.f.get();
+
 		double currentTime = elapsedTime.nanoseconds();
 		double p = kp * error;
 		double i = Range.clip(integral + ki * (error * (currentTime - previousTime)), minI, maxI);
@@ -0,0 +1,650 @@
+package org.firstinspires.ftc.teamcode.java.util.PositionControl;
+
+import org.firstinspires.ftc.teamcode.java.util.PoseLogger;
+
+import java.util.Locale;
+
+/**
+ * Finds feedforward (kS, kV, kA) and starting PID gains for one axis of the drivetrain.
+ * <p>
+ * The tuner drives the axis through a set of excitation patterns: a slow power ramp each way
+ * (which mostly shows kS and kV) and a power step each way (which shows kA), resting in between.
+ * Every sample is recorded in a {@link PoseLogger}. When the patterns are done, the gains are
+ * found with a least squares fit of power = kS * sign(v) + kV * v + kA * a, and the PID gains
+ * are placed so that the axis settles critically damped within {@link #setSettleTime(double)}.
+ * <p>
+ * The accelerations found from noisy positions are too noisy for that fit alone, which then
+ * underestimates kA (by almost 40% with 2 mrad of noise on the turn axis). So the time constant
+ * kA / kV is then fitted to the measured positions of each step, which needs no derivatives,
+ * and kS and kV are fitted again with kA held. This is repeated a few times. How far apart the
+ * forward and backward steps put kA is given as {@link #getKaSpread()}, as a check on it.
+ * <p>
+ * Against simulated plants (see {@link org.firstinspires.ftc.teamcode.java.tests.PositionPidfTunerCheck})
+ * the gains come out within 0.1% without noise. With odometry noise kV and kA are within a few
+ * percent, and kS, which comes from the ramps, can be 15% too high. The spread is smaller than
+ * the real error of kA, so it only catches steps that fit badly.
+ * <p>
+ * The tuner doesn't touch any hardware. Call {@link #update(double, double, double, double)}
+ * every loop with the current time and pose, and apply the returned power to the axis, until
+ * {@link #isFinished()}. This lets the same code run on the robot or against a
+ * {@link SimulatedDrivetrainAxis} (see {@link #runSimulation(SimulatedDrivetrainAxis, Axis, double)}).
+ * <p>
+ * The robot should start facing angle 0 so the drive and strafe axes line up with the field.
+ */
+public class PositionPidfTuner {
+	public enum Axis {
+		DRIVE,
+		STRAFE,
+		TURN
+	}
+
+	private enum Phase {
+		RAMP_FORWARD,
+		REST_AFTER_RAMP_FORWARD,
+		RAMP_BACKWARD,
+		REST_AFTER_RAMP_BACKWARD,
+		STEP_FORWARD,
+		REST_AFTER_STEP_FORWARD,
+		STEP_BACKWARD,
+		DONE
+	}
+
+	/**
+	 * PositionPidfController measures time in nanoseconds, so the I and D gains it uses are
+	 * scaled by this compared to gains in seconds
+	 */
+	private static final double nanosecondsPerSecond = 1e9;
+
+	/**
+	 * The largest jump in power between samples which is still treated as part of the ramp
+	 */
+	private static final double maxPowerJump = 0.05;
+
+	/**
+	 * The velocity and acceleration of each sample are fitted to the samples within this many
+	 * seconds of it
+	 */
+	private static final double smoothingWindow = 0.06;
+
+	/**
+	 * How many times kA is fitted to the steps and kS and kV are fitted again
+	 */
+	private static final int refinements = 3;
+
+	/**
+	 * The range searched for the time constant kA / kV, in seconds
+	 */
+	private static final double minTimeConstant = 0.002, maxTimeConstant = 5;
+
+	private final Axis axis;
+	private final PoseLogger logger;
+
+	private double rampRate = 0.25;
+	private double maxPower = 0.7;
+	private double stepPower = 0.6;
+	private double stepTime = 1.0;
+	private double restTime = 1.0;
+	private double maxDistance;
+	private double settleTime = 0.75;
+
+	private Phase phase = Phase.RAMP_FORWARD;
+	private double phaseStartTime = Double.NaN;
+	private double phaseStartPosition;
+	private final int[] phaseStarts = new int[Phase.values().length];
+
+	private double previousAngle = Double.NaN;
+	private double unwrappedAngle;
+
+	private double kS, kV, kA, kP, kD;
+	private double kASpread = Double.NaN;
+	private int samplesUsed;
+
+	/**
+	 * Creates a tuner which logs to its own {@link PoseLogger}
+	 * @param axis the axis to tune
+	 */
+	public PositionPidfTuner(Axis axis) {
+		this(axis, new PoseLogger());
+	}
+
+	/**
+	 * Creates a tuner
+	 * @param axis the axis to tune
+	 * @param logger the logger to record the response in
+	 */
+	public PositionPidfTuner(Axis axis, PoseLogger logger) {
+		this.axis = axis;
+		this.logger = logger;
+		// 1.2 m for translation, one full turn for rotation
+		maxDistance = axis == Axis.TURN ? 2 * Math.PI : 1200;
+	}
+
+	/**
+	 * Sets how fast the power increases during the ramps
+	 * @param rampRate the increase in power per second
+	 */
+	public void setRampRate(double rampRate) {
+		this.rampRate = rampRate;
+	}
+
+	/**
+	 * Sets the highest power reached by the ramps
+	 * @param maxPower the maximum power
+	 */
+	public void setMaxPower(double maxPower) {
+		this.maxPower = maxPower;
+	}
+
+	/**
+	 * Sets the power and length of the steps
+	 * @param stepPower the power of each step
+	 * @param stepTime how long each step lasts in seconds
+	 */
+	public void setStep(double stepPower, double stepTime) {
+		this.stepPower = stepPower;
+		this.stepTime = stepTime;
+	}
+
+	/**
+	 * Sets how long the axis rests between patterns
+	 * @param restTime the time in seconds
+	 */
+	public void setRestTime(double restTime) {
+		this.restTime = restTime;
+	}
+
+	/**
+	 * Sets how far a single pattern may move the axis before it is cut short
+	 * @param maxDistance the distance in mm (or radians for {@link Axis#TURN})
+	 */
+	public void setMaxDistance(double maxDistance) {
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Sets the time the suggested PID gains should take to settle after a step
+	 * @param settleTime the time in seconds
+	 */
+	public void setSettleTime(double settleTime) {
+		this.settleTime = settleTime;
+	}
+
+	public Axis getAxis() {
+		return axis;
+	}
+
+	public PoseLogger getLogger() {
+		return logger;
+	}
+
+	public boolean isFinished() {
+		return phase == Phase.DONE;
+	}
+
+	/**
+	 * Records the current pose and finds the power for the axis
+	 * @param time the current time in seconds
+	 * @param x the field x position (mm)
+	 * @param y the field y position (mm)
+	 * @param angle the angle of the robot (radians)
+	 * @return the power to apply to the tuned axis
+	 */
+	public double update(double time, double x, double y, double angle) {
+		if (phase == Phase.DONE) return 0;
+
+		double position = axisPosition(x, y, angle);
+		if (Double.isNaN(phaseStartTime)) {
+			startPhase(phase, time, position);
+		}
+
+		double elapsed = time - phaseStartTime;
+		boolean tooFar = Math.abs(position - phaseStartPosition) > maxDistance;
+		double power = 0;
+
+		switch (phase) {
+			case RAMP_FORWARD:
+			case RAMP_BACKWARD:
+				power = rampRate * elapsed;
+				if (power >= maxPower || tooFar) {
+					startPhase(nextPhase(), time, position);
+					power = 0;
+				} else if (phase == Phase.RAMP_BACKWARD) {
+					power = -power;
+				}
+				break;
+			case STEP_FORWARD:
+			case STEP_BACKWARD:
+				if (elapsed >= stepTime || tooFar) {
+					startPhase(nextPhase(), time, position);
+				} else {
+					power = phase == Phase.STEP_FORWARD ? stepPower : -stepPower;
+				}
+				break;
+			default:
+				if (elapsed >= restTime) {
+					startPhase(nextPhase(), time, position);
+				}
+				break;
+		}
+
+		logger.log(time, x, y, angle, power);
+
+		if (phase == Phase.DONE) {
+			fit();
+		}
+		return power;
+	}
+
+	/**
+	 * Runs the tuner against a simulated axis until it is finished
+	 * @param plant the simulated axis
+	 * @param axis the axis the simulated plant stands in for
+	 * @param dt the time step of the simulated control loop in seconds
+	 * @return the finished tuner
+	 */
+	public static PositionPidfTuner runSimulation(SimulatedDrivetrainAxis plant, Axis axis, double dt) {
+		PositionPidfTuner tuner = new PositionPidfTuner(axis);
+		double time = 0;
+		while (!tuner.isFinished()) {
+			double position = plant.getPosition();
+			double power;
+			switch (axis) {
+				case DRIVE:
+					power = tuner.update(time, 0, position, 0);
+					break;
+				case STRAFE:
+					power = tuner.update(time, position, 0, 0);
+					break;
+				default:
+					power = tuner.update(time, 0, 0, position);
+					break;
+			}
+			plant.update(power, dt);
+			time += dt;
+		}
+		return tuner;
+	}
+
+	public double getKs() {
+		return kS;
+	}
+
+	public double getKv() {
+		return kV;
+	}
+
+	public double getKa() {
+		return kA;
+	}
+
+	/**
+	 * @return how far apart the forward and backward steps put kA, as a fraction of kA, or NaN if
+	 *         it couldn't be fitted to both. More than about 0.1 means the kA (and so the PID gains)
+	 *         shouldn't be trusted, and the steps should be run again, longer or with less noise.
+	 *         A small spread doesn't promise kA is that accurate, since noise moves both steps the
+	 *         same way.
+	 */
+	public double getKaSpread() {
+		return kASpread;
+	}
+
+	/**
+	 * @return the suggested proportional gain (power per mm, or per radian)
+	 */
+	public double getKp() {
+		return kP;
+	}
+
+	/**
+	 * @return the suggested derivative gain, per second
+	 */
+	public double getKd() {
+		return kD;
+	}
+
+	/**
+	 * @return the number of logged samples which were used in the fit
+	 */
+	public int getSamplesUsed() {
+		return samplesUsed;
+	}
+
+	/**
+	 * Creates a {@link PositionPidfController} with the suggested gains
+	 * <p>
+	 * The derivative gain is converted to the nanosecond time base of the controller. The
+	 * integral gain is left at zero to be added by hand if there is a steady state error.
+	 * @return the controller
+	 */
+	public PositionPidfController createController() {
+		return new PositionPidfController(kP, 0, kD * nanosecondsPerSecond, 0);
+	}
+
+	/**
+	 * @return the suggested constants, written so they can be pasted into
+	 *         {@link PositionPidfConstants}
+	 */
+	public String getSuggestion() {
+		String suggestion = String.format(
+				Locale.US,
+				"new PositionPidfController(%.6g, 0, %.6g, 0); // kS=%.4g kV=%.4g kA=%.4g (steps agree within %.0f%%)",
+				kP, kD * nanosecondsPerSecond, kS, kV, kA, kASpread * 100
+		);
+		if (!(kASpread <= 0.1)) {
+			suggestion += " WARNING: kA is unreliable, so check the PID gains before using them";
+		}
+		return suggestion;
+	}
+
+	private Phase nextPhase() {
+		return Phase.values()[phase.ordinal() + 1];
+	}
+
+	private void startPhase(Phase phase, double time, double position) {
+		this.phase = phase;
+		phaseStarts[phase.ordinal()] = logger.size();
+		phaseStartTime = time;
+		phaseStartPosition = position;
+	}
+
+	private double axisPosition(double x, double y, double angle) {
+		switch (axis) {
+			case DRIVE:
+				return y;
+			case STRAFE:
+				return x;
+			default:
+				return unwrap(angle);
+		}
+	}
+
+	/**
+	 * The angle from ActiveLocation wraps around at 2π, so it is unwrapped to keep the
+	 * position continuous during a full turn
+	 */
+	private double unwrap(double angle) {
+		if (Double.isNaN(previousAngle)) {
+			unwrappedAngle = angle;
+		} else {
+			double change = angle - previousAngle;
+			if (change > Math.PI) change -= 2 * Math.PI;
+			else if (change < -Math.PI) change += 2 * Math.PI;
+			unwrappedAngle += change;
+		}
+		previousAngle = angle;
+		return unwrappedAngle;
+	}
+
+	/**
+	 * Fits the feedforward gains to the logged samples and places the PID gains from them
+	 */
+	private void fit() {
+		int size = logger.size();
+		if (size < 4) return;
+
+		double[] position = new double[size];
+		previousAngle = Double.NaN;
+		for (int i = 0; i < size; i++) {
+			position[i] = axisPosition(logger.getX(i), logger.getY(i), logger.getAngle(i));
+		}
+
+		double maxVelocity = 0;
+		for (int i = 1; i < size; i++) {
+			double dt = logger.getTime(i) - logger.getTime(i - 1);
+			if (dt > 0) {
+				maxVelocity = Math.max(maxVelocity, Math.abs((position[i] - position[i - 1]) / dt));
+			}
+		}
+
+		// Normal equations for the three gains
+		double[][] normal = new double[3][3];
+		double[] right = new double[3];
+		double[] derivatives = new double[2];
+		double[] velocities = new double[size];
+		double[] accelerations = new double[size];
+		boolean[] used = new boolean[size];
+		samplesUsed = 0;
+		int first = 0;
+		int last = 0;
+		for (int i = 0; i < size; i++) {
+			double time = logger.getTime(i);
+			while (logger.getTime(first) < time - smoothingWindow) first++;
+			while (last + 1 < size && logger.getTime(last + 1) <= time + smoothingWindow) last++;
+
+			// Only use samples that are moving under power, away from a step in the power
+			if (last - first < 4 || !isSmoothPower(first, last)) continue;
+			if (!fitDerivatives(position, first, last, time, derivatives)) continue;
+
+			double v = derivatives[0];
+			double a = derivatives[1];
+			if (Math.abs(v) < 0.02 * maxVelocity) continue;
+
+			velocities[i] = v;
+			accelerations[i] = a;
+			used[i] = true;
+			double[] row = {Math.signum(v), v, a};
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					normal[r][c] += row[r] * row[c];
+				}
+				right[r] += row[r] * appliedPower(i);
+			}
+			samplesUsed++;
+		}
+
+		double[] gains = solve(normal, right);
+		if (gains == null) return;
+		kS = gains[0];
+		kV = gains[1];
+		kA = gains[2];
+
+		for (int refinement = 0; refinement < refinements; refinement++) {
+			double forward = fitTimeConstant(position, Phase.STEP_FORWARD);
+			double backward = fitTimeConstant(position, Phase.STEP_BACKWARD);
+			double timeConstant;
+			if (Double.isNaN(forward) || Double.isNaN(backward)) {
+				timeConstant = Double.isNaN(forward) ? backward : forward;
+				kASpread = Double.NaN;
+			} else {
+				timeConstant = (forward + backward) / 2;
+				kASpread = Math.abs(forward - backward) / (2 * timeConstant);
+			}
+			if (Double.isNaN(timeConstant)) break;
+			kA = timeConstant * kV;
+
+			// kS and kV again with kA held, so the noise in the accelerations only adds noise to the
+			// power instead of biasing the gains
+			double[][] normal2 = new double[2][2];
+			double[] right2 = new double[2];
+			for (int i = 0; i < size; i++) {
+				if (!used[i]) continue;
+				double[] row = {Math.signum(velocities[i]), velocities[i]};
+				double power = appliedPower(i) - kA * accelerations[i];
+				for (int r = 0; r < 2; r++) {
+					for (int c = 0; c < 2; c++) {
+						normal2[r][c] += row[r] * row[c];
+					}
+					right2[r] += row[r] * power;
+				}
+			}
+			double[] staticAndVelocity = solve(normal2, right2);
+			if (staticAndVelocity == null) break;
+			kS = staticAndVelocity[0];
+			kV = staticAndVelocity[1];
+		}
+
+		// Closed loop: kA x'' + (kV + kD) x' + kP x = kP r, critically damped
+		double naturalFrequency = 5.8 / settleTime;
+		kP = kA * naturalFrequency * naturalFrequency;
+		kD = Math.max(0, 2 * naturalFrequency * kA - kV);
+	}
+
+	/**
+	 * The power logged with a sample is applied after its position is measured, so the velocity
+	 * and acceleration found around the sample come from the powers before and after it
+	 */
+	private double appliedPower(int index) {
+		if (index == 0) return logger.getPower(0);
+		return (logger.getPower(index - 1) + logger.getPower(index)) / 2;
+	}
+
+	/**
+	 * Fits the time constant kA / kV to the positions during a step. A step of power moves the
+	 * axis x(s) = x0 + v∞ s + (v0 - v∞) τ (1 - e^(-s/τ)), where v0 is the velocity it starts at
+	 * and v∞ the speed it settles at. For each τ, x0, v0 and v∞ are fitted by least squares, and
+	 * τ is found by a golden section search on the squared error, so it doesn't depend on the fit
+	 * of kS and kV.
+	 * @param position the position of every sample
+	 * @param step the step to fit
+	 * @return the time constant in seconds, or NaN if the step is too short to fit
+	 */
+	private double fitTimeConstant(double[] position, Phase step) {
+		// The first sample of the phase still has no power, and the position of the sample which
+		// starts the next phase is the last one moved by the step
+		int first = phaseStarts[step.ordinal()] + 1;
+		int last = Math.min(phaseStarts[step.ordinal() + 1], logger.size() - 1);
+		if (last - first < 8) return Double.NaN;
+
+		double logLow = Math.log(minTimeConstant);
+		double logHigh = Math.log(maxTimeConstant);
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		double logA = logHigh - ratio * (logHigh - logLow);
+		double logB = logLow + ratio * (logHigh - logLow);
+		double errorA = stepError(position, first, last, Math.exp(logA));
+		double errorB = stepError(position, first, last, Math.exp(logB));
+		while (logHigh - logLow > 1e-4) {
+			if (errorA < errorB) {
+				logHigh = logB;
+				logB = logA;
+				errorB = errorA;
+				logA = logHigh - ratio * (logHigh - logLow);
+				errorA = stepError(position, first, last, Math.exp(logA));
+			} else {
+				logLow = logA;
+				logA = logB;
+				errorA = errorB;
+				logB = logLow + ratio * (logHigh - logLow);
+				errorB = stepError(position, first, last, Math.exp(logB));
+			}
+		}
+		double timeConstant = Math.exp((logLow + logHigh) / 2);
+		// A time constant at the end of the range didn't fit
+		if (timeConstant < minTimeConstant * 1.01 || timeConstant > maxTimeConstant * 0.99) {
+			return Double.NaN;
+		}
+		return timeConstant;
+	}
+
+	/**
+	 * Finds the squared error of the step model with a time constant, with x0, v∞ and v0 fitted by
+	 * least squares to the basis 1, s and τ (1 - e^(-s/τ))
+	 */
+	private double stepError(double[] position, int first, int last, double timeConstant) {
+		double[][] normal = new double[3][3];
+		double[] right = new double[3];
+		double[] row = new double[3];
+		double squares = 0;
+		double start = logger.getTime(first);
+		for (int i = first; i <= last; i++) {
+			double s = logger.getTime(i) - start;
+			row[0] = 1;
+			row[1] = s;
+			row[2] = timeConstant * (1 - Math.exp(-s / timeConstant));
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					normal[r][c] += row[r] * row[c];
+				}
+				right[r] += row[r] * position[i];
+			}
+			squares += position[i] * position[i];
+		}
+
+		double[] coefficients = solve(normal, right);
+		if (coefficients == null) return Double.POSITIVE_INFINITY;
+		// The squared error of a least squares fit is what is left of the sum of squares
+		double error = squares;
+		for (int r = 0; r < 3; r++) {
+			error -= coefficients[r] * right[r];
+		}
+		return error;
+	}
+
+	/**
+	 * Checks that the power is never zero and has no steps between two samples
+	 */
+	private boolean isSmoothPower(int first, int last) {
+		for (int i = first; i <= last; i++) {
+			double power = logger.getPower(i);
+			if (power == 0) return false;
+			if (i > first && Math.abs(power - logger.getPower(i - 1)) > maxPowerJump) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the velocity and acceleration at a time by fitting a quadratic to the positions of
+	 * the samples around it. This is much less sensitive to noise in the odometry than taking
+	 * differences between neighbouring samples.
+	 * @return false if the fit failed
+	 */
+	private boolean fitDerivatives(double[] position, int first, int last, double time,
+	                               double[] derivatives) {
+		double[][] normal = new double[3][3];
+		double[] right = new double[3];
+		for (int i = first; i <= last; i++) {
+			double t = logger.getTime(i) - time;
+			double[] row = {1, t, t * t};
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					normal[r][c] += row[r] * row[c];
+				}
+				right[r] += row[r] * position[i];
+			}
+		}
+
+		double[] coefficients = solve(normal, right);
+		if (coefficients == null) return false;
+		derivatives[0] = coefficients[1];
+		derivatives[1] = 2 * coefficients[2];
+		return true;
+	}
+
+	/**
+	 * Solves a square linear system with Gaussian elimination
+	 * @return the solution, or null if the system is singular
+	 */
+	private static double[] solve(double[][] matrix, double[] values) {
+		int n = values.length;
+		double[][] a = new double[n][n + 1];
+		for (int r = 0; r < n; r++) {
+			System.arraycopy(matrix[r], 0, a[r], 0, n);
+			a[r][n] = values[r];
+		}
+
+		for (int column = 0; column < n; column++) {
+			int pivot = column;
+			for (int r = column + 1; r < n; r++) {
+				if (Math.abs(a[r][column]) > Math.abs(a[pivot][column])) pivot = r;
+			}
+			if (Math.abs(a[pivot][column]) < 1e-12) return null;
+
+			double[] swap = a[column];
+			a[column] = a[pivot];
+			a[pivot] = swap;
+
+			for (int r = 0; r < n; r++) {
+				if (r == column) continue;
+				double factor = a[r][column] / a[column][column];
+				for (int c = column; c <= n; c++) {
+					a[r][c] -= factor * a[column][c];
+				}
+			}
+		}
+
+		double[] result = new double[n];
+		for (int r = 0; r < n; r++) {
+			result[r] = a[r][n] / a[r][r];
+		}
+		return result;
+	}
+}
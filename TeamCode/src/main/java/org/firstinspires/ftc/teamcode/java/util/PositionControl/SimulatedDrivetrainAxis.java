@@ -0,0 +1,101 @@
+package org.firstinspires.ftc.teamcode.java.util.PositionControl;
+
+import java.util.Random;
+
+/**
+ * A simple model of one axis of the drivetrain (drive, strafe or turn) so that tuning code can
+ * be run without a robot.
+ * <p>
+ * The axis follows the usual DC motor feedforward model:
+ * power = kS * sign(velocity) + kV * velocity + kA * acceleration,
+ * with static friction holding the axis still while the power is below kS. Noise can be added
+ * to the measured position to act like the odometry.
+ */
+public class SimulatedDrivetrainAxis {
+	private final double kS, kV, kA;
+
+	private double position = 0;
+	private double velocity = 0;
+
+	private double noise = 0;
+	private final Random random = new Random(4);
+
+	/**
+	 * Creates a simulated axis
+	 * @param kS the power needed to overcome static friction
+	 * @param kV the power needed per unit of velocity
+	 * @param kA the power needed per unit of acceleration
+	 */
+	public SimulatedDrivetrainAxis(double kS, double kV, double kA) {
+		if (kV <= 0 || kA <= 0)
+			throw new IllegalArgumentException("kV and kA must be positive");
+
+		this.kS = kS;
+		this.kV = kV;
+		this.kA = kA;
+	}
+
+	/**
+	 * Sets the standard deviation of the noise added to {@link #getPosition()}
+	 * @param noise the standard deviation, in the units of the position
+	 */
+	public void setNoise(double noise) {
+		this.noise = noise;
+	}
+
+	/**
+	 * Moves the simulation forward in time
+	 * @param power the power applied to the axis, clipped to [-1, 1]
+	 * @param dt the time step in seconds
+	 */
+	public void update(double power, double dt) {
+		power = Math.max(-1, Math.min(1, power));
+
+		// Static friction holds the axis still until the power overcomes it
+		if (velocity == 0 && Math.abs(power) <= kS) return;
+
+		// With the power held over the step, the velocity moves exponentially towards the speed
+		// the power can hold, so the step is solved exactly instead of with Euler's method
+		double direction = velocity != 0 ? Math.signum(velocity) : Math.signum(power);
+		double steadyVelocity = (power - kS * direction) / kV;
+		double timeConstant = kA / kV;
+		double decay = Math.exp(-dt / timeConstant);
+		double newVelocity = steadyVelocity + (velocity - steadyVelocity) * decay;
+		double distance = steadyVelocity * dt + (velocity - steadyVelocity) * timeConstant * (1 - decay);
+
+		// Friction can stop the axis but never push it backwards
+		if (Math.signum(newVelocity) != direction && Math.abs(power) <= kS) {
+			double stopTime = timeConstant * Math.log((velocity - steadyVelocity) / -steadyVelocity);
+			distance = steadyVelocity * stopTime
+					+ (velocity - steadyVelocity) * timeConstant * (1 - Math.exp(-stopTime / timeConstant));
+			newVelocity = 0;
+		}
+
+		position += distance;
+		velocity = newVelocity;
+	}
+
+	/**
+	 * Gets the measured position, including noise
+	 * @return the position
+	 */
+	public double getPosition() {
+		return noise == 0 ? position : position + random.nextGaussian() * noise;
+	}
+
+	public double getVelocity() {
+		return velocity;
+	}
+
+	public double getKs() {
+		return kS;
+	}
+
+	public double getKv() {
+		return kV;
+	}
+
+	public double getKa() {
+		return kA;
+	}
+}
@@ -46,6 +46,9 @@ public class RobotHardware {
      */
     public void init(HardwareMap hardwareMap) {
         this.hardwareMap = hardwareMap;
+        // Lets tunable parameters be changed from a file while the OpMode runs
+        ParameterFileWatcher.startShared();
+
         // imu set up parameters
         BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
         parameters.angleUnit = BNO055IMU.AngleUnit.RADIANS;
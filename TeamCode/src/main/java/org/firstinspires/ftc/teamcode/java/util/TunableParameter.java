@@ -0,0 +1,43 @@
+package org.firstinspires.ftc.teamcode.java.util;
+
+/**
+ * A number which can be changed while the robot is running, for example a PID gain.
+ * <p>
+ * The value is stored in a volatile field, so reading it in a control loop only costs a
+ * volatile read, and a value set from another thread (like the {@link ParameterFileWatcher})
+ * is seen on the next read. Parameters which should be changed by name are registered in the
+ * {@link ParameterRegistry}.
+ */
+public final class TunableParameter {
+	private final String name;
+	private volatile double value;
+
+	/**
+	 * Creates a parameter. This does not register it; use
+	 * {@link ParameterRegistry#register(String, double)} for parameters that should be tunable
+	 * by name.
+	 * @param name the name of the parameter
+	 * @param value the starting value
+	 */
+	public TunableParameter(String name, double value) {
+		this.name = name;
+		this.value = value;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double get() {
+		return value;
+	}
+
+	public void set(double value) {
+		this.value = value;
+	}
+
+	@Override
+	public String toString() {
+		return name + "=" + value;
+	}
+}
@@ -0,0 +1,73 @@
+package org.firstinspires.ftc.teamcode.java.util;
+
+import java.util.Locale;
+
+/**
+ * A point on a path for the robot to drive through.
+ * <p>
+ * A waypoint either stops the robot, which then has to be within the tolerance of the position
+ * before moving on, or is driven through without slowing down, in which case the tolerance is
+ * how close the robot has to come before it starts on the next part of the path.
+ */
+public final class Waypoint {
+	private final MovementData position;
+	private final MovementData tolerance;
+	private final boolean stop;
+
+	/**
+	 * Creates a waypoint
+	 * @param position the field position and angle to reach
+	 * @param tolerance the error range for the position, or null to use the default
+	 * @param stop whether the robot should stop at the position
+	 */
+	public Waypoint(MovementData position, MovementData tolerance, boolean stop) {
+		this.position = position;
+		this.tolerance = tolerance;
+		this.stop = stop;
+	}
+
+	/**
+	 * Creates a waypoint with the default error range
+	 * @param position the field position and angle to reach
+	 * @param stop whether the robot should stop at the position
+	 */
+	public Waypoint(MovementData position, boolean stop) {
+		this(position, null, stop);
+	}
+
+	/**
+	 * @param position the field position and angle to reach
+	 * @return a waypoint which the robot stops at
+	 */
+	public static Waypoint stopAt(MovementData position) {
+		return new Waypoint(position, true);
+	}
+
+	/**
+	 * @param position the field position and angle to reach
+	 * @return a waypoint which the robot drives through
+	 */
+	public static Waypoint through(MovementData position) {
+		return new Waypoint(position, false);
+	}
+
+	public MovementData getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the error range, or null if the default should be used
+	 */
+	public MovementData getTolerance() {
+		return tolerance;
+	}
+
+	public boolean isStop() {
+		return stop;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ENGLISH, "%s %s", stop ? "Stop at" : "Through", position);
+	}
+}
@@ -1,6 +1,8 @@
 package org.firstinspires.ftc.teamcode.java.vision;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.java.util.ParameterRegistry;
+import org.firstinspires.ftc.teamcode.java.util.TunableParameter;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -81,6 +83,19 @@ public class RingHeightPipeline extends OpenCvPipeline {
 	//Scalar YELLOW_MAXIMUM = new Scalar(rstart+20, gstart+20, rstart+20);
 	Scalar YELLOW_MAXIMUM = new Scalar(185, 180, 115);
 
+	/**
+	 * The thresholds as {@link TunableParameter}s so they can be changed while the camera is
+	 * streaming. They are registered once and shared by every pipeline, and are copied into
+	 * YELLOW_MINIMUM and YELLOW_MAXIMUM at the start of every frame. The minimums start at
+	 * rstart, gstart and bstart.
+	 */
+	static final TunableParameter minimumY = ParameterRegistry.register("RingHeightPipeline.minimumY", 15);
+	static final TunableParameter minimumCr = ParameterRegistry.register("RingHeightPipeline.minimumCr", 15);
+	static final TunableParameter minimumCb = ParameterRegistry.register("RingHeightPipeline.minimumCb", 30);
+	static final TunableParameter maximumY = ParameterRegistry.register("RingHeightPipeline.maximumY", 185);
+	static final TunableParameter maximumCr = ParameterRegistry.register("RingHeightPipeline.maximumCr", 180);
+	static final TunableParameter maximumCb = ParameterRegistry.register("RingHeightPipeline.maximumCb", 115);
+
 	final static int bigIncrement = 15;
 	final static int smallIncrement = bigIncrement / 3;
 
@@ -103,8 +118,12 @@ public class RingHeightPipeline extends OpenCvPipeline {
 			newMax[1]   = gstart+20;
 		}
 
-		YELLOW_MINIMUM = new Scalar(thing);
-		YELLOW_MAXIMUM = new Scalar(newMax);
+		minimumY.set(thing[0]);
+		minimumCr.set(thing[1]);
+		minimumCb.set(thing[2]);
+		maximumY.set(newMax[0]);
+		maximumCr.set(newMax[1]);
+		maximumCb.set(newMax[2]);
 
 		if (telemetry != null) {
 			telemetry.addData("Current Minimum", Arrays.toString(thing));
@@ -130,7 +149,7 @@ public class RingHeightPipeline extends OpenCvPipeline {
 	/**
 	 * A Factor Used to determine the height of a stack of rings
 	 */
-	static final double HEIGHT_FACTOR = 0.7;
+	static final TunableParameter HEIGHT_FACTOR = ParameterRegistry.register("RingHeightPipeline.heightFactor", 0.7);
 
 	/**
 	 * This will store the value of the height of the stack to allow us to know where to move the robot.
@@ -163,6 +182,14 @@ public class RingHeightPipeline extends OpenCvPipeline {
 	 */
 	@Override
 	public Mat processFrame(Mat input) {
+		// Picks up any thresholds which were changed since the last frame
+		YELLOW_MINIMUM.val[0] = minimumY.get();
+		YELLOW_MINIMUM.val[1] = minimumCr.get();
+		YELLOW_MINIMUM.val[2] = minimumCb.get();
+		YELLOW_MAXIMUM.val[0] = maximumY.get();
+		YELLOW_MAXIMUM.val[1] = maximumCr.get();
+		YELLOW_MAXIMUM.val[2] = maximumCb.get();
+
 		// The first thing that this does is that it converts the input to YCrCb. The YCrCb colorspace
 		// works much better in this situation because it will help significantly with
 		// calculating thresholds
@@ -228,7 +255,7 @@ public class RingHeightPipeline extends OpenCvPipeline {
 		// the height of the stack relative to the width, giving us a good measure of how many
 		// rings there are.
 		double aspectRatio = (double) maximumRectangle.height / maximumRectangle.width;
-		height = (maximumWidth >= MINIMUM_WIDTH ? (aspectRatio > HEIGHT_FACTOR ? Height.C : Height.B) : Height.A);
+		height = (maximumWidth >= MINIMUM_WIDTH ? (aspectRatio > HEIGHT_FACTOR.get() ? Height.C : Height.B) : Height.A);
 
 		// The Above Ternary Expression Might be a little confusing to those with less experience
 		// reading code, so the following logic tree represents the same situation: